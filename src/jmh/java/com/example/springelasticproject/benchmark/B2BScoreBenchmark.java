@@ -0,0 +1,147 @@
+package com.example.springelasticproject.benchmark;
+
+import com.example.springelasticproject.Services.b2bService.B2BScoreFormula;
+import com.example.springelasticproject.Services.b2bService.B2BScoreServiceFast;
+import com.example.springelasticproject.model.b2bModel.ScoreResult;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du calcul du score B2B par document, sur des répartitions d'avis synthétiques.
+ *
+ * Lancement: mvn -Pjmh test-compile exec:exec (profileur GC activé, ns/op et octets alloués par op)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class B2BScoreBenchmark {
+
+    private static final int DISTRIBUTIONS = 4096;
+
+    /**
+     * small: peu d'avis (le prior bayésien domine), large: fiches très commentées, mixed: les deux
+     */
+    @Param({"small", "large", "mixed"})
+    public String profile;
+
+    private B2BScoreServiceFast scoreService;
+    private int[][] counts;
+    private Map<String, Integer>[] reviewMaps;
+    private final B2BScoreFormula.Holder holder = new B2BScoreFormula.Holder();
+    private int[] n1, n2, n3, n4, n5;
+    private double[] blockScores;
+    private byte[] blockCategories;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        // Le service n'utilise ni le repository, ni ElasticsearchOperations, ni le pool pour le calcul
+        scoreService = new B2BScoreServiceFast(null, null, null);
+        counts = new int[DISTRIBUTIONS][5];
+        reviewMaps = new Map[DISTRIBUTIONS];
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < DISTRIBUTIONS; i++) {
+            int total = totalReviews(random, i);
+            // Répartition en J typique des avis: beaucoup de 5, quelques 1
+            double[] weights = {0.08 + random.nextDouble(0.1), 0.04, 0.08, 0.2, 0.6};
+            double sum = 0;
+            for (double w : weights) {
+                sum += w;
+            }
+            Map<String, Integer> map = new HashMap<>();
+            for (int rating = 0; rating < 5; rating++) {
+                counts[i][rating] = (int) Math.round(total * weights[rating] / sum);
+                map.put(String.valueOf(rating + 1), counts[i][rating]);
+            }
+            reviewMaps[i] = map;
+        }
+
+        n1 = column(0);
+        n2 = column(1);
+        n3 = column(2);
+        n4 = column(3);
+        n5 = column(4);
+        blockScores = new double[DISTRIBUTIONS];
+        blockCategories = new byte[DISTRIBUTIONS];
+    }
+
+    private int[] column(int rating) {
+        int[] column = new int[DISTRIBUTIONS];
+        for (int i = 0; i < DISTRIBUTIONS; i++) {
+            column[i] = counts[i][rating];
+        }
+        return column;
+    }
+
+    private int totalReviews(SplittableRandom random, int i) {
+        switch (profile) {
+            case "small":
+                return random.nextInt(0, 20);
+            case "large":
+                return random.nextInt(500, 50_000);
+            default:
+                return i % 2 == 0 ? random.nextInt(0, 20) : random.nextInt(500, 50_000);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (DISTRIBUTIONS - 1);
+        return cursor;
+    }
+
+    /**
+     * Formule actuelle: un ScoreResult alloué par document
+     */
+    @Benchmark
+    public ScoreResult calculateBusinessScore() {
+        int[] c = counts[next()];
+        return scoreService.calculateBusinessScore(c[0], c[1], c[2], c[3], c[4],
+                B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2,
+                B2BScoreServiceFast.DEFAULT_M, B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING);
+    }
+
+    /**
+     * Chemin de l'import et du recalcul: lectures getOrDefault dans une Map<String, Integer>
+     */
+    @Benchmark
+    public ScoreResult calculateScoreFromReviews() {
+        return scoreService.calculateScoreFromReviews(reviewMaps[next()]);
+    }
+
+    /**
+     * Variante primitive: tableaux d'int, résultat écrit dans un holder réutilisé
+     */
+    @Benchmark
+    public void formulaIntoHolder(Blackhole blackhole) {
+        int[] c = counts[next()];
+        B2BScoreFormula.score(c[0], c[1], c[2], c[3], c[4],
+                B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2,
+                B2BScoreServiceFast.DEFAULT_M, B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING, holder);
+        blackhole.consume(holder.score);
+        blackhole.consume(holder.category);
+    }
+
+    /**
+     * Bloc colonne de DISTRIBUTIONS documents; le temps rapporté est déjà ramené à un document
+     */
+    @Benchmark
+    @OperationsPerInvocation(DISTRIBUTIONS)
+    public void scoreBlock(Blackhole blackhole) {
+        B2BScoreFormula.scoreBlock(n1, n2, n3, n4, n5, DISTRIBUTIONS,
+                B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2,
+                B2BScoreServiceFast.DEFAULT_M, B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING,
+                blockScores, blockCategories);
+        blackhole.consume(blockScores);
+        blackhole.consume(blockCategories);
+    }
+}
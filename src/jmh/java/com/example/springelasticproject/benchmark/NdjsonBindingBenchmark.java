@@ -0,0 +1,212 @@
+package com.example.springelasticproject.benchmark;
+
+import com.example.springelasticproject.Services.b2bService.B2BNdjsonBinder;
+import com.example.springelasticproject.model.b2bModel.B2B;
+import com.example.springelasticproject.util.SnakeToCamelCaseParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de liaison d'une ligne NDJSON B2B (clés snake_case) en objet {@link B2B}, en lignes par seconde.
+ *
+ * treeTransform reproduit l'ancien chemin de l'import (readTree, recopie de l'arbre en camelCase,
+ * writeValueAsString puis readValue); streaming* passent par {@link B2BNdjsonBinder}.
+ * Lancement: mvn -Pjmh test-compile exec:exec -Djmh.includes=NdjsonBindingBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NdjsonBindingBenchmark {
+
+    private static final int LINES = 256;
+
+    /**
+     * small: fiche sans avis détaillés, large: fiche complète (avis, horaires, affluence)
+     */
+    @Param({"small", "large"})
+    public String profile;
+
+    private ObjectMapper objectMapper;
+    private B2BNdjsonBinder binder;
+    private String[] lines;
+    private byte[][] utf8Lines;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Même comportement que l'ObjectMapper configuré par Spring Boot
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        binder = new B2BNdjsonBinder(objectMapper);
+        lines = new String[LINES];
+        utf8Lines = new byte[LINES][];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = sampleLine(random, i, "large".equals(profile));
+            utf8Lines[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        }
+        // Les deux chemins doivent produire exactement le même document
+        for (String line : lines) {
+            String expected = objectMapper.writeValueAsString(treeTransform(line));
+            String actual = objectMapper.writeValueAsString(binder.bind(line));
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Liaison en flux différente de l'ancien chemin:\n" + expected + "\n" + actual);
+            }
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (cursor + 1) & (LINES - 1);
+        return index;
+    }
+
+    @Benchmark
+    public B2B treeTransform() throws IOException {
+        return treeTransform(lines[next()]);
+    }
+
+    @Benchmark
+    public B2B streamingFromString() throws IOException {
+        return binder.bind(lines[next()]);
+    }
+
+    @Benchmark
+    public B2B streamingFromBytes() throws IOException {
+        byte[] line = utf8Lines[next()];
+        return binder.bind(line, 0, line.length);
+    }
+
+    private B2B treeTransform(String line) throws IOException {
+        JsonNode jsonNode = objectMapper.readTree(line);
+        JsonNode transformedNode = transformJsonKeys(jsonNode);
+        String transformedJson = objectMapper.writeValueAsString(transformedNode);
+        return objectMapper.readValue(transformedJson, B2B.class);
+    }
+
+    // Ancienne conversion de ImportB2BService, conservée comme référence
+    private JsonNode transformJsonKeys(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = objectMapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String camelCaseKey = SnakeToCamelCaseParser.snakeToCamelCase(field.getKey());
+                JsonNode value = field.getValue();
+                if (value.isObject() || value.isArray()) {
+                    objectNode.set(camelCaseKey, transformJsonKeys(value));
+                } else {
+                    objectNode.set(camelCaseKey, value);
+                }
+            }
+            return objectNode;
+        } else if (node.isArray()) {
+            List<JsonNode> transformedElements = new ArrayList<>();
+            for (JsonNode element : node) {
+                transformedElements.add(transformJsonKeys(element));
+            }
+            return objectMapper.valueToTree(transformedElements);
+        }
+        return node;
+    }
+
+    /**
+     * Ligne au format de l'export Google Maps utilisé par l'import
+     */
+    private String sampleLine(SplittableRandom random, int index, boolean large) throws IOException {
+        ObjectNode shop = objectMapper.createObjectNode();
+        shop.put("place_id", "ChIJ" + Long.toHexString(random.nextLong()));
+        shop.put("name", "Garage du Centre " + index);
+        shop.put("description", "Réparation et entretien toutes marques, pneus, climatisation");
+        shop.put("is_spending_on_ads", random.nextBoolean());
+        shop.put("reviews", random.nextInt(2000));
+        shop.put("rating", Math.round(random.nextDouble(1, 5) * 10) / 10.0);
+        shop.put("website", "https://garage-" + index + ".example.fr");
+        shop.put("phone", "+33 1 23 45 67 " + (10 + index % 90));
+        shop.put("can_claim", false);
+        shop.put("featured_image", "https://lh5.googleusercontent.com/p/" + index);
+        shop.put("main_category", "Garage automobile");
+        shop.putArray("categories").add("Garage automobile").add("Centre auto").add("Service de pneus");
+        shop.put("workday_timing", "8 am-7 pm");
+        shop.put("is_temporarily_closed", false);
+        shop.put("is_permanently_closed", false);
+        shop.putArray("closed_on").add("Sunday");
+        shop.put("address", index + " Rue de la République, 75011 Paris");
+        shop.put("link", "https://www.google.com/maps/place/" + index);
+        shop.put("status", "OPERATIONAL");
+        shop.put("price_range", "€€");
+        ObjectNode ratings = shop.putObject("reviews_per_rating");
+        for (int rating = 1; rating <= 5; rating++) {
+            ratings.put(String.valueOf(rating), random.nextInt(400));
+        }
+        shop.put("reviews_link", "https://search.google.com/local/reviews?placeid=" + index);
+        shop.putObject("coordinates").put("latitude", 48.85 + random.nextDouble(0.1)).put("longitude", 2.35 + random.nextDouble(0.1));
+        shop.put("plus_code", "V75V+8Q Paris");
+        shop.putObject("detailed_address").put("ward", "11e").put("street", "Rue de la République")
+                .put("city", "Paris").put("postal_code", "75011").put("state", "Île-de-France").put("country_code", "FR");
+        shop.put("time_zone", "Europe/Paris");
+        shop.put("cid", Long.toString(random.nextLong() & Long.MAX_VALUE));
+        shop.put("data_id", "0x47e6" + Long.toHexString(random.nextLong()));
+        shop.put("query", "garage paris");
+
+        ArrayNode competitors = shop.putArray("competitors");
+        for (int i = 0; i < 3; i++) {
+            competitors.addObject().put("name", "Concurrent " + i).put("link", "https://maps.example/" + i)
+                    .put("reviews", random.nextInt(500)).put("rating", 4.2).put("main_category", "Garage automobile");
+        }
+        ArrayNode keywords = shop.putArray("review_keywords");
+        for (String keyword : new String[]{"prix", "accueil", "délai", "devis"}) {
+            keywords.addObject().put("keyword", keyword).put("count", random.nextInt(50));
+        }
+        ArrayNode about = shop.putArray("about");
+        ObjectNode accessibility = about.addObject().put("id", "accessibility").put("name", "Accessibilité");
+        accessibility.putArray("options").addObject().put("name", "Entrée accessible en fauteuil roulant").put("enabled", true);
+        ArrayNode images = shop.putArray("images");
+        images.addObject().put("about", "All").put("link", "https://lh5.googleusercontent.com/p/a" + index);
+        images.addObject().put("about", "Latest").put("link", "https://lh5.googleusercontent.com/p/b" + index);
+
+        if (large) {
+            ArrayNode hours = shop.putArray("hours");
+            ObjectNode popularTimes = shop.putObject("popular_times");
+            for (String day : new String[]{"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"}) {
+                hours.addObject().put("day", day).putArray("times").add("8 am-12 pm").add("2-7 pm");
+                ArrayNode slots = popularTimes.putArray(day);
+                for (int hour = 8; hour < 19; hour++) {
+                    slots.addObject().put("hour_of_day", hour).put("time_label", hour + " h")
+                            .put("popularity_percentage", random.nextInt(100)).put("popularity_description", "Assez fréquenté");
+                }
+            }
+            ArrayNode mostPopular = shop.putArray("most_popular_times");
+            mostPopular.addObject().put("hour_of_day", 17).put("average_popularity", 72.5).put("time_label", "17 h");
+            ArrayNode featured = shop.putArray("featured_reviews");
+            ArrayNode detailed = shop.putArray("detailed_reviews");
+            for (int i = 0; i < 8; i++) {
+                ObjectNode review = (i < 3 ? featured : detailed).addObject()
+                        .put("review_id", Long.toHexString(random.nextLong()))
+                        .put("name", "Client " + i)
+                        .put("rating", 1 + random.nextInt(5))
+                        .put("review_text", "Très bon accueil, travail soigné et rapide. Prix raisonnable pour une révision complète.")
+                        .put("published_at", "il y a " + (1 + i) + " mois")
+                        .put("published_at_date", "2024-0" + (1 + i) + "-12T10:15:00Z")
+                        .put("response_from_owner_text", "Merci pour votre retour !");
+                review.putArray("review_photos").add("https://lh5.googleusercontent.com/p/r" + i);
+            }
+        }
+        return objectMapper.writeValueAsString(shop);
+    }
+}
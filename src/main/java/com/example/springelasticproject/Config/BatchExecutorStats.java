@@ -0,0 +1,92 @@
+package com.example.springelasticproject.Config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures d'un pool de traitement: attente en file et durée d'exécution de chaque tâche,
+ * nombre de tâches exécutées dans le thread appelant faute de place dans la file.
+ */
+public class BatchExecutorStats implements TaskDecorator {
+
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    /**
+     * Appelé au moment de la soumission: l'instant mémorisé sert à mesurer l'attente en file
+     */
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        long submittedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            record(totalQueueNanos, maxQueueNanos, startedAt - submittedAt);
+            boolean failed = true;
+            try {
+                runnable.run();
+                failed = false;
+            } finally {
+                record(totalRunNanos, maxRunNanos, System.nanoTime() - startedAt);
+                completedTasks.increment();
+                if (failed) {
+                    failedTasks.increment();
+                }
+            }
+        };
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * CallerRunsPolicy qui compte les débordements de file
+     */
+    RejectedExecutionHandler callerRunsPolicy() {
+        ThreadPoolExecutor.CallerRunsPolicy delegate = new ThreadPoolExecutor.CallerRunsPolicy();
+        return (runnable, executor) -> {
+            callerRuns.increment();
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+
+    /**
+     * Instantané de l'état du pool et des mesures cumulées depuis le démarrage
+     */
+    public Map<String, Object> snapshot(ThreadPoolTaskExecutor executor) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        long completed = completedTasks.sum();
+
+        map.put("poolSize", pool.getPoolSize());
+        map.put("maxPoolSize", pool.getMaximumPoolSize());
+        map.put("activeThreads", pool.getActiveCount());
+        map.put("queueDepth", pool.getQueue().size());
+        map.put("queueRemainingCapacity", pool.getQueue().remainingCapacity());
+        map.put("completedTasks", completed);
+        map.put("failedTasks", failedTasks.sum());
+        map.put("callerRuns", callerRuns.sum());
+        map.put("avgQueueWaitMs", completed > 0 ? round(totalQueueNanos.sum() / 1_000_000.0 / completed) : 0.0);
+        map.put("maxQueueWaitMs", round(maxQueueNanos.get() / 1_000_000.0));
+        map.put("avgRunMs", completed > 0 ? round(totalRunNanos.sum() / 1_000_000.0 / completed) : 0.0);
+        map.put("maxRunMs", round(maxRunNanos.get() / 1_000_000.0));
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
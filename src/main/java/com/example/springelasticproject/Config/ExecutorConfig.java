@@ -0,0 +1,74 @@
+package com.example.springelasticproject.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Pools partagés des traitements de masse (imports, recalculs de scores).
+ *
+ * - cpuBatchExecutor: travail de calcul (mapping CSV, calcul des scores), dimensionné sur les cœurs
+ * - ioBatchExecutor: travail qui attend Elasticsearch (bulk, lecture paginée), plus de threads
+ *
+ * Les files sont bornées: quand elles sont pleines, la tâche s'exécute dans le thread appelant
+ * (CallerRunsPolicy), ce qui ralentit naturellement le producteur. À l'arrêt de l'application les
+ * tâches en cours sont terminées. Les tâches soumises ne doivent pas attendre d'autres tâches du
+ * même pool (pas de workers en boucle): c'est ce qui permet de partager les pools sans interblocage.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    public static final String CPU_EXECUTOR = "cpuBatchExecutor";
+    public static final String IO_EXECUTOR = "ioBatchExecutor";
+
+    @Value("${batch.executor.await-termination-seconds:30}")
+    private int awaitTerminationSeconds;
+
+    @Bean(name = CPU_EXECUTOR)
+    public ThreadPoolTaskExecutor cpuBatchExecutor(
+            @Value("${batch.executor.cpu.threads:0}") int threads,
+            @Value("${batch.executor.cpu.queue-capacity:64}") int queueCapacity) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return createExecutor("cpu-batch-", threads > 0 ? threads : cores, queueCapacity);
+    }
+
+    @Bean(name = IO_EXECUTOR)
+    public ThreadPoolTaskExecutor ioBatchExecutor(
+            @Value("${batch.executor.io.threads:0}") int threads,
+            @Value("${batch.executor.io.queue-capacity:256}") int queueCapacity) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return createExecutor("io-batch-", threads > 0 ? threads : Math.max(4, cores * 2), queueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String prefix, int threads, int queueCapacity) {
+        BatchExecutorStats stats = new BatchExecutorStats();
+        ThreadPoolTaskExecutor executor = new InstrumentedTaskExecutor(stats);
+        executor.setThreadNamePrefix(prefix);
+        // Taille fixe: avec une file bornée, maxPoolSize > corePoolSize ne sert qu'une fois la file pleine
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setTaskDecorator(stats);
+        executor.setRejectedExecutionHandler(stats.callerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * ThreadPoolTaskExecutor qui garde ses mesures à portée (endpoint /api/executors)
+     */
+    public static class InstrumentedTaskExecutor extends ThreadPoolTaskExecutor {
+        private final BatchExecutorStats stats;
+
+        InstrumentedTaskExecutor(BatchExecutorStats stats) {
+            this.stats = stats;
+        }
+
+        public BatchExecutorStats getStats() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springelasticproject.Config;
+
+import com.example.springelasticproject.Services.b2bService.B2BIndexBootstrapService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Refuse les recherches B2B tant que l'index n'est pas chargé: réponse 503 immédiate avec l'état du
+ * chargement, au lieu d'une requête Elasticsearch lente ou d'un résultat vide
+ */
+public class IndexWarmupInterceptor implements HandlerInterceptor {
+
+    private final B2BIndexBootstrapService bootstrapService;
+    private final ObjectMapper objectMapper;
+
+    public IndexWarmupInterceptor(B2BIndexBootstrapService bootstrapService, ObjectMapper objectMapper) {
+        this.bootstrapService = bootstrapService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (bootstrapService.isReady()) {
+            return true;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", false);
+        body.put("status", "INDEX_WARMING");
+        body.put("message", "Index B2B en cours de chargement, réessayez plus tard");
+        body.put("bootstrap", bootstrapService.toMap());
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(bootstrapService.getRetryDelaySeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+        return false;
+    }
+}
@@ -1,13 +1,24 @@
 package com.example.springelasticproject.Config;
 
+import com.example.springelasticproject.Services.b2bService.B2BIndexBootstrapService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final B2BIndexBootstrapService bootstrapService;
+    private final ObjectMapper objectMapper;
+
+    public WebConfig(B2BIndexBootstrapService bootstrapService, ObjectMapper objectMapper) {
+        this.bootstrapService = bootstrapService;
+        this.objectMapper = objectMapper;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -15,4 +26,12 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Méthodes autorisées
                 .allowedHeaders("*"); // Tous les headers sont autorisés
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Recherches et exports B2B refusés (503) pendant le chargement initial de l'index
+        registry.addInterceptor(new IndexWarmupInterceptor(bootstrapService, objectMapper))
+                .addPathPatterns("/api/b2b/search", "/api/b2b/search/**", "/api/b2b/searchByA04*",
+                        "/api/b2b/export-csvB2B*", "/api/b2b/scorePercentile");
+    }
+}
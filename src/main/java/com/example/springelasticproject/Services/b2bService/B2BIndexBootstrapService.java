@@ -0,0 +1,298 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import com.example.springelasticproject.model.b2bModel.B2B;
+import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import com.example.springelasticproject.model.b2cModel.B2C;
+import com.example.springelasticproject.util.DataImporter;
+import com.example.springelasticproject.util.NdjsonBulkLoader;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chargement initial de l'index B2B en arrière-plan.
+ *
+ * L'application démarre et répond tout de suite, même sans Elasticsearch: les dépôts ne créent plus
+ * leur index à l'initialisation. Ce service attend qu'Elasticsearch réponde, crée les index
+ * manquants avec leur mapping, puis importe le répertoire de données si l'index B2B est vide, ou
+ * reprend l'import précédent s'il s'est arrêté avant la fin. Un import avec des fichiers en échec
+ * ou des échecs d'indexation temporaires est repris depuis son manifeste, au plus
+ * {@code data.import.bootstrap.max-attempts} fois; au-delà l'index est déclaré prêt en mode dégradé
+ * et les échecs restants sont exposés. Les documents refusés définitivement par Elasticsearch ne
+ * sont pas rejoués. Tant que l'index n'est pas chargé, l'application se déclare non prête (ReadinessState.REFUSING_TRAFFIC) et les recherches B2B
+ * répondent 503 (voir IndexWarmupInterceptor). L'état et l'avancement sont exposés par
+ * /api/import/bootstrap.
+ */
+@Service
+public class B2BIndexBootstrapService {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2BIndexBootstrapService.class);
+
+    // Documents dont l'index est créé ici plutôt qu'à l'initialisation de leur dépôt (createIndex = false)
+    private static final List<Class<?>> INDEXED_DOCUMENTS = List.of(B2B.class, ShadowPilot.class, B2C.class);
+
+    private final DataImporter dataImporter;
+    private final B2BService b2BService;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplicationAvailability applicationAvailability;
+    private final boolean enabled;
+    private final long retryDelaySeconds;
+    private final int maxImportAttempts;
+
+    // Un seul thread: le chargement initial ne tourne qu'une fois
+    private final ExecutorService bootstrapExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "b2b-index-bootstrap");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile WarmupState state = WarmupState.STARTING;
+    private volatile NdjsonBulkLoader.DirectoryStats importProgress;
+    private volatile long documentCount = -1;
+    // Essais en échec (Elasticsearch injoignable, import interrompu ou incomplet)
+    private volatile int failures;
+    private volatile String lastError;
+    // Bilan du dernier essai d'import quand il reste des échecs ou des documents refusés
+    private volatile Map<String, Object> importFailures;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime readyAt;
+
+    @Autowired
+    public B2BIndexBootstrapService(DataImporter dataImporter, B2BService b2BService,
+                                    ElasticsearchOperations elasticsearchOperations, ApplicationEventPublisher eventPublisher,
+                                    ApplicationAvailability applicationAvailability,
+                                    @Value("${data.import.bootstrap.enabled:true}") boolean enabled,
+                                    @Value("${data.import.bootstrap.retry-seconds:15}") long retryDelaySeconds,
+                                    @Value("${data.import.bootstrap.max-attempts:5}") int maxImportAttempts) {
+        this.dataImporter = dataImporter;
+        this.b2BService = b2BService;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.eventPublisher = eventPublisher;
+        this.applicationAvailability = applicationAvailability;
+        this.enabled = enabled;
+        this.retryDelaySeconds = Math.max(1, retryDelaySeconds);
+        this.maxImportAttempts = Math.max(1, maxImportAttempts);
+    }
+
+    /**
+     * Lance le chargement une fois l'application démarrée, sans retarder le démarrage. Désactivé,
+     * seul l'import est ignoré: les index sont toujours créés avec leur mapping.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        bootstrapExecutor.submit(this::bootstrap);
+    }
+
+    /**
+     * Spring Boot annonce l'application prête à la fin du démarrage: elle ne l'est qu'une fois
+     * l'index chargé. Exécuté après l'enregistrement de l'état par ApplicationAvailabilityBean.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !isReady()) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    private void bootstrap() {
+        try {
+            long documents = awaitElasticsearch();
+            if (!enabled) {
+                logger.info("Chargement initial de l'index B2B désactivé, index en place");
+                markReady(documents, WarmupState.READY);
+                return;
+            }
+            String directory = dataImporter.getDataDirectory();
+            // Un import interrompu (arrêt brutal) a déjà rempli une partie de l'index: il est repris
+            boolean resume = dataImporter.hasUnfinishedImport(directory);
+            if (documents > 0 && !resume) {
+                logger.info("{} boutiques déjà présentes dans l'index. Import ignoré.", documents);
+                markReady(documents, WarmupState.READY);
+                return;
+            }
+            // Après un échec l'import reprend là où il s'était arrêté au lieu de repartir de zéro. Seuls les
+            // fichiers en échec et les échecs temporaires sont rejoués: un document refusé ne bloque pas
+            for (int attempt = 1; ; attempt++) {
+                String error;
+                try {
+                    NdjsonBulkLoader.DirectoryStats stats = importDirectory(directory, resume);
+                    importFailures = stats.getRejected() > 0 || !isComplete(stats) ? failureSummary(stats) : null;
+                    if (isComplete(stats)) {
+                        markReady(countDocuments(), WarmupState.READY);
+                        return;
+                    }
+                    error = String.format("import incomplet: %d fichiers en échec, %d documents non indexés",
+                            stats.getFailedFiles().size(), stats.getIndexFailures());
+                } catch (RuntimeException e) {
+                    error = e.getClass().getSimpleName() + ": " + e.getMessage();
+                }
+                if (attempt >= maxImportAttempts) {
+                    failures++;
+                    lastError = error;
+                    logger.warn("Import initial incomplet après {} essais, index B2B ouvert en mode dégradé: {}",
+                            attempt, error);
+                    markReady(countDocuments(), WarmupState.DEGRADED);
+                    return;
+                }
+                failed(error);
+                resume = true;
+                TimeUnit.SECONDS.sleep(retryDelaySeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Chargement initial de l'index B2B interrompu");
+        }
+    }
+
+    /**
+     * Attend qu'Elasticsearch réponde et crée les index manquants; retourne le nombre de documents
+     * de l'index B2B
+     */
+    private long awaitElasticsearch() throws InterruptedException {
+        while (true) {
+            state = WarmupState.WAITING_FOR_ELASTICSEARCH;
+            try {
+                createMissingIndices();
+                return b2BService.count();
+            } catch (RuntimeException e) {
+                failed(e.getClass().getSimpleName() + ": " + e.getMessage());
+                TimeUnit.SECONDS.sleep(retryDelaySeconds);
+            }
+        }
+    }
+
+    private void createMissingIndices() {
+        for (Class<?> document : INDEXED_DOCUMENTS) {
+            IndexOperations indexOps = elasticsearchOperations.indexOps(document);
+            if (!indexOps.exists()) {
+                indexOps.createWithMapping();
+                logger.info("Index {} créé", indexOps.getIndexCoordinates().getIndexName());
+            }
+        }
+    }
+
+    private NdjsonBulkLoader.DirectoryStats importDirectory(String directory, boolean resume) {
+        state = WarmupState.IMPORTING;
+        if (resume) {
+            logger.info("Reprise de l'importation de {} en arrière-plan...", directory);
+        } else {
+            logger.info("Aucune boutique trouvée dans l'index. Importation de {} en arrière-plan...", directory);
+        }
+        NdjsonBulkLoader.DirectoryStats progress = new NdjsonBulkLoader.DirectoryStats();
+        importProgress = progress;
+        return dataImporter.importDataFromDirectory(directory, resume, progress);
+    }
+
+    /**
+     * Nombre de documents de l'index, -1 si Elasticsearch ne répond plus: l'état prêt n'en dépend pas
+     */
+    private long countDocuments() {
+        try {
+            return b2BService.count();
+        } catch (RuntimeException e) {
+            logger.warn("Comptage des documents B2B impossible: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private static boolean isComplete(NdjsonBulkLoader.DirectoryStats stats) {
+        return stats.getFailedFiles().isEmpty() && stats.getIndexFailures() == 0;
+    }
+
+    private static Map<String, Object> failureSummary(NdjsonBulkLoader.DirectoryStats stats) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("failedFiles", stats.getFailedFiles());
+        summary.put("indexFailures", stats.getIndexFailures());
+        summary.put("rejectedDocuments", stats.getRejected());
+        return summary;
+    }
+
+    private void failed(String error) {
+        state = WarmupState.RETRYING;
+        failures++;
+        lastError = error;
+        logger.warn("Chargement initial de l'index B2B en échec (essai {}), nouvel essai dans {} s: {}",
+                failures, retryDelaySeconds, lastError);
+    }
+
+    private synchronized void markReady(long documents, WarmupState readyState) {
+        documentCount = documents;
+        readyAt = LocalDateTime.now();
+        state = readyState;
+        logger.info("Index B2B prêt ({} documents{})", documents, readyState == WarmupState.DEGRADED ? ", dégradé" : "");
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    /**
+     * Vrai une fois l'index chargé, y compris en mode dégradé (import incomplet après le dernier essai)
+     */
+    public boolean isReady() {
+        return state == WarmupState.READY || state == WarmupState.DEGRADED;
+    }
+
+    public WarmupState getState() {
+        return state;
+    }
+
+    public long getRetryDelaySeconds() {
+        return retryDelaySeconds;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("state", state);
+        map.put("ready", isReady());
+        map.put("readinessState", applicationAvailability.getReadinessState());
+        map.put("startedAt", startedAt);
+        map.put("readyAt", readyAt);
+        map.put("failures", failures);
+        if (documentCount >= 0) {
+            map.put("documentCount", documentCount);
+        }
+        if (lastError != null) {
+            map.put("lastError", lastError);
+        }
+        Map<String, Object> leftover = importFailures;
+        if (leftover != null) {
+            map.put("importFailures", leftover);
+        }
+        NdjsonBulkLoader.DirectoryStats progress = importProgress;
+        if (progress != null) {
+            map.put("import", progress.progress());
+        }
+        return map;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrompt l'attente entre deux essais; un import en cours s'arrête après les morceaux en vol
+        bootstrapExecutor.shutdownNow();
+    }
+
+    public enum WarmupState {
+        STARTING, WAITING_FOR_ELASTICSEARCH, IMPORTING, RETRYING, READY, DEGRADED
+    }
+}
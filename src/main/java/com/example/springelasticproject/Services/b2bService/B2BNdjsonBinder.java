@@ -0,0 +1,42 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import com.example.springelasticproject.model.b2bModel.B2B;
+import com.example.springelasticproject.util.SnakeToCamelCaseParser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Liaison d'une ligne NDJSON (clés snake_case) vers un {@link B2B}, en une seule lecture du flux
+ */
+@Component
+public class B2BNdjsonBinder {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader b2bReader;
+
+    @Autowired
+    public B2BNdjsonBinder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.b2bReader = objectMapper.readerFor(B2B.class);
+    }
+
+    public B2B bind(String line) throws IOException {
+        try (JsonParser parser = new SnakeToCamelCaseParser(objectMapper.getFactory().createParser(line))) {
+            return b2bReader.readValue(parser);
+        }
+    }
+
+    /**
+     * Variante sur des octets UTF-8 (ligne lue sans décodage préalable en String)
+     */
+    public B2B bind(byte[] buffer, int offset, int length) throws IOException {
+        try (JsonParser parser = new SnakeToCamelCaseParser(objectMapper.getFactory().createParser(buffer, offset, length))) {
+            return b2bReader.readValue(parser);
+        }
+    }
+}
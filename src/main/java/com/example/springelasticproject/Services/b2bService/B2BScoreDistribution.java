@@ -0,0 +1,152 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Répartition de tous les scores B2B, pour situer un score par rapport aux autres.
+ *
+ * Les scores sont compris entre 0 et 100 et arrondis au centième: un histogramme de 10 001 cases
+ * est donc exact (là où un sketch t-digest/KLL serait approché) et tient en 80 Ko. Les cumuls sont
+ * précalculés, d'où un rang centile en O(1). Immuable une fois construit par {@link Builder}.
+ *
+ * La répartition est remplie avec les scores stockés ({@link B2BScoreFormula#storedScore}, entiers):
+ * un score doit être ramené à cette valeur avant d'être situé.
+ */
+public final class B2BScoreDistribution {
+
+    static final int BINS = 10_001;
+    private static final int FORMAT_MAGIC = 0x42324253; // "B2BS"
+    private static final int FORMAT_VERSION = 1;
+
+    private final String parameters;
+    private final long computedAt;
+    private final long total;
+    private final long[] counts;
+    // cumulativeBelow[b] = nombre de scores strictement inférieurs à la case b
+    private final long[] cumulativeBelow;
+
+    private B2BScoreDistribution(String parameters, long computedAt, long[] counts) {
+        this.parameters = parameters;
+        this.computedAt = computedAt;
+        this.counts = counts;
+        this.cumulativeBelow = new long[BINS];
+        long running = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            cumulativeBelow[bin] = running;
+            running += counts[bin];
+        }
+        this.total = running;
+    }
+
+    static int bin(double score) {
+        long bin = Math.round(score * 100.0);
+        return (int) Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    /**
+     * Rang centile d'un score (0-100): part des scores inférieurs, les ex æquo comptant pour moitié
+     */
+    public double percentileOf(double score) {
+        if (total == 0) {
+            return 0.0;
+        }
+        int bin = bin(score);
+        double rank = (cumulativeBelow[bin] + 0.5 * counts[bin]) * 100.0 / total;
+        return Math.round(rank * 100.0) / 100.0;
+    }
+
+    /**
+     * Catégorie relative: 10 % meilleurs, 20 % suivants, 40 % du milieu, 20 % suivants, 10 % derniers
+     */
+    public static String relativeCategory(double percentile) {
+        if (percentile >= 90) return "Excellent";
+        if (percentile >= 70) return "Good";
+        if (percentile >= 30) return "Average";
+        if (percentile >= 10) return "Poor";
+        return "Failing";
+    }
+
+    /**
+     * Plus petit score atteignant le centile demandé (utile pour afficher les seuils des catégories)
+     */
+    public double scoreAtPercentile(double percentile) {
+        if (total == 0) {
+            return 0.0;
+        }
+        long target = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100.0 * total);
+        for (int bin = 0; bin < BINS; bin++) {
+            if (cumulativeBelow[bin] + counts[bin] >= Math.max(1, target)) {
+                return bin / 100.0;
+            }
+        }
+        return 100.0;
+    }
+
+    public String getParameters() { return parameters; }
+    public long getComputedAt() { return computedAt; }
+    public long getTotal() { return total; }
+
+    /**
+     * Format binaire compact: en-tête puis uniquement les cases non vides
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(parameters);
+        out.writeLong(computedAt);
+        int nonEmpty = 0;
+        for (long count : counts) {
+            if (count > 0) {
+                nonEmpty++;
+            }
+        }
+        out.writeInt(nonEmpty);
+        for (int bin = 0; bin < BINS; bin++) {
+            if (counts[bin] > 0) {
+                out.writeShort(bin);
+                out.writeLong(counts[bin]);
+            }
+        }
+    }
+
+    public static B2BScoreDistribution readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Format de répartition des scores inconnu");
+        }
+        String parameters = in.readUTF();
+        long computedAt = in.readLong();
+        int nonEmpty = in.readInt();
+        long[] counts = new long[BINS];
+        for (int i = 0; i < nonEmpty; i++) {
+            int bin = in.readUnsignedShort();
+            if (bin >= BINS) {
+                throw new IOException("Case de score invalide: " + bin);
+            }
+            counts[bin] = in.readLong();
+        }
+        return new B2BScoreDistribution(parameters, computedAt, counts);
+    }
+
+    /**
+     * Accumulation en un passage; un builder par thread, fusionnés à la fin avec {@link #merge}
+     */
+    public static final class Builder {
+        private final long[] counts = new long[BINS];
+
+        public void add(double score) {
+            counts[bin(score)]++;
+        }
+
+        public void merge(Builder other) {
+            for (int bin = 0; bin < BINS; bin++) {
+                counts[bin] += other.counts[bin];
+            }
+        }
+
+        public B2BScoreDistribution build(String parameters) {
+            return new B2BScoreDistribution(parameters, System.currentTimeMillis(), counts.clone());
+        }
+    }
+}
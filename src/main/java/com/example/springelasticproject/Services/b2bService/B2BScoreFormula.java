@@ -0,0 +1,188 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import java.util.Map;
+
+/**
+ * Formule du score B2B sur des types primitifs, sans allocation.
+ *
+ * Même calcul que B2BScoreServiceFast.calculateBusinessScore: la catégorie est déterminée sur le
+ * score non arrondi, puis le score est arrondi à deux décimales. Le résultat est écrit dans un
+ * {@link Holder} réutilisable au lieu d'un nouveau ScoreResult par document.
+ *
+ * {@link #scoreBlock} applique la même formule à une page entière stockée en colonnes (un int[] par
+ * note), et {@link Block} sert de tampon réutilisable pour remplir ces colonnes depuis les documents.
+ */
+public final class B2BScoreFormula {
+
+    public static final byte EXCELLENT = 0;
+    public static final byte GOOD = 1;
+    public static final byte AVERAGE = 2;
+    public static final byte POOR = 3;
+    public static final byte FAILING = 4;
+
+    // Indexé par code de catégorie
+    private static final String[] CATEGORY_NAMES = {"Excellent", "Good", "Average", "Poor", "Failing"};
+
+    private B2BScoreFormula() {
+    }
+
+    /**
+     * Calcule le score d'une répartition d'avis et l'écrit dans {@code out}
+     */
+    public static void score(int n1, int n2, int n3, int n4, int n5,
+                             double k1, double k2, int m, double neutralRating, Holder out) {
+        int totalReviews = n1 + n2 + n3 + n4 + n5;
+
+        if (totalReviews == 0) {
+            out.score = neutralRating * 20;
+            out.category = AVERAGE;
+            return;
+        }
+
+        double weightedNumerator = (k1 * n1 + k2 * n2 + 3.0 * n3 + 4.0 * n4 + 5.0 * n5);
+        double weightedDenominator = (k1 * n1 + k2 * n2 + n3 + n4 + n5);
+        double weightedRating = weightedNumerator / weightedDenominator;
+
+        double w = (double) totalReviews / (totalReviews + m);
+        double score = (w * weightedRating + (1 - w) * neutralRating) * 100 / 5;
+
+        out.category = categoryCode(score);
+        out.score = Math.round(score * 100.0) / 100.0;
+    }
+
+    /**
+     * Score d'un bloc de {@code length} documents en colonnes: n1[i]..n5[i] sont les avis du document i.
+     *
+     * Deux boucles: la première ne fait que de l'arithmétique sur des tableaux (vectorisable par le JIT)
+     * et range le score brut dans {@code scores}; la seconde détermine la catégorie sur ce score brut puis
+     * l'arrondit, exactement comme {@link #score}.
+     */
+    public static void scoreBlock(int[] n1, int[] n2, int[] n3, int[] n4, int[] n5, int length,
+                                  double k1, double k2, int m, double neutralRating,
+                                  double[] scores, byte[] categories) {
+        for (int i = 0; i < length; i++) {
+            int totalReviews = n1[i] + n2[i] + n3[i] + n4[i] + n5[i];
+            double weightedNumerator = (k1 * n1[i] + k2 * n2[i] + 3.0 * n3[i] + 4.0 * n4[i] + 5.0 * n5[i]);
+            double weightedDenominator = (k1 * n1[i] + k2 * n2[i] + n3[i] + n4[i] + n5[i]);
+            double weightedRating = weightedNumerator / weightedDenominator;
+
+            double w = (double) totalReviews / (totalReviews + m);
+            scores[i] = (w * weightedRating + (1 - w) * neutralRating) * 100 / 5;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (n1[i] + n2[i] + n3[i] + n4[i] + n5[i] == 0) {
+                // Aucun avis: note neutre, catégorie Average quelle que soit sa valeur (comme score())
+                scores[i] = neutralRating * 20;
+                categories[i] = AVERAGE;
+            } else {
+                double score = scores[i];
+                categories[i] = categoryCode(score);
+                scores[i] = Math.round(score * 100.0) / 100.0;
+            }
+        }
+    }
+
+    /**
+     * Valeur écrite dans le champ score des documents (partie entière): la répartition et les rangs
+     * centiles sont calculés sur cette valeur, pour qu'un document se situe au rang qu'on lui a donné
+     */
+    public static int storedScore(double score) {
+        return (int) score;
+    }
+
+    public static byte categoryCode(double score) {
+        if (score >= 80) return EXCELLENT;
+        if (score >= 60) return GOOD;
+        if (score >= 40) return AVERAGE;
+        if (score >= 20) return POOR;
+        return FAILING;
+    }
+
+    public static String categoryName(byte code) {
+        return CATEGORY_NAMES[code];
+    }
+
+    /**
+     * Page de documents en colonnes, réutilisable d'une page à l'autre
+     */
+    public static final class Block {
+        private final int[] n1;
+        private final int[] n2;
+        private final int[] n3;
+        private final int[] n4;
+        private final int[] n5;
+        private final double[] scores;
+        private final byte[] categories;
+        private int size;
+
+        public Block(int capacity) {
+            n1 = new int[capacity];
+            n2 = new int[capacity];
+            n3 = new int[capacity];
+            n4 = new int[capacity];
+            n5 = new int[capacity];
+            scores = new double[capacity];
+            categories = new byte[capacity];
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isFull() {
+            return size == n1.length;
+        }
+
+        /**
+         * Ajoute la répartition d'avis d'un document ("1".."5", note absente ou nulle = 0)
+         * @return position du document dans le bloc
+         */
+        public int add(Map<String, Integer> reviewsPerRating) {
+            int i = size++;
+            n1[i] = count(reviewsPerRating, "1");
+            n2[i] = count(reviewsPerRating, "2");
+            n3[i] = count(reviewsPerRating, "3");
+            n4[i] = count(reviewsPerRating, "4");
+            n5[i] = count(reviewsPerRating, "5");
+            return i;
+        }
+
+        private static int count(Map<String, Integer> reviewsPerRating, String rating) {
+            Integer value = reviewsPerRating.get(rating);
+            return value != null ? value : 0;
+        }
+
+        public void score(double k1, double k2, int m, double neutralRating) {
+            scoreBlock(n1, n2, n3, n4, n5, size, k1, k2, m, neutralRating, scores, categories);
+        }
+
+        public double score(int i) {
+            return scores[i];
+        }
+
+        public byte category(int i) {
+            return categories[i];
+        }
+
+        public String categoryName(int i) {
+            return B2BScoreFormula.categoryName(categories[i]);
+        }
+    }
+
+    /**
+     * Résultat mutable, à réutiliser d'un document à l'autre
+     */
+    public static final class Holder {
+        public double score;
+        public byte category;
+
+        public String getCategoryName() {
+            return categoryName(category);
+        }
+    }
+}
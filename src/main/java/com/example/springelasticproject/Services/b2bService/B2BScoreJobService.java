@@ -0,0 +1,197 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recalculs des scores B2B exécutés en arrière-plan.
+ *
+ * Un seul passage tourne à la fois: une nouvelle demande est refusée tant que le précédent n'est
+ * pas terminé. Chaque job expose son avancement (documents lus, mis à jour, en échec, débit),
+ * peut être annulé, et les derniers passages sont conservés avec leur durée.
+ */
+@Service
+public class B2BScoreJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2BScoreJobService.class);
+
+    private final B2BScoreStreamingService scoreStreamingService;
+    private final int retainedJobs;
+
+    // Un seul thread: les passages ne se chevauchent jamais
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private final Deque<ScoreJob> history = new ArrayDeque<>();
+    private ScoreJob activeJob;
+
+    @Autowired
+    public B2BScoreJobService(B2BScoreStreamingService scoreStreamingService,
+                              @Value("${b2b.scoring.retained-jobs:20}") int retainedJobs) {
+        this.scoreStreamingService = scoreStreamingService;
+        this.retainedJobs = Math.max(1, retainedJobs);
+    }
+
+    /**
+     * Planifie un passage de recalcul
+     * @param mode FULL, DELTA (empreinte absente ou obsolète) ou PERCENTILES (avec rang centile)
+     * @param trigger origine de la demande ("manual", "scheduled")
+     * @throws IllegalStateException si un passage est déjà en cours
+     */
+    public ScoreJob submit(B2BScoreStreamingService.ScoringMode mode, String trigger) {
+        ensureIdle();
+        // Hors verrou: le nombre de slices est lu dans les réglages de l'index, une requête qui peut être
+        // lente et ne doit pas bloquer la consultation des jobs
+        B2BScoreStreamingService.ScoringReport report = scoreStreamingService.createReport(mode);
+        synchronized (this) {
+            ensureIdle();
+            ScoreJob job = new ScoreJob(UUID.randomUUID().toString(), trigger, report);
+            activeJob = job;
+            history.addFirst(job);
+            while (history.size() > retainedJobs) {
+                history.removeLast();
+            }
+            logger.info("Job de recalcul des scores {} créé ({}, {})", job.getId(), mode, trigger);
+
+            jobExecutor.submit(() -> runJob(job));
+            return job;
+        }
+    }
+
+    private synchronized void ensureIdle() {
+        if (activeJob != null && !activeJob.isFinished()) {
+            throw new IllegalStateException("Un recalcul des scores B2B est déjà en cours (job " + activeJob.getId() + ")");
+        }
+    }
+
+    private void runJob(ScoreJob job) {
+        if (job.getReport().isCancelled()) {
+            finishJob(job, JobStatus.CANCELLED, null);
+            return;
+        }
+        job.status = JobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        try {
+            scoreStreamingService.rescore(job.getReport());
+            finishJob(job, job.getReport().isCancelled() ? JobStatus.CANCELLED : JobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Job de recalcul des scores {} en échec: {}", job.getId(), e.getMessage(), e);
+            finishJob(job, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void finishJob(ScoreJob job, JobStatus status, String failure) {
+        job.failureMessage = failure;
+        job.finishedAt = LocalDateTime.now();
+        job.status = status;
+        logger.info("Job de recalcul des scores {} terminé: {} - {}", job.getId(), status, job.getReport());
+    }
+
+    /**
+     * Demande l'annulation d'un job; les pages en cours d'écriture sont terminées avant l'arrêt
+     */
+    public synchronized Optional<ScoreJob> cancel(String jobId) {
+        Optional<ScoreJob> job = getJob(jobId);
+        job.filter(j -> !j.isFinished()).ifPresent(j -> {
+            j.getReport().cancel();
+            logger.info("Annulation demandée pour le job de recalcul des scores {}", jobId);
+        });
+        return job;
+    }
+
+    public synchronized Optional<ScoreJob> getJob(String jobId) {
+        return history.stream().filter(job -> job.getId().equals(jobId)).findFirst();
+    }
+
+    /**
+     * Job en cours, ou à défaut le dernier terminé
+     */
+    public synchronized Optional<ScoreJob> getCurrentJob() {
+        return Optional.ofNullable(activeJob);
+    }
+
+    /**
+     * Derniers passages, du plus récent au plus ancien
+     */
+    public synchronized List<ScoreJob> getHistory() {
+        return new ArrayList<>(history);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (activeJob != null) {
+                activeJob.getReport().cancel();
+            }
+        }
+        jobExecutor.shutdown();
+        try {
+            if (!jobExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                jobExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            jobExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    /**
+     * État d'un passage de recalcul; le rapport se remplit pendant l'exécution
+     */
+    public static class ScoreJob {
+        private final String id;
+        private final String trigger;
+        private final B2BScoreStreamingService.ScoringReport report;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile String failureMessage;
+
+        ScoreJob(String id, String trigger, B2BScoreStreamingService.ScoringReport report) {
+            this.id = id;
+            this.trigger = trigger;
+            this.report = report;
+        }
+
+        public String getId() { return id; }
+        public String getTrigger() { return trigger; }
+        public B2BScoreStreamingService.ScoringReport getReport() { return report; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public JobStatus getStatus() { return status; }
+        public String getFailureMessage() { return failureMessage; }
+
+        public boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", id);
+            map.put("status", status);
+            map.put("trigger", trigger);
+            map.put("submittedAt", submittedAt);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            if (failureMessage != null) {
+                map.put("failureMessage", failureMessage);
+            }
+            map.putAll(report.toMap());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Répartition courante des scores B2B: gardée en mémoire pour les requêtes de centile et
+ * sauvegardée sur disque pour ne pas refaire de passage complet au redémarrage.
+ */
+@Service
+public class B2BScorePercentileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2BScorePercentileService.class);
+
+    private final Path distributionFile;
+    private volatile B2BScoreDistribution current;
+
+    public B2BScorePercentileService(
+            @Value("${b2b.scoring.percentiles-file:data/b2b-score-distribution.bin}") String distributionFile) {
+        this.distributionFile = Paths.get(distributionFile);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(distributionFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(distributionFile)))) {
+            B2BScoreDistribution distribution = B2BScoreDistribution.readFrom(in);
+            // Une répartition calculée avec d'autres paramètres ne correspond plus aux scores
+            if (!B2BScoreServiceFast.FINGERPRINT_PARAMETERS.equals(distribution.getParameters())) {
+                logger.info("Répartition des scores ignorée: paramètres modifiés depuis son calcul");
+                return;
+            }
+            current = distribution;
+            logger.info("Répartition des scores chargée: {} scores", distribution.getTotal());
+        } catch (IOException e) {
+            logger.warn("Lecture de la répartition des scores impossible ({}): {}", distributionFile, e.getMessage());
+        }
+    }
+
+    public Optional<B2BScoreDistribution> getCurrent() {
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Remplace la répartition courante et l'écrit sur disque (fichier temporaire puis renommage)
+     */
+    public void publish(B2BScoreDistribution distribution) {
+        current = distribution;
+        try {
+            Path directory = distributionFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "b2b-score-distribution", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                distribution.writeTo(out);
+            }
+            Files.move(temp, distributionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Sauvegarde de la répartition des scores impossible ({}): {}", distributionFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Recalcul périodique des scores B2B en mode delta (activé par b2b.scoring.schedule.enabled).
+ * Seuls les documents dont les avis ont changé depuis le dernier passage sont réécrits.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "b2b.scoring.schedule.enabled", havingValue = "true")
+public class B2BScoreScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2BScoreScheduler.class);
+
+    private final B2BScoreJobService scoreJobService;
+
+    @Autowired
+    public B2BScoreScheduler(B2BScoreJobService scoreJobService) {
+        this.scoreJobService = scoreJobService;
+    }
+
+    @Scheduled(fixedDelayString = "${b2b.scoring.schedule.delay-ms:900000}",
+            initialDelayString = "${b2b.scoring.schedule.initial-delay-ms:60000}")
+    public void refreshChangedScores() {
+        try {
+            scoreJobService.submit(B2BScoreStreamingService.ScoringMode.DELTA, "scheduled");
+        } catch (IllegalStateException e) {
+            logger.info("Passage planifié ignoré: {}", e.getMessage());
+        }
+    }
+}
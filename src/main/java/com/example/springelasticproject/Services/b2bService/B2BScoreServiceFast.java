@@ -1,9 +1,11 @@
 package com.example.springelasticproject.Services.b2bService;
 
+import com.example.springelasticproject.Config.ExecutorConfig;
 import com.example.springelasticproject.model.b2bModel.B2B;
 import com.example.springelasticproject.model.b2bModel.ScoreResult;
 import com.example.springelasticproject.repository.B2BRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -11,26 +13,36 @@ import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.query.UpdateQuery;
 import org.springframework.data.elasticsearch.core.document.Document;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
 public class B2BScoreServiceFast {
 
+    // Paramètres par défaut du score (pondération des notes 1 et 2, prior bayésien)
+    public static final double DEFAULT_K1 = 4.0;
+    public static final double DEFAULT_K2 = 1.5;
+    public static final int DEFAULT_M = 10;
+    public static final double DEFAULT_NEUTRAL_RATING = 3.0;
+
+    // Partie "paramètres" de l'empreinte: modifier un paramètre rend toutes les empreintes obsolètes
+    public static final String FINGERPRINT_PARAMETERS =
+            "k1=" + DEFAULT_K1 + ";k2=" + DEFAULT_K2 + ";m=" + DEFAULT_M + ";neutral=" + DEFAULT_NEUTRAL_RATING;
+
     private final B2BRepository b2bRepository;
     private final ElasticsearchOperations elasticsearchOperations;
-    private final Executor executor = Executors.newFixedThreadPool(4); // Adjust thread count based on your system
+    private final Executor executor;
 
     @Autowired
     public B2BScoreServiceFast(B2BRepository b2bRepository,
-                           ElasticsearchOperations elasticsearchOperations) {
+                           ElasticsearchOperations elasticsearchOperations,
+                           @Qualifier(ExecutorConfig.CPU_EXECUTOR) Executor executor) {
         this.b2bRepository = b2bRepository;
         this.elasticsearchOperations = elasticsearchOperations;
+        this.executor = executor;
     }
 
     public ScoreResult calculateBusinessScore(int n1, int n2, int n3, int n4, int n5,
@@ -62,8 +74,8 @@ public class B2BScoreServiceFast {
     }
 
     // OPTION 1: Batch Processing with saveAll()
-    @Transactional
     public void calculateAndStoreScoresBatch() {
+        putScoreMapping();
         final int PAGE_SIZE = 1000; // Ajustez selon vos besoins
         final int BATCH_SIZE = 1000;
 
@@ -76,9 +88,9 @@ public class B2BScoreServiceFast {
                 Page<B2B> b2bPage = b2bRepository.findAll(pageable);
 
                 List<B2B> batch = new ArrayList<>();
+                applyScores(b2bPage.getContent());
 
                 for (B2B b2b : b2bPage.getContent()) {
-                    processB2BScore(b2b);
                     batch.add(b2b);
 
                     if (batch.size() >= BATCH_SIZE) {
@@ -106,6 +118,7 @@ public class B2BScoreServiceFast {
 
     // OPTION 2: Bulk Update using Elasticsearch Operations (Fastest)
     public void calculateAndStoreScoresBulkUpdate() {
+        putScoreMapping();
         final int BATCH_SIZE = 1000;
 
         List<UpdateQuery> updateQueries = new ArrayList<>();
@@ -116,7 +129,8 @@ public class B2BScoreServiceFast {
             if (result != null) {
                 Document document = Document.create()
                         .append("score", (int) result.getScore())
-                        .append("scoreCategory", result.getCategory());
+                        .append("scoreCategory", result.getCategory())
+                        .append("scoreFingerprint", scoreFingerprint(b2b.getReviewsPerRating()));
 
                 UpdateQuery updateQuery = UpdateQuery.builder(b2b.getPlaceId())
                         .withDocument(document)
@@ -139,6 +153,7 @@ public class B2BScoreServiceFast {
 
     // OPTION 3: Parallel Processing with CompletableFuture
     public void calculateAndStoreScoresParallel() {
+        putScoreMapping();
         final int BATCH_SIZE = 500;
 
         List<B2B> allB2B = new ArrayList<>();
@@ -156,15 +171,13 @@ public class B2BScoreServiceFast {
     }
 
     private void processBatch(List<B2B> batch) {
-        List<B2B> processedBatch = batch.stream()
-                .peek(this::processB2BScore)
-                .collect(Collectors.toList());
-
-        b2bRepository.saveAll(processedBatch);
+        applyScores(batch);
+        b2bRepository.saveAll(batch);
     }
 
     // OPTION 4: Stream Processing with Pagination (Memory Efficient)
     public void calculateAndStoreScoresWithPagination() {
+        putScoreMapping();
         final int PAGE_SIZE = 1000;
         int page = 0;
         boolean hasMore = true;
@@ -175,9 +188,8 @@ public class B2BScoreServiceFast {
 
             org.springframework.data.domain.Page<B2B> b2bPage = b2bRepository.findAll(pageable);
 
-            List<B2B> processedB2Bs = b2bPage.getContent().stream()
-                    .peek(this::processB2BScore)
-                    .collect(Collectors.toList());
+            List<B2B> processedB2Bs = b2bPage.getContent();
+            applyScores(processedB2Bs);
 
             b2bRepository.saveAll(processedB2Bs);
 
@@ -186,16 +198,61 @@ public class B2BScoreServiceFast {
         }
     }
 
-    private void processB2BScore(B2B b2b) {
+    /**
+     * Déclare scoreFingerprint (keyword) sur un index créé avant ce champ, avant toute écriture: mappé
+     * dynamiquement en text, il rendrait le recalcul différentiel impossible sans réindexation
+     */
+    private void putScoreMapping() {
+        elasticsearchOperations.indexOps(B2B.class).putMapping();
+    }
+
+    /**
+     * Renseigne score, scoreCategory et scoreFingerprint sur une page de documents: les avis sont
+     * copiés en colonnes et scorés en une passe par B2BScoreFormula.scoreBlock.
+     * Les documents sans répartition des avis sont laissés tels quels.
+     */
+    public void applyScores(List<B2B> documents) {
+        B2BScoreFormula.Block block = new B2BScoreFormula.Block(documents.size());
+        List<B2B> scored = new ArrayList<>(documents.size());
+        for (B2B b2b : documents) {
+            if (b2b.getReviewsPerRating() != null) {
+                block.add(b2b.getReviewsPerRating());
+                scored.add(b2b);
+            }
+        }
+        block.score(DEFAULT_K1, DEFAULT_K2, DEFAULT_M, DEFAULT_NEUTRAL_RATING);
+
+        for (int i = 0; i < scored.size(); i++) {
+            B2B b2b = scored.get(i);
+            b2b.setScore((int) block.score(i));
+            b2b.setScoreCategory(block.categoryName(i));
+            b2b.setScoreFingerprint(scoreFingerprint(b2b.getReviewsPerRating()));
+        }
+    }
+
+    /**
+     * Renseigne score, scoreCategory et scoreFingerprint sur le document (utilisé aussi à l'import)
+     * @return false si le document n'a pas de répartition des avis
+     */
+    public boolean applyScore(B2B b2b) {
         ScoreResult result = processB2BScoreCalculation(b2b);
-        if (result != null) {
-            b2b.setScore((int) result.getScore());
-            b2b.setScoreCategory(result.getCategory());
+        if (result == null) {
+            return false;
         }
+        b2b.setScore((int) result.getScore());
+        b2b.setScoreCategory(result.getCategory());
+        b2b.setScoreFingerprint(scoreFingerprint(b2b.getReviewsPerRating()));
+        return true;
     }
 
     private ScoreResult processB2BScoreCalculation(B2B b2b) {
-        Map<String, Integer> reviewMap = b2b.getReviewsPerRating();
+        return calculateScoreFromReviews(b2b.getReviewsPerRating());
+    }
+
+    /**
+     * Score à partir de la répartition des avis par note ("1".."5"), avec les paramètres par défaut
+     */
+    public ScoreResult calculateScoreFromReviews(Map<String, Integer> reviewMap) {
         if (reviewMap == null) return null;
 
         int n1 = reviewMap.getOrDefault("1", 0);
@@ -204,7 +261,20 @@ public class B2BScoreServiceFast {
         int n4 = reviewMap.getOrDefault("4", 0);
         int n5 = reviewMap.getOrDefault("5", 0);
 
-        return calculateBusinessScore(n1, n2, n3, n4, n5, 4.0, 1.5, 10, 3.0);
+        return calculateBusinessScore(n1, n2, n3, n4, n5, DEFAULT_K1, DEFAULT_K2, DEFAULT_M, DEFAULT_NEUTRAL_RATING);
+    }
+
+    /**
+     * Empreinte des entrées du score: paramètres puis nombre d'avis de 1 à 5 ("k1=4.0;...|n1|n2|n3|n4|n5").
+     * Le script de sélection du mode delta reconstruit la même chaîne à partir des doc values.
+     */
+    public static String scoreFingerprint(Map<String, Integer> reviewMap) {
+        StringBuilder fingerprint = new StringBuilder(FINGERPRINT_PARAMETERS);
+        for (int rating = 1; rating <= 5; rating++) {
+            Integer count = reviewMap != null ? reviewMap.get(String.valueOf(rating)) : null;
+            fingerprint.append('|').append(count != null ? count : 0);
+        }
+        return fingerprint.toString();
     }
 
     private <T> List<List<T>> partitionList(List<T> list, int batchSize) {
@@ -1,9 +1,11 @@
 package com.example.springelasticproject.Services.b2bService;
 
+import com.example.springelasticproject.Config.ExecutorConfig;
 import com.example.springelasticproject.model.b2bModel.B2B;
 import com.example.springelasticproject.model.b2bModel.ScoreResult;
 import com.example.springelasticproject.repository.B2BRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.document.Document;
 import org.springframework.data.elasticsearch.core.query.UpdateQuery;
@@ -15,7 +17,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,13 +24,15 @@ public class B2BScoreServiceFast2 {
 
     private final B2BRepository b2bRepository;
     private final ElasticsearchOperations elasticsearchOperations;
-    private final Executor executor = Executors.newFixedThreadPool(4); // Adjust thread count based on your system
+    private final Executor executor;
 
     @Autowired
     public B2BScoreServiceFast2(B2BRepository b2bRepository,
-                                ElasticsearchOperations elasticsearchOperations) {
+                                ElasticsearchOperations elasticsearchOperations,
+                                @Qualifier(ExecutorConfig.CPU_EXECUTOR) Executor executor) {
         this.b2bRepository = b2bRepository;
         this.elasticsearchOperations = elasticsearchOperations;
+        this.executor = executor;
     }
 
     public ScoreResult calculateBusinessScore(int n1, int n2, int n3, int n4, int n5,
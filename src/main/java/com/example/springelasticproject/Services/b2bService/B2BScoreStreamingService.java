@@ -0,0 +1,594 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import com.example.springelasticproject.Config.ExecutorConfig;
+import com.example.springelasticproject.model.b2bModel.B2B;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recalcul des scores B2B en flux.
+ *
+ * L'index est parcouru avec un point in time et search_after (tri _shard_doc), en ne lisant que
+ * reviewsPerRating. Chaque page produit des mises à jour partielles (score, scoreCategory) envoyées
+ * en bulk: la mémoire utilisée ne dépend que de la taille de page, pas de la taille de l'index.
+ * Le parcours est découpé en slices lues en parallèle.
+ *
+ * Chaque document reçoit aussi l'empreinte de ses entrées (scoreFingerprint). En mode delta, seuls
+ * les documents dont l'empreinte manque ou ne correspond plus à leurs avis et aux paramètres courants
+ * sont relus et réécrits.
+ *
+ * Un passage complet publie aussi la répartition de tous les scores ({@link B2BScoreDistribution}).
+ * En mode centiles, un premier parcours sans écriture construit cette répartition sur le même point
+ * in time, puis le parcours d'écriture ajoute à chaque document son rang centile et sa catégorie relative.
+ */
+@Service
+public class B2BScoreStreamingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(B2BScoreStreamingService.class);
+
+    private static final int PAGE_SIZE = 2000;
+    private static final String PIT_KEEP_ALIVE = "2m";
+
+    // Vrai si l'empreinte stockée ne correspond plus aux avis du document ou aux paramètres courants
+    private static final String STALE_FINGERPRINT_SCRIPT =
+            "String expected = params.parameters; " +
+            "for (int rating = 1; rating <= 5; rating++) { " +
+            "  String field = 'reviewsPerRating.' + rating; " +
+            "  long count = doc.containsKey(field) && doc[field].size() > 0 ? doc[field].value : 0; " +
+            "  expected += '|' + count; " +
+            "} " +
+            "return !(doc['scoreFingerprint'].size() > 0 && doc['scoreFingerprint'].value == expected);";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final B2BScoreServiceFast b2bScoreService;
+    private final B2BScorePercentileService percentileService;
+    private final Executor ioExecutor;
+
+    // 0 = automatique (shards de l'index, ou cœurs disponibles); un thread par slice pendant un passage
+    @Value("${b2b.scoring.slices:0}")
+    private int configuredSlices;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    public B2BScoreStreamingService(ElasticsearchClient elasticsearchClient,
+                                    ElasticsearchOperations elasticsearchOperations,
+                                    B2BScoreServiceFast b2bScoreService,
+                                    B2BScorePercentileService percentileService,
+                                    @Qualifier(ExecutorConfig.IO_EXECUTOR) Executor ioExecutor) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.b2bScoreService = b2bScoreService;
+        this.percentileService = percentileService;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Recalcule et enregistre le score de tous les documents B2B
+     */
+    public ScoringReport rescoreAll() throws IOException {
+        return rescore(createReport(ScoringMode.FULL));
+    }
+
+    /**
+     * Recalcule uniquement les documents dont l'empreinte est absente ou obsolète
+     */
+    public ScoringReport rescoreChanged() throws IOException {
+        return rescore(createReport(ScoringMode.DELTA));
+    }
+
+    /**
+     * Recalcule tous les scores et positionne chaque document dans la répartition globale
+     */
+    public ScoringReport rescoreWithPercentiles() throws IOException {
+        return rescore(createReport(ScoringMode.PERCENTILES));
+    }
+
+    /**
+     * Rapport vide d'un futur passage, consultable (et annulable) pendant qu'il se remplit
+     */
+    public ScoringReport createReport(ScoringMode mode) {
+        return new ScoringReport(mode, resolveSliceCount());
+    }
+
+    /**
+     * Le point in time est découpé en N slices; chaque slice a son propre lecteur et calcul, sur un
+     * thread du passage, et envoie ses requêtes bulk sur le pool I/O partagé.
+     */
+    public ScoringReport rescore(ScoringReport report) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Un recalcul des scores B2B est déjà en cours");
+        }
+        try {
+            report.startNanos = System.nanoTime();
+            runRescore(report);
+        } finally {
+            report.endNanos = System.nanoTime();
+            running.set(false);
+        }
+        logger.info("Scores B2B recalculés: {}", report);
+        return report;
+    }
+
+    private void runRescore(ScoringReport report) throws IOException {
+        String indexName = elasticsearchOperations.getIndexCoordinatesFor(B2B.class).getIndexName();
+        // Champs keyword (scoreFingerprint, scoreRelativeCategory) mappés avant lecture ou écriture, y
+        // compris en mode FULL: sinon sa première écriture les mapperait dynamiquement en text
+        elasticsearchOperations.indexOps(B2B.class).putMapping();
+        int sliceCount = report.slices.size();
+
+        // Une slice occupe son thread pendant tout le parcours: pool propre au passage, un thread par
+        // slice, pour ne pas immobiliser le pool I/O partagé; seules les requêtes bulk y passent
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService sliceExecutor = Executors.newFixedThreadPool(sliceCount, runnable ->
+                new Thread(runnable, "b2b-score-slice-" + threadNumber.incrementAndGet()));
+        String pitId;
+        try {
+            pitId = elasticsearchClient.openPointInTime(p -> p
+                    .index(indexName)
+                    .keepAlive(t -> t.time(PIT_KEEP_ALIVE))).id();
+        } catch (IOException | RuntimeException e) {
+            sliceExecutor.shutdown();
+            throw e;
+        }
+        try {
+            B2BScoreDistribution distribution = null;
+            if (report.getMode() == ScoringMode.PERCENTILES) {
+                // Premier parcours sans écriture: répartition de tous les scores du point in time
+                B2BScoreDistribution.Builder[] builders = new B2BScoreDistribution.Builder[sliceCount];
+                runSlices(report, sliceExecutor, slice -> {
+                    B2BScoreDistribution.Builder builder = new B2BScoreDistribution.Builder();
+                    builders[slice.id] = builder;
+                    scanSlice(indexName, pitId, report, slice, (hits, block) -> {
+                        scorePage(hits, block, null);
+                        for (int i = 0; i < block.size(); i++) {
+                            builder.add(B2BScoreFormula.storedScore(block.score(i)));
+                        }
+                    });
+                });
+                if (report.isCancelled()) {
+                    return;
+                }
+                distribution = publishDistribution(builders);
+                report.distributionTotal = distribution.getTotal();
+            }
+
+            final B2BScoreDistribution percentiles = distribution;
+            B2BScoreDistribution.Builder[] builders = new B2BScoreDistribution.Builder[sliceCount];
+            runSlices(report, sliceExecutor, slice -> {
+                B2BScoreDistribution.Builder builder = new B2BScoreDistribution.Builder();
+                builders[slice.id] = builder;
+                SliceWriter writer = new SliceWriter(slice);
+                slice.startNanos = System.nanoTime();
+                try {
+                    scanSlice(indexName, pitId, report, slice,
+                            (hits, block) -> writeScores(indexName, hits, block, writer, builder, percentiles));
+                    writer.await();
+                } finally {
+                    writer.awaitQuietly();
+                    slice.endNanos = System.nanoTime();
+                }
+            });
+            // Un passage complet mené à son terme couvre tout l'index: sa répartition remplace la précédente
+            if (report.getMode() == ScoringMode.FULL && !report.isCancelled()) {
+                report.distributionTotal = publishDistribution(builders).getTotal();
+            }
+        } finally {
+            sliceExecutor.shutdown();
+            try {
+                elasticsearchClient.closePointInTime(c -> c.id(pitId));
+            } catch (Exception e) {
+                logger.warn("Fermeture du point in time impossible: {}", e.getMessage());
+            }
+        }
+    }
+
+    private B2BScoreDistribution publishDistribution(B2BScoreDistribution.Builder[] builders) {
+        B2BScoreDistribution.Builder merged = new B2BScoreDistribution.Builder();
+        for (B2BScoreDistribution.Builder builder : builders) {
+            merged.merge(builder);
+        }
+        B2BScoreDistribution distribution = merged.build(B2BScoreServiceFast.FINGERPRINT_PARAMETERS);
+        percentileService.publish(distribution);
+        return distribution;
+    }
+
+    /**
+     * Lance une tâche par slice sur le pool du passage et attend qu'elles soient toutes terminées
+     */
+    private void runSlices(ScoringReport report, Executor sliceExecutor, SliceTask task) throws IOException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(report.slices.size());
+        for (SliceReport slice : report.slices) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    task.run(slice);
+                } catch (IOException | RuntimeException e) {
+                    // Une slice en échec arrête les autres à leur prochaine page
+                    report.aborted = true;
+                    throw e instanceof RuntimeException ? (RuntimeException) e : new CompletionException(e);
+                }
+            }, sliceExecutor));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                        ? e.getCause().getCause() : e.getCause();
+                // Les autres slices s'arrêtent à leur prochaine page: on les attend avant de fermer le PIT
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(ignored -> null).join();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report.aborted = true;
+                throw new IOException("Recalcul des scores interrompu", e);
+            }
+        }
+    }
+
+    /**
+     * Parcours d'une slice du point in time avec search_after
+     */
+    private void scanSlice(String indexName, String pitId, ScoringReport report, SliceReport slice,
+                           PageHandler handler) throws IOException {
+        int sliceCount = report.slices.size();
+        boolean delta = report.isDelta();
+        // Colonnes de la page, réutilisées d'une page à l'autre par cette slice
+        B2BScoreFormula.Block block = new B2BScoreFormula.Block(PAGE_SIZE);
+        List<FieldValue> searchAfter = null;
+        // L'annulation est prise en compte entre deux pages
+        while (!report.isCancelled() && !report.aborted) {
+            final List<FieldValue> after = searchAfter;
+            SearchResponse<ScoreInputs> response = elasticsearchClient.search(s -> {
+                s.size(PAGE_SIZE)
+                        .pit(p -> p.id(pitId).keepAlive(t -> t.time(PIT_KEEP_ALIVE)))
+                        .sort(so -> so.field(f -> f.field("_shard_doc")))
+                        .source(src -> src.filter(f -> f.includes("reviewsPerRating")))
+                        .trackTotalHits(t -> t.enabled(false));
+                // Elasticsearch refuse une slice unique (max doit être > 1)
+                if (sliceCount > 1) {
+                    s.slice(sl -> sl.id(String.valueOf(slice.id)).max(sliceCount));
+                }
+                if (delta) {
+                    s.query(q -> q.bool(b -> b
+                            .filter(f -> f.exists(e -> e.field("reviewsPerRating")))
+                            .filter(f -> f.script(sc -> sc.script(script -> script.inline(i -> i
+                                    .source(STALE_FINGERPRINT_SCRIPT)
+                                    .params("parameters", JsonData.of(B2BScoreServiceFast.FINGERPRINT_PARAMETERS))))))));
+                }
+                if (after != null) {
+                    s.searchAfter(after);
+                }
+                return s;
+            }, ScoreInputs.class);
+
+            List<Hit<ScoreInputs>> hits = response.hits().hits();
+            handler.handle(hits, block);
+
+            if (hits.size() < PAGE_SIZE) {
+                break;
+            }
+            searchAfter = hits.get(hits.size() - 1).sort();
+        }
+    }
+
+    /**
+     * Nombre de slices: propriété b2b.scoring.slices, sinon le nombre de shards de l'index,
+     * ou le nombre de cœurs pour un index à une seule shard
+     */
+    private int resolveSliceCount() {
+        if (configuredSlices > 0) {
+            return configuredSlices;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        try {
+            Object shards = elasticsearchOperations.indexOps(B2B.class).getSettings().get("index.number_of_shards");
+            int shardCount = shards != null ? Integer.parseInt(shards.toString()) : 1;
+            return Math.max(1, shardCount > 1 ? shardCount : cores);
+        } catch (Exception e) {
+            logger.warn("Nombre de shards de l'index B2B inconnu, {} slices utilisées: {}", cores, e.getMessage());
+            return Math.max(1, cores);
+        }
+    }
+
+    /**
+     * Remplit le bloc colonne avec les documents de la page qui ont une répartition des avis et
+     * calcule leurs scores; renvoie ces documents dans l'ordre du bloc
+     */
+    private static List<Hit<ScoreInputs>> scorePage(List<Hit<ScoreInputs>> hits, B2BScoreFormula.Block block,
+                                                    SliceReport report) {
+        List<Hit<ScoreInputs>> scored = new ArrayList<>(hits.size());
+        block.clear();
+        for (Hit<ScoreInputs> hit : hits) {
+            ScoreInputs inputs = hit.source();
+            if (inputs == null || inputs.reviewsPerRating == null) {
+                // Pas de répartition des avis: le document garde son score actuel
+                if (report != null) {
+                    report.documentsSkipped++;
+                }
+                continue;
+            }
+            block.add(inputs.reviewsPerRating);
+            scored.add(hit);
+        }
+        if (report != null) {
+            report.documentsScanned += hits.size();
+        }
+        block.score(B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2,
+                B2BScoreServiceFast.DEFAULT_M, B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING);
+        return scored;
+    }
+
+    /**
+     * Calcule les scores d'une page en un seul bloc colonne et les écrit en une requête bulk
+     * de mises à jour partielles; avec une répartition, ajoute le rang centile et la catégorie relative
+     */
+    private void writeScores(String indexName, List<Hit<ScoreInputs>> hits, B2BScoreFormula.Block block,
+                             SliceWriter writer, B2BScoreDistribution.Builder scores,
+                             B2BScoreDistribution percentiles) throws IOException {
+        List<Hit<ScoreInputs>> scored = scorePage(hits, block, writer.report);
+
+        List<BulkOperation> operations = new ArrayList<>(scored.size());
+        for (int i = 0; i < scored.size(); i++) {
+            Hit<ScoreInputs> hit = scored.get(i);
+            // Répartition et rang centile sur le score tel qu'il est stocké, pas sur le score non tronqué
+            int score = B2BScoreFormula.storedScore(block.score(i));
+            scores.add(score);
+            Map<String, Object> partial = new HashMap<>();
+            partial.put("score", score);
+            partial.put("scoreCategory", block.categoryName(i));
+            partial.put("scoreFingerprint", B2BScoreServiceFast.scoreFingerprint(hit.source().reviewsPerRating));
+            if (percentiles != null) {
+                double percentile = percentiles.percentileOf(score);
+                partial.put("scorePercentile", percentile);
+                partial.put("scoreRelativeCategory", B2BScoreDistribution.relativeCategory(percentile));
+            }
+            operations.add(BulkOperation.of(op -> op.update(u -> u
+                    .index(indexName)
+                    .id(hit.id())
+                    .action(a -> a.doc(partial)))));
+        }
+        if (operations.isEmpty()) {
+            return;
+        }
+        writer.write(operations);
+    }
+
+    /**
+     * Écritures bulk d'une slice: la requête d'une page part sur le pool I/O partagé pendant que la
+     * slice lit la page suivante, une seule requête en vol par slice. La réponse est comptée par le
+     * thread de la slice, seul à écrire dans son rapport.
+     */
+    private final class SliceWriter {
+        private final SliceReport report;
+        private CompletableFuture<BulkResponse> pending;
+
+        SliceWriter(SliceReport report) {
+            this.report = report;
+        }
+
+        void write(List<BulkOperation> operations) throws IOException {
+            await();
+            pending = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return elasticsearchClient.bulk(b -> b.operations(operations));
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, ioExecutor);
+        }
+
+        /**
+         * Attend la requête en vol et compte ses réponses
+         */
+        void await() throws IOException {
+            CompletableFuture<BulkResponse> write = pending;
+            if (write == null) {
+                return;
+            }
+            pending = null;
+            BulkResponse response;
+            try {
+                response = write.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+            }
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() != null) {
+                    report.failures++;
+                    logger.warn("Mise à jour du score de {} échouée: {}", item.id(), item.error().reason());
+                } else {
+                    report.documentsUpdated++;
+                }
+            }
+        }
+
+        /**
+         * Slice en échec: la requête en vol se termine avant la fermeture du point in time
+         */
+        void awaitQuietly() {
+            try {
+                await();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Écriture bulk de la slice {} échouée: {}", report.id, e.getMessage());
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SliceTask {
+        void run(SliceReport slice) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface PageHandler {
+        void handle(List<Hit<ScoreInputs>> hits, B2BScoreFormula.Block block) throws IOException;
+    }
+
+    /**
+     * FULL: tous les documents; DELTA: empreinte absente ou obsolète; PERCENTILES: tous les documents,
+     * avec rang centile et catégorie relative
+     */
+    public enum ScoringMode {
+        FULL, DELTA, PERCENTILES
+    }
+
+    /**
+     * Seul champ lu pour le calcul du score
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ScoreInputs {
+        public Map<String, Integer> reviewsPerRating;
+    }
+
+    /**
+     * Durée écoulée entre deux instants System.nanoTime(), en cours si la fin n'est pas encore connue
+     */
+    private static long elapsedNanos(long startNanos, long endNanos) {
+        if (startNanos == 0) {
+            return 0;
+        }
+        return (endNanos != 0 ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Compteurs d'une slice: écrits par le seul thread de la slice, lisibles pendant le passage
+     */
+    public static class SliceReport {
+        private final int id;
+        private volatile long documentsScanned;
+        private volatile long documentsUpdated;
+        private volatile long documentsSkipped;
+        private volatile long failures;
+        private volatile long startNanos;
+        private volatile long endNanos;
+
+        SliceReport(int id) {
+            this.id = id;
+        }
+
+        public int getId() { return id; }
+        public long getDocumentsScanned() { return documentsScanned; }
+        public long getDocumentsUpdated() { return documentsUpdated; }
+        public long getDocumentsSkipped() { return documentsSkipped; }
+        public long getFailures() { return failures; }
+        public long getDurationMs() { return elapsedNanos(startNanos, endNanos) / 1_000_000; }
+
+        public double getDocsPerSecond() {
+            long elapsed = elapsedNanos(startNanos, endNanos);
+            return elapsed > 0 ? documentsScanned * 1_000_000_000.0 / elapsed : 0.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("slice", id);
+            map.put("documentsScanned", documentsScanned);
+            map.put("documentsUpdated", documentsUpdated);
+            map.put("documentsSkipped", documentsSkipped);
+            map.put("failures", failures);
+            map.put("durationMs", getDurationMs());
+            map.put("docsPerSecond", Math.round(getDocsPerSecond() * 100.0) / 100.0);
+            return map;
+        }
+    }
+
+    /**
+     * Bilan d'un recalcul: totaux et détail par slice
+     */
+    public static class ScoringReport {
+        private final ScoringMode mode;
+        private final List<SliceReport> slices;
+        private volatile boolean cancelled;
+        // Positionné quand une slice échoue: les autres s'arrêtent sans attendre la fin de l'index
+        private volatile boolean aborted;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        // Nombre de scores de la répartition publiée par ce passage (0 si aucune)
+        private volatile long distributionTotal;
+
+        ScoringReport(ScoringMode mode, int sliceCount) {
+            this.mode = mode;
+            slices = new ArrayList<>(sliceCount);
+            for (int i = 0; i < sliceCount; i++) {
+                slices.add(new SliceReport(i));
+            }
+        }
+
+        /**
+         * Demande l'arrêt du passage: chaque slice termine sa page en cours puis s'arrête
+         */
+        public void cancel() { cancelled = true; }
+
+        public boolean isCancelled() { return cancelled; }
+        public ScoringMode getMode() { return mode; }
+        public boolean isDelta() { return mode == ScoringMode.DELTA; }
+        public long getDistributionTotal() { return distributionTotal; }
+        public List<SliceReport> getSlices() { return slices; }
+        public long getDocumentsScanned() { return slices.stream().mapToLong(SliceReport::getDocumentsScanned).sum(); }
+        public long getDocumentsUpdated() { return slices.stream().mapToLong(SliceReport::getDocumentsUpdated).sum(); }
+        public long getDocumentsSkipped() { return slices.stream().mapToLong(SliceReport::getDocumentsSkipped).sum(); }
+        public long getFailures() { return slices.stream().mapToLong(SliceReport::getFailures).sum(); }
+        public long getDurationMs() { return elapsedNanos(startNanos, endNanos) / 1_000_000; }
+
+        public double getDocsPerSecond() {
+            long elapsed = elapsedNanos(startNanos, endNanos);
+            return elapsed > 0 ? getDocumentsScanned() * 1_000_000_000.0 / elapsed : 0.0;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("mode", mode.name().toLowerCase());
+            map.put("cancelled", cancelled);
+            map.put("documentsScanned", getDocumentsScanned());
+            map.put("documentsUpdated", getDocumentsUpdated());
+            map.put("documentsSkipped", getDocumentsSkipped());
+            map.put("failures", getFailures());
+            map.put("durationMs", getDurationMs());
+            map.put("docsPerSecond", Math.round(getDocsPerSecond() * 100.0) / 100.0);
+            map.put("distributionTotal", distributionTotal);
+            List<Map<String, Object>> perSlice = new ArrayList<>(slices.size());
+            for (SliceReport slice : slices) {
+                perSlice.add(slice.toMap());
+            }
+            map.put("slices", perSlice);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%d lus, %d mis à jour, %d ignorés, %d échecs en %d ms (%.0f docs/s, %d slices)",
+                    mode != ScoringMode.FULL ? "[" + mode.name().toLowerCase() + "] " : "", getDocumentsScanned(), getDocumentsUpdated(), getDocumentsSkipped(), getFailures(),
+                    getDurationMs(), getDocsPerSecond(), slices.size());
+        }
+    }
+}
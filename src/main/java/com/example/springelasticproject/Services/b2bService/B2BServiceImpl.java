@@ -157,12 +157,19 @@ public class B2BServiceImpl implements B2BService {
         }
     }
 
+    /**
+     * Crée l'index s'il n'existe pas. Un index existant reçoit le mapping courant: les champs ajoutés
+     * depuis sa création (scoreFingerprint en keyword...) sont déclarés avant le premier bulk au lieu
+     * d'être mappés dynamiquement en text.
+     */
     @Override
     public void createIndex() {
         IndexOperations indexOps = elasticsearchOperations.indexOps(B2B.class);
         if (!indexOps.exists()) {
             indexOps.create();
             indexOps.putMapping(indexOps.createMapping());
+        } else {
+            indexOps.putMapping();
         }
     }
     /*@Override
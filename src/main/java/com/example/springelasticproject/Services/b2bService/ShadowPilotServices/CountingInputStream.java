@@ -0,0 +1,46 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flux qui compte les octets lus, pour calculer l'avancement d'un import à partir de la taille du fichier
+ */
+class CountingInputStream extends FilterInputStream {
+
+    private final AtomicLong bytesRead;
+
+    CountingInputStream(InputStream in, AtomicLong bytesRead) {
+        super(in);
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            bytesRead.incrementAndGet();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            bytesRead.addAndGet(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            bytesRead.addAndGet(skipped);
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import com.example.springelasticproject.util.CompressedInput;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Jobs d'import CSV ShadowPilot asynchrones.
+ *
+ * Le fichier uploadé est d'abord recopié sur disque (spool), un identifiant de job est rendu
+ * immédiatement, puis l'import tourne en arrière-plan. Chaque job expose son avancement
+ * (octets lus / taille du fichier), son débit, ses erreurs et peut être annulé.
+ */
+@Service
+public class CsvImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportJobService.class);
+
+    @Autowired
+    private CsvImportService csvImportService;
+
+    @Value("${shadowpilot.import.spool-directory:${java.io.tmpdir}}")
+    private String spoolDirectory;
+
+    // Nombre de jobs conservés une fois terminés (les plus anciens sont oubliés)
+    @Value("${shadowpilot.import.retained-jobs:50}")
+    private int retainedJobs;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor;
+
+    public CsvImportJobService(@Value("${shadowpilot.import.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        this.jobExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentJobs));
+    }
+
+    /**
+     * Recopie l'upload sur disque et planifie l'import; rend la main dès que le fichier est écrit
+     */
+    public ImportJob submit(MultipartFile file, String category, String subcategory, boolean parallel,
+                            Boolean skipUnchanged) throws IOException {
+        Path directory = Paths.get(spoolDirectory);
+        Files.createDirectories(directory);
+        // Un upload compressé reste compressé sur disque: il est décompressé pendant la lecture
+        String suffix = CompressedInput.hasExtension(file.getOriginalFilename(), ".csv" + CompressedInput.GZIP_EXTENSION)
+                ? ".csv" + CompressedInput.GZIP_EXTENSION : ".csv";
+        Path spoolFile = Files.createTempFile(directory, "shadowpilot-import-", suffix);
+        file.transferTo(spoolFile);
+
+        CsvImportService.ImportResult result = csvImportService.createResult(file.getOriginalFilename(), category, subcategory);
+        if (skipUnchanged != null) {
+            result.setSkipUnchanged(skipUnchanged);
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), spoolFile, Files.size(spoolFile), parallel, result);
+        jobs.put(job.getId(), job);
+        logger.info("Job d'import {} créé pour {} ({} octets)", job.getId(), job.getFileName(), job.getFileSize());
+
+        job.future = jobExecutor.submit(() -> runJob(job));
+        return job;
+    }
+
+    private void runJob(ImportJob job) {
+        // Un job annulé pendant son attente en file a déjà été clos par cancel()
+        if (!job.status.compareAndSet(JobStatus.QUEUED, JobStatus.RUNNING)) {
+            return;
+        }
+        if (job.getResult().isCancelled()) {
+            finishJob(job, JobStatus.CANCELLED, null);
+            return;
+        }
+
+        job.startNanos = System.nanoTime();
+        job.getResult().setStartTime(LocalDateTime.now());
+        logger.info("Job d'import {} démarré", job.getId());
+
+        try (InputStream in = new CountingInputStream(
+                new BufferedInputStream(Files.newInputStream(job.spoolFile)), job.bytesRead)) {
+            if (job.isParallel()) {
+                csvImportService.importCsvFileParallel(in, job.getResult());
+            } else {
+                csvImportService.importCsvFile(in, job.getResult());
+            }
+            finishJob(job, job.getResult().isCancelled() ? JobStatus.CANCELLED : JobStatus.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Job d'import {} en échec: {}", job.getId(), e.getMessage(), e);
+            finishJob(job, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void finishJob(ImportJob job, JobStatus status, String failure) {
+        job.failureMessage = failure;
+        if (job.getResult().getEndTime() == null) {
+            job.getResult().setEndTime(LocalDateTime.now());
+        }
+        job.endNanos = System.nanoTime();
+        job.status.set(status);
+        deleteSpoolFile(job);
+        logger.info("Job d'import {} terminé: {} - {}", job.getId(), status, job.getResult());
+        evictFinishedJobs();
+    }
+
+    /**
+     * Demande l'annulation d'un job; les lignes déjà lues sont terminées avant l'arrêt
+     */
+    public Optional<ImportJob> cancel(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (!job.isFinished()) {
+            job.getResult().cancel();
+            logger.info("Annulation demandée pour le job d'import {}", jobId);
+            // Un job encore en file ne démarrera pas: on le clôt tout de suite. La transition QUEUED -> CANCELLED
+            // est atomique: si le worker l'a démarré entre-temps, il s'arrête de lui-même à la prochaine ligne
+            if (job.status.compareAndSet(JobStatus.QUEUED, JobStatus.CANCELLED)) {
+                Future<?> future = job.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                finishJob(job, JobStatus.CANCELLED, null);
+            }
+        }
+        return Optional.of(job);
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Jobs connus, du plus récent au plus ancien
+     */
+    public List<ImportJob> getJobs() {
+        List<ImportJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparing(ImportJob::getSubmittedAt).reversed());
+        return list;
+    }
+
+    private void evictFinishedJobs() {
+        List<ImportJob> finished = new ArrayList<>();
+        for (ImportJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() <= retainedJobs) {
+            return;
+        }
+        finished.sort(Comparator.comparing(ImportJob::getSubmittedAt));
+        for (int i = 0; i < finished.size() - retainedJobs; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private void deleteSpoolFile(ImportJob job) {
+        try {
+            Files.deleteIfExists(job.spoolFile);
+        } catch (IOException e) {
+            logger.warn("Impossible de supprimer le fichier temporaire {}: {}", job.spoolFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Les imports en cours s'arrêtent proprement à la prochaine ligne
+        jobs.values().forEach(job -> job.getResult().cancel());
+        jobExecutor.shutdown();
+        try {
+            if (!jobExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                jobExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            jobExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    /**
+     * État d'un job d'import: résultat en cours de remplissage et indicateurs d'avancement
+     */
+    public static class ImportJob {
+        private final String id;
+        private final Path spoolFile;
+        private final long fileSize;
+        private final boolean parallel;
+        private final CsvImportService.ImportResult result;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicLong bytesRead = new AtomicLong();
+        // Modifié par compareAndSet: un job en file est démarré par le worker ou annulé, jamais les deux
+        private final AtomicReference<JobStatus> status = new AtomicReference<>(JobStatus.QUEUED);
+        private volatile String failureMessage;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile Future<?> future;
+
+        ImportJob(String id, Path spoolFile, long fileSize, boolean parallel, CsvImportService.ImportResult result) {
+            this.id = id;
+            this.spoolFile = spoolFile;
+            this.fileSize = fileSize;
+            this.parallel = parallel;
+            this.result = result;
+        }
+
+        public String getId() { return id; }
+        public String getFileName() { return result.getFileName(); }
+        public long getFileSize() { return fileSize; }
+        public boolean isParallel() { return parallel; }
+        public CsvImportService.ImportResult getResult() { return result; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public JobStatus getStatus() { return status.get(); }
+        public String getFailureMessage() { return failureMessage; }
+        public long getBytesRead() { return bytesRead.get(); }
+
+        public boolean isFinished() {
+            JobStatus current = status.get();
+            return current == JobStatus.COMPLETED || current == JobStatus.FAILED || current == JobStatus.CANCELLED;
+        }
+
+        /**
+         * Secondes écoulées depuis le démarrage effectif (hors attente en file)
+         */
+        public double getElapsedSeconds() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            long end = endNanos != 0 ? endNanos : System.nanoTime();
+            return (end - startNanos) / 1_000_000_000.0;
+        }
+
+        public double getPercentDone() {
+            boolean completed = status.get() == JobStatus.COMPLETED;
+            if (completed || fileSize == 0) {
+                return completed ? 100.0 : 0.0;
+            }
+            return Math.min(100.0, bytesRead.get() * 100.0 / fileSize);
+        }
+
+        public double getRowsPerSecond() {
+            double elapsed = getElapsedSeconds();
+            return elapsed > 0 ? result.getTotalRows() / elapsed : 0.0;
+        }
+
+        /**
+         * Temps restant estimé à partir de la part du fichier déjà lue, null tant qu'il n'est pas calculable
+         */
+        public Long getEtaSeconds() {
+            if (isFinished()) {
+                return 0L;
+            }
+            double percent = getPercentDone();
+            double elapsed = getElapsedSeconds();
+            if (percent <= 0 || elapsed <= 0) {
+                return null;
+            }
+            return Math.round(elapsed * (100.0 - percent) / percent);
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
 
+import com.example.springelasticproject.Config.ExecutorConfig;
 import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import com.example.springelasticproject.util.BoundedTaskWindow;
+import com.example.springelasticproject.util.CompressedInput;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,20 +20,50 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service d'importation CSV pour les données ShadowPilot
  * MODIFIÉ: Ajout des paramètres category et subcategory
+ * MODIFIÉ: Lecture en flux (ligne par ligne) pour une mémoire constante quelle que soit la taille du fichier
+ * MODIFIÉ: Résultat fourni par l'appelant et annulable (jobs d'import asynchrones)
  */
 @Service
 public class CsvImportService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvImportService.class);
     private static final int BATCH_SIZE = 100;
+    // Nombre maximal de messages d'erreur conservés (le compteur d'erreurs reste exact)
+    private static final int MAX_STORED_ERRORS = 1000;
+
+    // Pipeline parallèle: lignes par paquet et nombre de paquets en vol par thread des pools CPU et I/O
+    private static final int PIPELINE_CHUNK_SIZE = 200;
+    private static final int QUEUE_CAPACITY_PER_WORKER = 4;
 
     @Autowired
     private ShadowPilotService businessReviewService;
 
+    @Autowired
+    private ShadowPilotBulkIndexer bulkIndexer;
+
+    // true: indexation via BulkIngester (seuils nombre/octets/temps, relances 429), false: repository.saveAll par lots
+    @Value("${shadowpilot.import.bulk-ingester:true}")
+    private boolean useBulkIngester;
+
+    // Valeur par défaut du mode "skip unchanged" (nécessite le BulkIngester)
+    @Value("${shadowpilot.import.skip-unchanged:false}")
+    private boolean skipUnchangedByDefault;
+
+    // Pools partagés dimensionnés par batch.executor.*; leur taille borne aussi les paquets en vol
+    @Autowired
+    @Qualifier(ExecutorConfig.CPU_EXECUTOR)
+    private ThreadPoolTaskExecutor cpuExecutor;
+
+    @Autowired
+    @Qualifier(ExecutorConfig.IO_EXECUTOR)
+    private ThreadPoolTaskExecutor ioExecutor;
+
     /**
      * 🆕 NOUVELLES MÉTHODES avec category et subcategory
      */
@@ -65,66 +101,55 @@ public class CsvImportService {
      */
     @Transactional
     public ImportResult importCsvFile(InputStream inputStream, String fileName, String category, String subcategory) throws IOException, CsvException {
-        logger.info("=== DÉBUT IMPORT AVEC CATÉGORIES : {} ===", fileName);
-        logger.info("Category: {}, Subcategory: {}", category, subcategory);
-
-        // Validation et nettoyage des paramètres
-        if (category == null || category.trim().isEmpty()) {
-            category = "UNCATEGORIZED";
-        }
-        if (subcategory == null || subcategory.trim().isEmpty()) {
-            subcategory = "UNCATEGORIZED";
-        }
+        return importCsvFile(inputStream, createResult(fileName, category, subcategory));
+    }
 
-        ImportResult result = new ImportResult();
-        result.setFileName(fileName);
-        result.setCategory(category.trim()); // 🆕 NOUVEAU
-        result.setSubcategory(subcategory.trim()); // 🆕 NOUVEAU
-        result.setStartTime(LocalDateTime.now());
+    /**
+     * Import séquentiel dans un résultat fourni par l'appelant (suivi de progression, annulation)
+     */
+    @Transactional
+    public ImportResult importCsvFile(InputStream inputStream, ImportResult result) throws IOException, CsvException {
+        String category = result.getCategory();
+        String subcategory = result.getSubcategory();
+        logger.info("=== DÉBUT IMPORT AVEC CATÉGORIES : {} ===", result.getFileName());
+        logger.info("Category: {}, Subcategory: {}", category, subcategory);
 
-        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(inputStream))
-                .withSkipLines(1) // Skip header
-                .build()) {
+        // Fichier .csv.gz décompressé en flux, détecté sur son contenu
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(CompressedInput.decompress(inputStream))).build();
+             ShadowPilotBulkIndexer.BulkSession session = openBulkSession(result)) {
 
-            // Lire toutes les lignes
-            List<String[]> allRows = csvReader.readAll();
-            result.setTotalRows(allRows.size());
-            logger.info("Nombre total de lignes à traiter: {}", allRows.size());
+            // L'en-tête réel du fichier est résolu une seule fois en schéma indexé
+            String[] header = csvReader.readNext();
+            if (header == null) {
+                throw new CsvException("Fichier CSV vide: en-tête introuvable");
+            }
+            CsvRowSchema schema = CsvRowSchema.fromHeader(header);
 
-            // Traitement par batch
-            List<ShadowPilot> batch = new ArrayList<>();
-            int processedCount = 0;
+            // Lecture en flux: seule la fenêtre courante (BATCH_SIZE documents) est gardée en mémoire
+            List<ShadowPilot> batch = new ArrayList<>(BATCH_SIZE);
             int lineNumber = 1; // Pour le tracking des lignes
+            String[] row;
 
-            for (String[] row : allRows) {
+            while (!result.isCancelled() && (row = csvReader.readNext()) != null) {
                 lineNumber++;
-                try {
-                    // 🔧 CORRECTION: Passer category et subcategory au mapping
-                    ShadowPilot business = mapRowToBusinessReview(row, lineNumber, category, subcategory);
-
-                    if (business != null && businessReviewService.validateBusinessData(business)) {
-                        batch.add(business);
-                        result.incrementSuccessCount();
-
-                        // Sauvegarder par batch
-                        if (batch.size() >= BATCH_SIZE) {
-                            logger.info("Sauvegarde batch de {} documents", batch.size());
-                            businessReviewService.saveAll(batch);
-                            batch.clear();
-                            processedCount += BATCH_SIZE;
-                            logger.info("Traité {} lignes sur {}", processedCount, allRows.size());
-                        }
-                    } else {
-                        result.incrementErrorCount();
-                        result.addError("Ligne " + lineNumber + ": Données invalides");
-                        logger.warn("Validation/mapping échoué ligne {}", lineNumber);
+                result.incrementTotalRows();
+
+                // 🔧 CORRECTION: Passer category et subcategory au mapping
+                ShadowPilot business = mapAndValidate(row, schema, lineNumber, category, subcategory, result);
+                if (business != null && session != null) {
+                    session.add(business, lineNumber);
+                } else if (business != null) {
+                    batch.add(business);
+
+                    // Sauvegarder par batch
+                    if (batch.size() >= BATCH_SIZE) {
+                        logger.info("Sauvegarde batch de {} documents", batch.size());
+                        businessReviewService.saveAll(batch);
+                        batch.clear();
+                        logger.info("Traité {} lignes ({} succès, {} erreurs)",
+                                result.getTotalRows(), result.getSuccessCount(), result.getErrorCount());
                     }
-                } catch (Exception e) {
-                    result.incrementErrorCount();
-                    result.addError("Ligne " + lineNumber + ": " + e.getMessage());
-                    logger.error("Erreur ligne {}: {}", lineNumber, e.getMessage(), e);
                 }
-                processedCount++;
             }
 
             // Sauvegarder le dernier batch
@@ -132,9 +157,13 @@ public class CsvImportService {
                 logger.info("Sauvegarde batch final de {} documents", batch.size());
                 businessReviewService.saveAll(batch);
             }
+            logger.info("Nombre total de lignes traitées: {}", result.getTotalRows());
         }
 
         result.setEndTime(LocalDateTime.now());
+        if (result.isCancelled()) {
+            logger.warn("Import annulé après {} lignes: {}", result.getTotalRows(), result.getFileName());
+        }
         logger.info("=== IMPORT TERMINÉ ===");
         logger.info("Succès: {}, Erreurs: {} pour Category: {}, Subcategory: {}",
                 result.getSuccessCount(), result.getErrorCount(), category, subcategory);
@@ -142,21 +171,258 @@ public class CsvImportService {
         return result;
     }
 
+    /**
+     * 🆕 IMPORT PARALLÈLE EN PIPELINE
+     * lecture (thread appelant) -> mapping (pool CPU partagé) -> indexation (pool I/O partagé),
+     * avec un nombre borné de paquets en vol pour que la mémoire reste constante.
+     */
+    public ImportResult importCsvFileParallel(MultipartFile file, String category, String subcategory) throws IOException, CsvException {
+        return importCsvFileParallel(file.getInputStream(), file.getOriginalFilename(), category, subcategory);
+    }
+
+    public ImportResult importCsvFileParallel(InputStream inputStream, String fileName, String category, String subcategory) throws IOException, CsvException {
+        return importCsvFileParallel(inputStream, createResult(fileName, category, subcategory));
+    }
+
+    public ImportResult importCsvFileParallel(InputStream inputStream, ImportResult result) throws IOException, CsvException {
+        logger.info("=== DÉBUT IMPORT PARALLÈLE : {} ===", result.getFileName());
+        final String finalCategory = result.getCategory();
+        final String finalSubcategory = result.getSubcategory();
+
+        // Paquets lus mais pas encore indexés: assez pour occuper les deux pools, assez peu pour borner la mémoire
+        int inFlightChunks = (cpuExecutor.getMaxPoolSize() + ioExecutor.getMaxPoolSize()) * QUEUE_CAPACITY_PER_WORKER;
+        BoundedTaskWindow window = new BoundedTaskWindow(inFlightChunks);
+        logger.info("Pipeline: {} paquets de {} lignes en vol au plus", inFlightChunks, PIPELINE_CHUNK_SIZE);
+
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(CompressedInput.decompress(inputStream))).build();
+             ShadowPilotBulkIndexer.BulkSession session = openBulkSession(result)) {
+
+            String[] header = csvReader.readNext();
+            if (header == null) {
+                throw new CsvException("Fichier CSV vide: en-tête introuvable");
+            }
+            CsvRowSchema schema = CsvRowSchema.fromHeader(header);
+
+            try {
+                // Étape 1: lecture du fichier; chaque paquet est mappé (pool CPU) puis indexé (pool I/O)
+                List<String[]> rows = new ArrayList<>(PIPELINE_CHUNK_SIZE);
+                int lineNumber = 1;
+                int chunkFirstLine = 2;
+                String[] row;
+                while (!result.isCancelled() && (row = csvReader.readNext()) != null) {
+                    lineNumber++;
+                    result.incrementTotalRows();
+                    rows.add(row);
+                    if (rows.size() >= PIPELINE_CHUNK_SIZE) {
+                        submitChunk(window, new RowChunk(chunkFirstLine, rows), schema,
+                                finalCategory, finalSubcategory, result, session);
+                        rows = new ArrayList<>(PIPELINE_CHUNK_SIZE);
+                        chunkFirstLine = lineNumber + 1;
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    submitChunk(window, new RowChunk(chunkFirstLine, rows), schema,
+                            finalCategory, finalSubcategory, result, session);
+                }
+            } finally {
+                // Attendre les paquets en vol même si la lecture échoue
+                window.awaitAll();
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu", e);
+        }
+
+        result.setEndTime(LocalDateTime.now());
+        logger.info("=== IMPORT PARALLÈLE TERMINÉ === {}", result);
+        return result;
+    }
+
+    /**
+     * Étapes 2 et 3 d'un paquet: mapping des lignes en documents puis indexation des lots
+     */
+    private void submitChunk(BoundedTaskWindow window, RowChunk chunk, CsvRowSchema schema, String category,
+                             String subcategory, ImportResult result,
+                             ShadowPilotBulkIndexer.BulkSession session) throws InterruptedException {
+        window.submit(() -> {
+            CompletableFuture<List<MappedBatch>> mapped = CompletableFuture
+                    .supplyAsync(() -> mapChunk(chunk, schema, category, subcategory, result), cpuExecutor);
+            return mapped
+                    .thenAcceptAsync(batches -> batches.forEach(batch -> indexBatch(batch, result, session)), ioExecutor)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            logger.error("Paquet à partir de la ligne {} en échec: {}", chunk.firstLineNumber, cause.getMessage(), cause);
+                            if (!mapped.isCompletedExceptionally()) {
+                                recordUnindexedLines(mapped.join(), cause, result);
+                            }
+                        }
+                    });
+        });
+    }
+
+    /**
+     * L'indexation d'un paquet a échoué: les lignes comptées en succès au mapping mais jamais
+     * confiées à l'indexation passent en erreur, chacune avec son numéro de ligne
+     */
+    private void recordUnindexedLines(List<MappedBatch> batches, Throwable cause, ImportResult result) {
+        for (MappedBatch batch : batches) {
+            int remaining = batch.docs.size() - batch.handedOff;
+            if (remaining <= 0) {
+                continue;
+            }
+            result.recordIndexingFailures(remaining);
+            for (int i = batch.handedOff; i < batch.docs.size(); i++) {
+                result.addError("Ligne " + batch.lineNumbers.get(i) + ": Indexation échouée - " + cause.getMessage());
+            }
+        }
+    }
+
+    private List<MappedBatch> mapChunk(RowChunk chunk, CsvRowSchema schema, String category, String subcategory,
+                                       ImportResult result) {
+        List<MappedBatch> batches = new ArrayList<>();
+        List<ShadowPilot> docs = new ArrayList<>(BATCH_SIZE);
+        List<Integer> lines = new ArrayList<>(BATCH_SIZE);
+        for (int r = 0; r < chunk.rows.size(); r++) {
+            int lineNumber = chunk.firstLineNumber + r;
+            ShadowPilot business = mapAndValidate(chunk.rows.get(r), schema, lineNumber, category, subcategory, result);
+            if (business != null) {
+                docs.add(business);
+                lines.add(lineNumber);
+                if (docs.size() >= BATCH_SIZE) {
+                    batches.add(new MappedBatch(docs, lines));
+                    docs = new ArrayList<>(BATCH_SIZE);
+                    lines = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!docs.isEmpty()) {
+            batches.add(new MappedBatch(docs, lines));
+        }
+        return batches;
+    }
+
+    /**
+     * Crée le résultat d'un import; catégorie et sous-catégorie vides deviennent UNCATEGORIZED
+     */
+    public ImportResult createResult(String fileName, String category, String subcategory) {
+        if (category == null || category.trim().isEmpty()) {
+            category = "UNCATEGORIZED";
+        }
+        if (subcategory == null || subcategory.trim().isEmpty()) {
+            subcategory = "UNCATEGORIZED";
+        }
+
+        ImportResult result = new ImportResult();
+        result.setFileName(fileName);
+        result.setCategory(category.trim());
+        result.setSubcategory(subcategory.trim());
+        result.setSkipUnchanged(skipUnchangedByDefault);
+        result.setStartTime(LocalDateTime.now());
+        return result;
+    }
+
+    /**
+     * Mappe et valide une ligne; les erreurs sont enregistrées dans le résultat avec leur numéro de ligne
+     */
+    private ShadowPilot mapAndValidate(String[] row, CsvRowSchema schema, int lineNumber,
+                                       String category, String subcategory, ImportResult result) {
+        try {
+            ShadowPilot business = mapRowToBusinessReview(row, schema, lineNumber, category, subcategory);
+
+            if (business != null && businessReviewService.validateBusinessData(business)) {
+                result.incrementSuccessCount();
+                return business;
+            }
+            result.incrementErrorCount();
+            result.addError("Ligne " + lineNumber + ": Données invalides");
+            logger.warn("Validation/mapping échoué ligne {}", lineNumber);
+        } catch (Exception e) {
+            result.incrementErrorCount();
+            result.addError("Ligne " + lineNumber + ": " + e.getMessage());
+            logger.error("Erreur ligne {}: {}", lineNumber, e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private ShadowPilotBulkIndexer.BulkSession openBulkSession(ImportResult result) {
+        return useBulkIngester ? bulkIndexer.openSession(result) : null;
+    }
+
+    /**
+     * Indexe un lot mappé; en cas d'échec chaque ligne du lot est signalée individuellement
+     * Avec le BulkIngester, les documents lui sont confiés et les échecs sont reportés élément par élément
+     */
+    private void indexBatch(MappedBatch batch, ImportResult result, ShadowPilotBulkIndexer.BulkSession session) {
+        if (session != null) {
+            for (int i = 0; i < batch.docs.size(); i++) {
+                session.add(batch.docs.get(i), batch.lineNumbers.get(i));
+                batch.handedOff = i + 1;
+            }
+            return;
+        }
+        try {
+            businessReviewService.saveAll(batch.docs);
+            logger.info("Lot de {} documents indexé ({} lignes lues, {} succès, {} erreurs)",
+                    batch.docs.size(), result.getTotalRows(), result.getSuccessCount(), result.getErrorCount());
+        } catch (Exception e) {
+            logger.error("Erreur d'indexation d'un lot de {} documents: {}", batch.docs.size(), e.getMessage());
+            result.recordIndexingFailures(batch.docs.size());
+            for (Integer lineNumber : batch.lineNumbers) {
+                result.addError("Ligne " + lineNumber + ": Indexation échouée - " + e.getMessage());
+            }
+        }
+        batch.handedOff = batch.docs.size();
+    }
+
+    /**
+     * Paquet de lignes brutes consécutives, mappé par une tâche du pool CPU
+     */
+    private static final class RowChunk {
+        final int firstLineNumber;
+        final List<String[]> rows;
+
+        RowChunk(int firstLineNumber, List<String[]> rows) {
+            this.firstLineNumber = firstLineNumber;
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * Lot de documents mappés avec le numéro de ligne de chacun
+     */
+    private static final class MappedBatch {
+        final List<ShadowPilot> docs;
+        final List<Integer> lineNumbers;
+        // Documents déjà confiés à l'indexation (ou dont l'échec est déjà compté); écrit par la tâche
+        // d'indexation, lu à la fin du paquet
+        int handedOff;
+
+        MappedBatch(List<ShadowPilot> docs, List<Integer> lineNumbers) {
+            this.docs = docs;
+            this.lineNumbers = lineNumbers;
+        }
+    }
+
     /**
      * 🔧 MÉTHODE DE MAPPING MODIFIÉE avec category et subcategory
+     * Les colonnes sont lues par index via le schéma résolu depuis l'en-tête
      */
-    private ShadowPilot mapRowToBusinessReview(String[] row, int lineNumber, String category, String subcategory) {
-        if (row.length < 262) {
-            logger.warn("Ligne {} CSV incomplète: {} colonnes au lieu de 262", lineNumber, row.length);
+    private ShadowPilot mapRowToBusinessReview(String[] row, CsvRowSchema schema, int lineNumber,
+                                               String category, String subcategory) {
+        if (row.length < schema.getColumnCount()) {
+            logger.warn("Ligne {} CSV incomplète: {} colonnes au lieu de {}", lineNumber, row.length, schema.getColumnCount());
         }
 
         ShadowPilot business = new ShadowPilot();
 
         try {
             // ===== CHAMPS DIRECTS =====
-            String name = getStringValue(row, "name");
-            String address = getStringValue(row, "address");
-            String domain = getStringValue(row, "domain");
+            String name = schema.getString(row, schema.name);
+            String address = schema.getString(row, schema.address);
+            String domain = schema.getString(row, schema.domain);
 
             // Validation minimum
             if (name == null || name.trim().isEmpty()) {
@@ -165,6 +431,7 @@ public class CsvImportService {
             }
 
             business.setName(name);
+            business.setNameKey(ShadowPilotDeduplicationEngine.nameKey(name));
             business.setAddress(address);
             business.setDomain(domain);
 
@@ -173,36 +440,29 @@ public class CsvImportService {
             business.setSubCategory(subcategory);
             logger.debug("Ligne {}: Category='{}', Subcategory='{}'", lineNumber, category, subcategory);
 
-            // ID unique OBLIGATOIRE
-            String uniqueId = generateUniqueId(name, address, domain, lineNumber);
-            business.setId(uniqueId);
-            logger.debug("Ligne {}: ID généré = {}", lineNumber, uniqueId);
+            // ID déterministe: un ré-import de la même entreprise écrase le document existant
+            String documentId = ShadowPilotIdStrategy.documentId(name, address, domain);
+            business.setId(documentId);
+            logger.debug("Ligne {}: ID = {}", lineNumber, documentId);
 
-            business.setPhone(getStringValue(row, "phone"));
-            business.setEmail(getStringValue(row, "email"));
-            business.setWebsite(getStringValue(row, "website"));
+            business.setPhone(schema.getString(row, schema.phone));
+            business.setEmail(schema.getString(row, schema.email));
+            business.setWebsite(schema.getString(row, schema.website));
 
             // ===== BUSINESS METRICS =====
             Map<String, Object> businessMetrics = new HashMap<>();
-            businessMetrics.put("trustscore", getDoubleValue(row, "trustscore"));
-            businessMetrics.put("number_of_reviews", getDoubleValue(row, "number_of_reviews"));
-            businessMetrics.put("avg_reviews_per_month", getDoubleValue(row, "avg_reviews_per_month"));
-            businessMetrics.put("business_age_days", getIntegerValue(row, "business_age_days"));
-            businessMetrics.put("business_age_years", getDoubleValue(row, "business_age_years"));
-            businessMetrics.put("competitor_count", getIntegerValue(row, "competitor_count"));
-            businessMetrics.put("contact_completeness", getDoubleValue(row, "contact_completeness"));
-            businessMetrics.put("response_rate", getDoubleValue(row, "response_rate"));
-            businessMetrics.put("reviews_last_30_days", getIntegerValue(row, "reviews_last_30_days"));
-            businessMetrics.put("total_categories", getIntegerValue(row, "total_categories"));
-            businessMetrics.put("total_helpful_votes", getIntegerValue(row, "total_helpful_votes"));
-            businessMetrics.put("verified_reviews_count", getIntegerValue(row, "verified_reviews_count"));
-            businessMetrics.put("business_size_indicator", getStringValue(row, "business_size_indicator"));
-            businessMetrics.put("categories", getStringValue(row, "categories"));
-            businessMetrics.put("is_claimed", getBooleanValue(row, "is_claimed"));
-            businessMetrics.put("trustpilot_domain", getStringValue(row, "trustpilot_domain"));
-            businessMetrics.put("logo_url", getStringValue(row, "logo_url"));
-            businessMetrics.put("num_reviews", getStringValue(row, "num_reviews"));
-            businessMetrics.put("reviews", getStringValue(row, "reviews"));
+            for (int i = 0; i < CsvRowSchema.DOUBLE_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.DOUBLE_METRICS[i], schema.getDouble(row, schema.doubleMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.INTEGER_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.INTEGER_METRICS[i], schema.getInteger(row, schema.integerMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.STRING_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.STRING_METRICS[i], schema.getString(row, schema.stringMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.BOOLEAN_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.BOOLEAN_METRICS[i], schema.getBoolean(row, schema.booleanMetrics[i]));
+            }
 
             // 🆕 AJOUT CATEGORY/SUBCATEGORY DANS LES METRICS AUSSI (pour faciliter les requêtes)
             businessMetrics.put("import_category", category);
@@ -212,70 +472,39 @@ public class CsvImportService {
 
             // ===== SOCIAL MEDIA =====
             Map<String, Object> socialMedia = new HashMap<>();
-            socialMedia.put("facebook_url", getStringValue(row, "facebook_url"));
-            socialMedia.put("instagram_url", getStringValue(row, "instagram_url"));
-            socialMedia.put("linkedin_url", getStringValue(row, "linkedin_url"));
-            socialMedia.put("twitter_url", getStringValue(row, "twitter_url"));
-            socialMedia.put("youtube_url", getStringValue(row, "youtube_url"));
-            socialMedia.put("has_social_media", getBooleanValue(row, "has_social_media"));
+            for (int i = 0; i < CsvRowSchema.SOCIAL_MEDIA_URLS.length; i++) {
+                socialMedia.put(CsvRowSchema.SOCIAL_MEDIA_URLS[i], schema.getString(row, schema.socialMediaUrls[i]));
+            }
+            socialMedia.put("has_social_media", schema.getBoolean(row, schema.hasSocialMedia));
             business.setSocialMedia(socialMedia);
 
-            // ===== ENHANCED REVIEWS =====
-            List<Map<String, Object>> enhancedReviews = new ArrayList<>();
-            for (int i = 1; i <= 10; i++) {
-                Map<String, Object> review = createReviewMap(row, "enhanced_review_" + i + "_");
-                if (!review.isEmpty()) {
-                    enhancedReviews.add(review);
-                }
-            }
-            business.setEnhancedReviews(enhancedReviews);
-
-            // ===== FIVE STAR REVIEWS =====
-            List<Map<String, Object>> fiveStarReviews = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                Map<String, Object> review = createReviewMap(row, "five_star_reviews_" + i + "_");
-                if (!review.isEmpty()) {
-                    fiveStarReviews.add(review);
-                }
-            }
-            business.setFiveStarReviews(fiveStarReviews);
-
-            // ===== ONE STAR REVIEWS =====
-            List<Map<String, Object>> oneStarReviews = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                Map<String, Object> review = createReviewMap(row, "one_star_reviews_" + i + "_");
-                if (!review.isEmpty()) {
-                    oneStarReviews.add(review);
-                }
-            }
-            business.setOneStarReviews(oneStarReviews);
+            // ===== ENHANCED / FIVE STAR / ONE STAR REVIEWS =====
+            business.setEnhancedReviews(createReviewList(row, schema, schema.enhancedReviews));
+            business.setFiveStarReviews(createReviewList(row, schema, schema.fiveStarReviews));
+            business.setOneStarReviews(createReviewList(row, schema, schema.oneStarReviews));
 
             // ===== SENTIMENT DISTRIBUTION =====
             Map<String, Object> sentimentDistribution = new HashMap<>();
-            for (int i = 1; i <= 5; i++) {
-                sentimentDistribution.put(i + "_star_avg_words",
-                        getDoubleValue(row, "sentiment_distribution_" + i + "_star_avg_words"));
-                sentimentDistribution.put(i + "_star_count",
-                        getIntegerValue(row, "sentiment_distribution_" + i + "_star_count"));
+            for (int i = 0; i < 5; i++) {
+                sentimentDistribution.put((i + 1) + "_star_avg_words", schema.getDouble(row, schema.sentimentAvgWords[i]));
+                sentimentDistribution.put((i + 1) + "_star_count", schema.getInteger(row, schema.sentimentCount[i]));
             }
             business.setSentimentDistribution(sentimentDistribution);
 
             // ===== STAR RATINGS =====
             Map<String, Object> starRatings = new HashMap<>();
-            String[] ratingTypes = {"one", "two", "three", "four", "five"};
-            for (String type : ratingTypes) {
-                starRatings.put("star_rating_percentages_" + type,
-                        getStringValue(row, "star_rating_percentages_" + type));
-                starRatings.put("star_ratings_" + type,
-                        getStringValue(row, "star_ratings_" + type));
+            for (int i = 0; i < CsvRowSchema.RATING_TYPES.length; i++) {
+                String type = CsvRowSchema.RATING_TYPES[i];
+                starRatings.put("star_rating_percentages_" + type, schema.getString(row, schema.starRatingPercentages[i]));
+                starRatings.put("star_ratings_" + type, schema.getString(row, schema.starRatings[i]));
             }
             business.setStarRatings(starRatings);
 
             // ===== SIMILAR COMPANIES =====
             List<Map<String, Object>> similarCompanies = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                String nameS = getStringValue(row, "similar_companies_" + i + "_name");
-                String url = getStringValue(row, "similar_companies_" + i + "_url");
+            for (int i = 0; i < CsvRowSchema.SIMILAR_COMPANY_COUNT; i++) {
+                String nameS = schema.getString(row, schema.similarCompanyNames[i]);
+                String url = schema.getString(row, schema.similarCompanyUrls[i]);
                 if (nameS != null && !nameS.isEmpty()) {
                     Map<String, Object> company = new HashMap<>();
                     company.put("name", nameS);
@@ -293,275 +522,49 @@ public class CsvImportService {
         }
     }
 
-    /**
-     * Génération d'ID unique garanti
-     */
-    private String generateUniqueId(String name, String address, String domain, int lineNumber) {
-        String baseId = null;
-
-        // Stratégie 1: Utiliser le domaine s'il existe (généralement unique)
-        if (domain != null && !domain.trim().isEmpty() && !domain.equalsIgnoreCase("null")) {
-            baseId = cleanId(domain);
-        }
-        // Stratégie 2: Combiner nom et adresse
-        else if (name != null && address != null) {
-            baseId = cleanId(name.trim() + "_" + address.trim());
-        }
-        // Stratégie 3: Utiliser seulement le nom si disponible
-        else if (name != null && !name.trim().isEmpty()) {
-            baseId = cleanId(name);
-        }
-
-        // Garantir l'unicité avec hash des données + ligne + timestamp
-        String uniqueSalt = String.valueOf(Objects.hash(name, address, domain, lineNumber, System.nanoTime()));
-        String finalId = (baseId != null ? baseId : "business") + "_" + uniqueSalt;
-
-        return finalId;
-    }
+    // ===== MÉTHODES UTILITAIRES INCHANGÉES =====
 
     /**
-     * Nettoie une chaîne pour en faire un ID Elasticsearch valide
+     * Construit la liste des avis non vides d'un bloc (enhanced, five_star, one_star)
      */
-    private String cleanId(String input) {
-        if (input == null || input.trim().isEmpty()) {
-            return "business_" + UUID.randomUUID().toString();
-        }
-
-        // Remplacer les caractères non autorisés par des underscores
-        String cleaned = input.toLowerCase()
-                .replaceAll("[^a-z0-9._-]", "_")
-                .replaceAll("_{2,}", "_")  // Remplacer les underscores multiples
-                .replaceAll("^_+|_+$", ""); // Supprimer les underscores en début/fin
-
-        // S'assurer que l'ID n'est pas vide et pas trop long
-        if (cleaned.isEmpty()) {
-            return "business_" + UUID.randomUUID().toString();
-        }
-
-        // Tronquer si trop long (Elasticsearch limite à 512 bytes)
-        if (cleaned.length() > 100) {
-            cleaned = cleaned.substring(0, 100);
+    private List<Map<String, Object>> createReviewList(String[] row, CsvRowSchema schema,
+                                                       CsvRowSchema.ReviewColumns[] block) {
+        List<Map<String, Object>> reviews = new ArrayList<>();
+        for (CsvRowSchema.ReviewColumns columns : block) {
+            Map<String, Object> review = createReviewMap(row, schema, columns);
+            if (!review.isEmpty()) {
+                reviews.add(review);
+            }
         }
-
-        return cleaned;
+        return reviews;
     }
 
-    // ===== MÉTHODES UTILITAIRES INCHANGÉES =====
-
     /**
      * Crée un map pour un avis à partir des colonnes CSV
      */
-    private Map<String, Object> createReviewMap(String[] row, String prefix) {
+    private Map<String, Object> createReviewMap(String[] row, CsvRowSchema schema, CsvRowSchema.ReviewColumns columns) {
         Map<String, Object> review = new HashMap<>();
 
-        String date = getStringValue(row, prefix + "date");
-        String text = getStringValue(row, prefix + "text");
+        String date = schema.getString(row, columns.date);
+        String text = schema.getString(row, columns.text);
 
         // Un avis est valide s'il a au moins une date ou un texte
         if ((date != null && !date.isEmpty()) || (text != null && !text.isEmpty())) {
             review.put("date", date);
-            review.put("has_title", getStringValue(row, prefix + "has_title"));
-            review.put("helpful_votes", getDoubleValue(row, prefix + "helpful_votes"));
-            review.put("is_verified", getStringValue(row, prefix + "is_verified"));
-            review.put("rating", getDoubleValue(row, prefix + "rating"));
-            review.put("reviewer_location", getStringValue(row, prefix + "reviewer_location"));
-            review.put("reviewer_name", getStringValue(row, prefix + "reviewer_name"));
+            review.put("has_title", schema.getString(row, columns.hasTitle));
+            review.put("helpful_votes", schema.getDouble(row, columns.helpfulVotes));
+            review.put("is_verified", schema.getString(row, columns.isVerified));
+            review.put("rating", schema.getDouble(row, columns.rating));
+            review.put("reviewer_location", schema.getString(row, columns.reviewerLocation));
+            review.put("reviewer_name", schema.getString(row, columns.reviewerName));
             review.put("text", text);
-            review.put("title", getStringValue(row, prefix + "title"));
-            review.put("word_count", getDoubleValue(row, prefix + "word_count"));
+            review.put("title", schema.getString(row, columns.title));
+            review.put("word_count", schema.getDouble(row, columns.wordCount));
         }
 
         return review;
     }
 
-    private String getStringValue(String[] row, String columnName) {
-        int index = getColumnIndex(columnName);
-        if (index >= 0 && index < row.length) {
-            String value = row[index];
-            return (value != null && !value.trim().isEmpty() && !value.equals("null")) ? value.trim() : null;
-        }
-        return null;
-    }
-
-    private Double getDoubleValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            try {
-                return Double.parseDouble(value);
-            } catch (NumberFormatException e) {
-                logger.debug("Impossible de convertir '{}' en Double pour la colonne '{}'", value, columnName);
-            }
-        }
-        return null;
-    }
-
-    private Integer getIntegerValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            try {
-                return (int) Double.parseDouble(value); // Conversion via double pour gérer les décimaux
-            } catch (NumberFormatException e) {
-                logger.debug("Impossible de convertir '{}' en Integer pour la colonne '{}'", value, columnName);
-            }
-        }
-        return null;
-    }
-
-    private Boolean getBooleanValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            return "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
-        }
-        return null;
-    }
-
-    /**
-     * Obtient l'index d'une colonne par son nom
-     */
-    private int getColumnIndex(String columnName) {
-        Map<String, Integer> columnIndexMap = createColumnIndexMap();
-        return columnIndexMap.getOrDefault(columnName, -1);
-    }
-
-    /**
-     * Crée la map des indices de colonnes
-     */
-    private Map<String, Integer> createColumnIndexMap() {
-        Map<String, Integer> map = new HashMap<>();
-
-        // Liste des colonnes dans l'ordre du CSV
-        String[] columns = {
-                "address", "avg_reviews_per_month", "business_age_days", "business_age_years",
-                "business_size_indicator", "categories", "competitor_count", "contact_completeness",
-                "domain", "email", "enhanced_review_10_date", "enhanced_review_10_has_title",
-                "enhanced_review_10_helpful_votes", "enhanced_review_10_is_verified",
-                "enhanced_review_10_rating", "enhanced_review_10_reviewer_location",
-                "enhanced_review_10_reviewer_name", "enhanced_review_10_text",
-                "enhanced_review_10_title", "enhanced_review_10_word_count",
-                "enhanced_review_1_date", "enhanced_review_1_has_title",
-                "enhanced_review_1_helpful_votes", "enhanced_review_1_is_verified",
-                "enhanced_review_1_rating", "enhanced_review_1_reviewer_location",
-                "enhanced_review_1_reviewer_name", "enhanced_review_1_text",
-                "enhanced_review_1_title", "enhanced_review_1_word_count",
-                "enhanced_review_2_date", "enhanced_review_2_has_title",
-                "enhanced_review_2_helpful_votes", "enhanced_review_2_is_verified",
-                "enhanced_review_2_rating", "enhanced_review_2_reviewer_location",
-                "enhanced_review_2_reviewer_name", "enhanced_review_2_text",
-                "enhanced_review_2_title", "enhanced_review_2_word_count",
-                "enhanced_review_3_date", "enhanced_review_3_has_title",
-                "enhanced_review_3_helpful_votes", "enhanced_review_3_is_verified",
-                "enhanced_review_3_rating", "enhanced_review_3_reviewer_location",
-                "enhanced_review_3_reviewer_name", "enhanced_review_3_text",
-                "enhanced_review_3_title", "enhanced_review_3_word_count",
-                "enhanced_review_4_date", "enhanced_review_4_has_title",
-                "enhanced_review_4_helpful_votes", "enhanced_review_4_is_verified",
-                "enhanced_review_4_rating", "enhanced_review_4_reviewer_location",
-                "enhanced_review_4_reviewer_name", "enhanced_review_4_text",
-                "enhanced_review_4_title", "enhanced_review_4_word_count",
-                "enhanced_review_5_date", "enhanced_review_5_has_title",
-                "enhanced_review_5_helpful_votes", "enhanced_review_5_is_verified",
-                "enhanced_review_5_rating", "enhanced_review_5_reviewer_location",
-                "enhanced_review_5_reviewer_name", "enhanced_review_5_text",
-                "enhanced_review_5_title", "enhanced_review_5_word_count",
-                "enhanced_review_6_date", "enhanced_review_6_has_title",
-                "enhanced_review_6_helpful_votes", "enhanced_review_6_is_verified",
-                "enhanced_review_6_rating", "enhanced_review_6_reviewer_location",
-                "enhanced_review_6_reviewer_name", "enhanced_review_6_text",
-                "enhanced_review_6_title", "enhanced_review_6_word_count",
-                "enhanced_review_7_date", "enhanced_review_7_has_title",
-                "enhanced_review_7_helpful_votes", "enhanced_review_7_is_verified",
-                "enhanced_review_7_rating", "enhanced_review_7_reviewer_location",
-                "enhanced_review_7_reviewer_name", "enhanced_review_7_text",
-                "enhanced_review_7_title", "enhanced_review_7_word_count",
-                "enhanced_review_8_date", "enhanced_review_8_has_title",
-                "enhanced_review_8_helpful_votes", "enhanced_review_8_is_verified",
-                "enhanced_review_8_rating", "enhanced_review_8_reviewer_location",
-                "enhanced_review_8_reviewer_name", "enhanced_review_8_text",
-                "enhanced_review_8_title", "enhanced_review_8_word_count",
-                "enhanced_review_9_date", "enhanced_review_9_has_title",
-                "enhanced_review_9_helpful_votes", "enhanced_review_9_is_verified",
-                "enhanced_review_9_rating", "enhanced_review_9_reviewer_location",
-                "enhanced_review_9_reviewer_name", "enhanced_review_9_text",
-                "enhanced_review_9_title", "enhanced_review_9_word_count",
-                "facebook_url", "five_star_reviews_1_date", "five_star_reviews_1_has_title",
-                "five_star_reviews_1_helpful_votes", "five_star_reviews_1_is_verified",
-                "five_star_reviews_1_rating", "five_star_reviews_1_reviewer_location",
-                "five_star_reviews_1_reviewer_name", "five_star_reviews_1_text",
-                "five_star_reviews_1_title", "five_star_reviews_1_word_count",
-                "five_star_reviews_2_date", "five_star_reviews_2_has_title",
-                "five_star_reviews_2_helpful_votes", "five_star_reviews_2_is_verified",
-                "five_star_reviews_2_rating", "five_star_reviews_2_reviewer_location",
-                "five_star_reviews_2_reviewer_name", "five_star_reviews_2_text",
-                "five_star_reviews_2_title", "five_star_reviews_2_word_count",
-                "five_star_reviews_3_date", "five_star_reviews_3_has_title",
-                "five_star_reviews_3_helpful_votes", "five_star_reviews_3_is_verified",
-                "five_star_reviews_3_rating", "five_star_reviews_3_reviewer_location",
-                "five_star_reviews_3_reviewer_name", "five_star_reviews_3_text",
-                "five_star_reviews_3_title", "five_star_reviews_3_word_count",
-                "five_star_reviews_4_date", "five_star_reviews_4_has_title",
-                "five_star_reviews_4_helpful_votes", "five_star_reviews_4_is_verified",
-                "five_star_reviews_4_rating", "five_star_reviews_4_reviewer_location",
-                "five_star_reviews_4_reviewer_name", "five_star_reviews_4_text",
-                "five_star_reviews_4_title", "five_star_reviews_4_word_count",
-                "five_star_reviews_5_date", "five_star_reviews_5_has_title",
-                "five_star_reviews_5_helpful_votes", "five_star_reviews_5_is_verified",
-                "five_star_reviews_5_rating", "five_star_reviews_5_reviewer_location",
-                "five_star_reviews_5_reviewer_name", "five_star_reviews_5_text",
-                "five_star_reviews_5_title", "five_star_reviews_5_word_count",
-                "has_social_media", "instagram_url", "is_claimed", "linkedin_url",
-                "logo_url", "name", "num_reviews", "number_of_reviews",
-                "one_star_reviews_1_date", "one_star_reviews_1_has_title",
-                "one_star_reviews_1_helpful_votes", "one_star_reviews_1_is_verified",
-                "one_star_reviews_1_rating", "one_star_reviews_1_reviewer_location",
-                "one_star_reviews_1_reviewer_name", "one_star_reviews_1_text",
-                "one_star_reviews_1_title", "one_star_reviews_1_word_count",
-                "one_star_reviews_2_date", "one_star_reviews_2_has_title",
-                "one_star_reviews_2_helpful_votes", "one_star_reviews_2_is_verified",
-                "one_star_reviews_2_rating", "one_star_reviews_2_reviewer_location",
-                "one_star_reviews_2_reviewer_name", "one_star_reviews_2_text",
-                "one_star_reviews_2_title", "one_star_reviews_2_word_count",
-                "one_star_reviews_3_date", "one_star_reviews_3_has_title",
-                "one_star_reviews_3_helpful_votes", "one_star_reviews_3_is_verified",
-                "one_star_reviews_3_rating", "one_star_reviews_3_reviewer_location",
-                "one_star_reviews_3_reviewer_name", "one_star_reviews_3_text",
-                "one_star_reviews_3_title", "one_star_reviews_3_word_count",
-                "one_star_reviews_4_date", "one_star_reviews_4_has_title",
-                "one_star_reviews_4_helpful_votes", "one_star_reviews_4_is_verified",
-                "one_star_reviews_4_rating", "one_star_reviews_4_reviewer_location",
-                "one_star_reviews_4_reviewer_name", "one_star_reviews_4_text",
-                "one_star_reviews_4_title", "one_star_reviews_4_word_count",
-                "one_star_reviews_5_date", "one_star_reviews_5_has_title",
-                "one_star_reviews_5_helpful_votes", "one_star_reviews_5_is_verified",
-                "one_star_reviews_5_rating", "one_star_reviews_5_reviewer_location",
-                "one_star_reviews_5_reviewer_name", "one_star_reviews_5_text",
-                "one_star_reviews_5_title", "one_star_reviews_5_word_count",
-                "phone", "response_rate", "reviews", "reviews_last_30_days",
-                "scrape_timestamp", "sentiment_distribution_1_star_avg_words",
-                "sentiment_distribution_1_star_count", "sentiment_distribution_2_star_avg_words",
-                "sentiment_distribution_2_star_count", "sentiment_distribution_3_star_avg_words",
-                "sentiment_distribution_3_star_count", "sentiment_distribution_4_star_avg_words",
-                "sentiment_distribution_4_star_count", "sentiment_distribution_5_star_avg_words",
-                "sentiment_distribution_5_star_count", "similar_companies_1_name",
-                "similar_companies_1_url", "similar_companies_2_name",
-                "similar_companies_2_url", "similar_companies_3_name",
-                "similar_companies_3_url", "similar_companies_4_name",
-                "similar_companies_4_url", "similar_companies_5_name",
-                "similar_companies_5_url", "star_rating_percentages_five",
-                "star_rating_percentages_four", "star_rating_percentages_one",
-                "star_rating_percentages_three", "star_rating_percentages_two",
-                "star_ratings_five", "star_ratings_four", "star_ratings_one",
-                "star_ratings_three", "star_ratings_two", "total_categories",
-                "total_helpful_votes", "trustpilot_domain", "trustscore",
-                "twitter_url", "verified_reviews_count", "website", "youtube_url"
-        };
-
-        for (int i = 0; i < columns.length; i++) {
-            map.put(columns[i], i);
-        }
-
-        return map;
-    }
-
     /**
      * 🔧 CLASSE MODIFIÉE: ImportResult avec category et subcategory
      */
@@ -571,10 +574,16 @@ public class CsvImportService {
         private String subcategory;     // 🆕 NOUVEAU
         private LocalDateTime startTime;
         private LocalDateTime endTime;
-        private int totalRows;
-        private int successCount;
-        private int errorCount;
-        private List<String> errors = new ArrayList<>();
+        // Compteurs atomiques: mis à jour par les workers du pipeline parallèle
+        private final AtomicInteger totalRows = new AtomicInteger();
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        // Demande d'annulation: la lecture s'arrête, les lignes déjà lues sont terminées
+        private volatile boolean cancelled;
+        // Mode "skip unchanged": les documents identiques (même contentHash) ne sont pas réécrits
+        private volatile boolean skipUnchanged;
+        private final AtomicInteger unchangedCount = new AtomicInteger();
 
         // Getters et setters existants
         public String getFileName() { return fileName; }
@@ -593,17 +602,47 @@ public class CsvImportService {
         public LocalDateTime getEndTime() { return endTime; }
         public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
 
-        public int getTotalRows() { return totalRows; }
-        public void setTotalRows(int totalRows) { this.totalRows = totalRows; }
+        public int getTotalRows() { return totalRows.get(); }
+        public void setTotalRows(int totalRows) { this.totalRows.set(totalRows); }
+        public void incrementTotalRows() { this.totalRows.incrementAndGet(); }
+
+        public int getSuccessCount() { return successCount.get(); }
+        public void incrementSuccessCount() { this.successCount.incrementAndGet(); }
+
+        public int getErrorCount() { return errorCount.get(); }
+        public void incrementErrorCount() { this.errorCount.incrementAndGet(); }
+
+        /**
+         * Des documents comptés en succès au mapping ont échoué à l'indexation
+         */
+        public void recordIndexingFailures(int count) {
+            this.successCount.addAndGet(-count);
+            this.errorCount.addAndGet(count);
+        }
+
+        public List<String> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors);
+            }
+        }
+
+        public void addError(String error) {
+            // Liste bornée pour que la mémoire reste constante sur les gros fichiers
+            synchronized (errors) {
+                if (this.errors.size() < MAX_STORED_ERRORS) {
+                    this.errors.add(error);
+                }
+            }
+        }
 
-        public int getSuccessCount() { return successCount; }
-        public void incrementSuccessCount() { this.successCount++; }
+        public boolean isSkipUnchanged() { return skipUnchanged; }
+        public void setSkipUnchanged(boolean skipUnchanged) { this.skipUnchanged = skipUnchanged; }
 
-        public int getErrorCount() { return errorCount; }
-        public void incrementErrorCount() { this.errorCount++; }
+        public int getUnchangedCount() { return unchangedCount.get(); }
+        public void incrementUnchangedCount() { this.unchangedCount.incrementAndGet(); }
 
-        public List<String> getErrors() { return errors; }
-        public void addError(String error) { this.errors.add(error); }
+        public boolean isCancelled() { return cancelled; }
+        public void cancel() { this.cancelled = true; }
 
         public long getDurationInSeconds() {
             if (startTime != null && endTime != null) {
@@ -616,7 +655,7 @@ public class CsvImportService {
         public String toString() {
             return String.format(
                     "ImportResult{fileName='%s', category='%s', subcategory='%s', totalRows=%d, success=%d, errors=%d, duration=%ds}",
-                    fileName, category, subcategory, totalRows, successCount, errorCount, getDurationInSeconds()
+                    fileName, category, subcategory, getTotalRows(), getSuccessCount(), getErrorCount(), getDurationInSeconds()
             );
         }
     }
@@ -1,6 +1,7 @@
 package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
 
 import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import com.example.springelasticproject.util.CompressedInput;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvException;
@@ -82,9 +83,15 @@ public class CsvImportService2 {
         result.setSubcategory(subcategory.trim()); // 🆕 NOUVEAU
         result.setStartTime(LocalDateTime.now());
 
-        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(inputStream))
-                .withSkipLines(1) // Skip header
-                .build()) {
+        // Fichier .csv.gz décompressé en flux, détecté sur son contenu
+        try (CSVReader csvReader = new CSVReaderBuilder(new InputStreamReader(CompressedInput.decompress(inputStream))).build()) {
+
+            // L'en-tête réel du fichier est résolu une seule fois en schéma indexé
+            String[] header = csvReader.readNext();
+            if (header == null) {
+                throw new CsvException("Fichier CSV vide: en-tête introuvable");
+            }
+            CsvRowSchema schema = CsvRowSchema.fromHeader(header);
 
             // Lire toutes les lignes
             List<String[]> allRows = csvReader.readAll();
@@ -100,7 +107,7 @@ public class CsvImportService2 {
                 lineNumber++;
                 try {
                     // 🔧 CORRECTION: Passer category et subcategory au mapping
-                    ShadowPilot business = mapRowToBusinessReview(row, lineNumber, category, subcategory);
+                    ShadowPilot business = mapRowToBusinessReview(row, schema, lineNumber, category, subcategory);
 
                     if (business != null && businessReviewService.validateBusinessData(business)) {
                         batch.add(business);
@@ -144,19 +151,21 @@ public class CsvImportService2 {
 
     /**
      * 🔧 MÉTHODE DE MAPPING MODIFIÉE avec category et subcategory
+     * Les colonnes sont lues par index via le schéma résolu depuis l'en-tête
      */
-    private ShadowPilot mapRowToBusinessReview(String[] row, int lineNumber, String category, String subcategory) {
-        if (row.length < 262) {
-            logger.warn("Ligne {} CSV incomplète: {} colonnes au lieu de 262", lineNumber, row.length);
+    private ShadowPilot mapRowToBusinessReview(String[] row, CsvRowSchema schema, int lineNumber,
+                                               String category, String subcategory) {
+        if (row.length < schema.getColumnCount()) {
+            logger.warn("Ligne {} CSV incomplète: {} colonnes au lieu de {}", lineNumber, row.length, schema.getColumnCount());
         }
 
         ShadowPilot business = new ShadowPilot();
 
         try {
             // ===== CHAMPS DIRECTS =====
-            String name = getStringValue(row, "name");
-            String address = getStringValue(row, "address");
-            String domain = getStringValue(row, "domain");
+            String name = schema.getString(row, schema.name);
+            String address = schema.getString(row, schema.address);
+            String domain = schema.getString(row, schema.domain);
 
             // Validation minimum
             if (name == null || name.trim().isEmpty()) {
@@ -178,31 +187,24 @@ public class CsvImportService2 {
             business.setId(uniqueId);
             logger.debug("Ligne {}: ID généré = {}", lineNumber, uniqueId);
 
-            business.setPhone(getStringValue(row, "phone"));
-            business.setEmail(getStringValue(row, "email"));
-            business.setWebsite(getStringValue(row, "website"));
+            business.setPhone(schema.getString(row, schema.phone));
+            business.setEmail(schema.getString(row, schema.email));
+            business.setWebsite(schema.getString(row, schema.website));
 
             // ===== BUSINESS METRICS =====
             Map<String, Object> businessMetrics = new HashMap<>();
-            businessMetrics.put("trustscore", getDoubleValue(row, "trustscore"));
-            businessMetrics.put("number_of_reviews", getDoubleValue(row, "number_of_reviews"));
-            businessMetrics.put("avg_reviews_per_month", getDoubleValue(row, "avg_reviews_per_month"));
-            businessMetrics.put("business_age_days", getIntegerValue(row, "business_age_days"));
-            businessMetrics.put("business_age_years", getDoubleValue(row, "business_age_years"));
-            businessMetrics.put("competitor_count", getIntegerValue(row, "competitor_count"));
-            businessMetrics.put("contact_completeness", getDoubleValue(row, "contact_completeness"));
-            businessMetrics.put("response_rate", getDoubleValue(row, "response_rate"));
-            businessMetrics.put("reviews_last_30_days", getIntegerValue(row, "reviews_last_30_days"));
-            businessMetrics.put("total_categories", getIntegerValue(row, "total_categories"));
-            businessMetrics.put("total_helpful_votes", getIntegerValue(row, "total_helpful_votes"));
-            businessMetrics.put("verified_reviews_count", getIntegerValue(row, "verified_reviews_count"));
-            businessMetrics.put("business_size_indicator", getStringValue(row, "business_size_indicator"));
-            businessMetrics.put("categories", getStringValue(row, "categories"));
-            businessMetrics.put("is_claimed", getBooleanValue(row, "is_claimed"));
-            businessMetrics.put("trustpilot_domain", getStringValue(row, "trustpilot_domain"));
-            businessMetrics.put("logo_url", getStringValue(row, "logo_url"));
-            businessMetrics.put("num_reviews", getStringValue(row, "num_reviews"));
-            businessMetrics.put("reviews", getStringValue(row, "reviews"));
+            for (int i = 0; i < CsvRowSchema.DOUBLE_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.DOUBLE_METRICS[i], schema.getDouble(row, schema.doubleMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.INTEGER_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.INTEGER_METRICS[i], schema.getInteger(row, schema.integerMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.STRING_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.STRING_METRICS[i], schema.getString(row, schema.stringMetrics[i]));
+            }
+            for (int i = 0; i < CsvRowSchema.BOOLEAN_METRICS.length; i++) {
+                businessMetrics.put(CsvRowSchema.BOOLEAN_METRICS[i], schema.getBoolean(row, schema.booleanMetrics[i]));
+            }
 
             // 🆕 AJOUT CATEGORY/SUBCATEGORY DANS LES METRICS AUSSI (pour faciliter les requêtes)
             businessMetrics.put("import_category", category);
@@ -212,70 +214,39 @@ public class CsvImportService2 {
 
             // ===== SOCIAL MEDIA =====
             Map<String, Object> socialMedia = new HashMap<>();
-            socialMedia.put("facebook_url", getStringValue(row, "facebook_url"));
-            socialMedia.put("instagram_url", getStringValue(row, "instagram_url"));
-            socialMedia.put("linkedin_url", getStringValue(row, "linkedin_url"));
-            socialMedia.put("twitter_url", getStringValue(row, "twitter_url"));
-            socialMedia.put("youtube_url", getStringValue(row, "youtube_url"));
-            socialMedia.put("has_social_media", getBooleanValue(row, "has_social_media"));
+            for (int i = 0; i < CsvRowSchema.SOCIAL_MEDIA_URLS.length; i++) {
+                socialMedia.put(CsvRowSchema.SOCIAL_MEDIA_URLS[i], schema.getString(row, schema.socialMediaUrls[i]));
+            }
+            socialMedia.put("has_social_media", schema.getBoolean(row, schema.hasSocialMedia));
             business.setSocialMedia(socialMedia);
 
-            // ===== ENHANCED REVIEWS =====
-            List<Map<String, Object>> enhancedReviews = new ArrayList<>();
-            for (int i = 1; i <= 10; i++) {
-                Map<String, Object> review = createReviewMap(row, "enhanced_review_" + i + "_");
-                if (!review.isEmpty()) {
-                    enhancedReviews.add(review);
-                }
-            }
-            business.setEnhancedReviews(enhancedReviews);
-
-            // ===== FIVE STAR REVIEWS =====
-            List<Map<String, Object>> fiveStarReviews = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                Map<String, Object> review = createReviewMap(row, "five_star_reviews_" + i + "_");
-                if (!review.isEmpty()) {
-                    fiveStarReviews.add(review);
-                }
-            }
-            business.setFiveStarReviews(fiveStarReviews);
-
-            // ===== ONE STAR REVIEWS =====
-            List<Map<String, Object>> oneStarReviews = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                Map<String, Object> review = createReviewMap(row, "one_star_reviews_" + i + "_");
-                if (!review.isEmpty()) {
-                    oneStarReviews.add(review);
-                }
-            }
-            business.setOneStarReviews(oneStarReviews);
+            // ===== ENHANCED / FIVE STAR / ONE STAR REVIEWS =====
+            business.setEnhancedReviews(createReviewList(row, schema, schema.enhancedReviews));
+            business.setFiveStarReviews(createReviewList(row, schema, schema.fiveStarReviews));
+            business.setOneStarReviews(createReviewList(row, schema, schema.oneStarReviews));
 
             // ===== SENTIMENT DISTRIBUTION =====
             Map<String, Object> sentimentDistribution = new HashMap<>();
-            for (int i = 1; i <= 5; i++) {
-                sentimentDistribution.put(i + "_star_avg_words",
-                        getDoubleValue(row, "sentiment_distribution_" + i + "_star_avg_words"));
-                sentimentDistribution.put(i + "_star_count",
-                        getIntegerValue(row, "sentiment_distribution_" + i + "_star_count"));
+            for (int i = 0; i < 5; i++) {
+                sentimentDistribution.put((i + 1) + "_star_avg_words", schema.getDouble(row, schema.sentimentAvgWords[i]));
+                sentimentDistribution.put((i + 1) + "_star_count", schema.getInteger(row, schema.sentimentCount[i]));
             }
             business.setSentimentDistribution(sentimentDistribution);
 
             // ===== STAR RATINGS =====
             Map<String, Object> starRatings = new HashMap<>();
-            String[] ratingTypes = {"one", "two", "three", "four", "five"};
-            for (String type : ratingTypes) {
-                starRatings.put("star_rating_percentages_" + type,
-                        getStringValue(row, "star_rating_percentages_" + type));
-                starRatings.put("star_ratings_" + type,
-                        getStringValue(row, "star_ratings_" + type));
+            for (int i = 0; i < CsvRowSchema.RATING_TYPES.length; i++) {
+                String type = CsvRowSchema.RATING_TYPES[i];
+                starRatings.put("star_rating_percentages_" + type, schema.getString(row, schema.starRatingPercentages[i]));
+                starRatings.put("star_ratings_" + type, schema.getString(row, schema.starRatings[i]));
             }
             business.setStarRatings(starRatings);
 
             // ===== SIMILAR COMPANIES =====
             List<Map<String, Object>> similarCompanies = new ArrayList<>();
-            for (int i = 1; i <= 5; i++) {
-                String nameS = getStringValue(row, "similar_companies_" + i + "_name");
-                String url = getStringValue(row, "similar_companies_" + i + "_url");
+            for (int i = 0; i < CsvRowSchema.SIMILAR_COMPANY_COUNT; i++) {
+                String nameS = schema.getString(row, schema.similarCompanyNames[i]);
+                String url = schema.getString(row, schema.similarCompanyUrls[i]);
                 if (nameS != null && !nameS.isEmpty()) {
                     Map<String, Object> company = new HashMap<>();
                     company.put("name", nameS);
@@ -348,220 +319,47 @@ public class CsvImportService2 {
 
     // ===== MÉTHODES UTILITAIRES INCHANGÉES =====
 
+    /**
+     * Construit la liste des avis non vides d'un bloc (enhanced, five_star, one_star)
+     */
+    private List<Map<String, Object>> createReviewList(String[] row, CsvRowSchema schema,
+                                                       CsvRowSchema.ReviewColumns[] block) {
+        List<Map<String, Object>> reviews = new ArrayList<>();
+        for (CsvRowSchema.ReviewColumns columns : block) {
+            Map<String, Object> review = createReviewMap(row, schema, columns);
+            if (!review.isEmpty()) {
+                reviews.add(review);
+            }
+        }
+        return reviews;
+    }
+
     /**
      * Crée un map pour un avis à partir des colonnes CSV
      */
-    private Map<String, Object> createReviewMap(String[] row, String prefix) {
+    private Map<String, Object> createReviewMap(String[] row, CsvRowSchema schema, CsvRowSchema.ReviewColumns columns) {
         Map<String, Object> review = new HashMap<>();
 
-        String date = getStringValue(row, prefix + "date");
-        String text = getStringValue(row, prefix + "text");
+        String date = schema.getString(row, columns.date);
+        String text = schema.getString(row, columns.text);
 
         // Un avis est valide s'il a au moins une date ou un texte
         if ((date != null && !date.isEmpty()) || (text != null && !text.isEmpty())) {
             review.put("date", date);
-            review.put("has_title", getStringValue(row, prefix + "has_title"));
-            review.put("helpful_votes", getDoubleValue(row, prefix + "helpful_votes"));
-            review.put("is_verified", getStringValue(row, prefix + "is_verified"));
-            review.put("rating", getDoubleValue(row, prefix + "rating"));
-            review.put("reviewer_location", getStringValue(row, prefix + "reviewer_location"));
-            review.put("reviewer_name", getStringValue(row, prefix + "reviewer_name"));
+            review.put("has_title", schema.getString(row, columns.hasTitle));
+            review.put("helpful_votes", schema.getDouble(row, columns.helpfulVotes));
+            review.put("is_verified", schema.getString(row, columns.isVerified));
+            review.put("rating", schema.getDouble(row, columns.rating));
+            review.put("reviewer_location", schema.getString(row, columns.reviewerLocation));
+            review.put("reviewer_name", schema.getString(row, columns.reviewerName));
             review.put("text", text);
-            review.put("title", getStringValue(row, prefix + "title"));
-            review.put("word_count", getDoubleValue(row, prefix + "word_count"));
+            review.put("title", schema.getString(row, columns.title));
+            review.put("word_count", schema.getDouble(row, columns.wordCount));
         }
 
         return review;
     }
 
-    private String getStringValue(String[] row, String columnName) {
-        int index = getColumnIndex(columnName);
-        if (index >= 0 && index < row.length) {
-            String value = row[index];
-            return (value != null && !value.trim().isEmpty() && !value.equals("null")) ? value.trim() : null;
-        }
-        return null;
-    }
-
-    private Double getDoubleValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            try {
-                return Double.parseDouble(value);
-            } catch (NumberFormatException e) {
-                logger.debug("Impossible de convertir '{}' en Double pour la colonne '{}'", value, columnName);
-            }
-        }
-        return null;
-    }
-
-    private Integer getIntegerValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            try {
-                return (int) Double.parseDouble(value); // Conversion via double pour gérer les décimaux
-            } catch (NumberFormatException e) {
-                logger.debug("Impossible de convertir '{}' en Integer pour la colonne '{}'", value, columnName);
-            }
-        }
-        return null;
-    }
-
-    private Boolean getBooleanValue(String[] row, String columnName) {
-        String value = getStringValue(row, columnName);
-        if (value != null) {
-            return "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
-        }
-        return null;
-    }
-
-    /**
-     * Obtient l'index d'une colonne par son nom
-     */
-    private int getColumnIndex(String columnName) {
-        Map<String, Integer> columnIndexMap = createColumnIndexMap();
-        return columnIndexMap.getOrDefault(columnName, -1);
-    }
-
-    /**
-     * Crée la map des indices de colonnes
-     */
-    private Map<String, Integer> createColumnIndexMap() {
-        Map<String, Integer> map = new HashMap<>();
-
-        // Liste des colonnes dans l'ordre du CSV
-        String[] columns = {
-                "address", "avg_reviews_per_month", "business_age_days", "business_age_years",
-                "business_size_indicator", "categories", "competitor_count", "contact_completeness",
-                "domain", "email", "enhanced_review_10_date", "enhanced_review_10_has_title",
-                "enhanced_review_10_helpful_votes", "enhanced_review_10_is_verified",
-                "enhanced_review_10_rating", "enhanced_review_10_reviewer_location",
-                "enhanced_review_10_reviewer_name", "enhanced_review_10_text",
-                "enhanced_review_10_title", "enhanced_review_10_word_count",
-                "enhanced_review_1_date", "enhanced_review_1_has_title",
-                "enhanced_review_1_helpful_votes", "enhanced_review_1_is_verified",
-                "enhanced_review_1_rating", "enhanced_review_1_reviewer_location",
-                "enhanced_review_1_reviewer_name", "enhanced_review_1_text",
-                "enhanced_review_1_title", "enhanced_review_1_word_count",
-                "enhanced_review_2_date", "enhanced_review_2_has_title",
-                "enhanced_review_2_helpful_votes", "enhanced_review_2_is_verified",
-                "enhanced_review_2_rating", "enhanced_review_2_reviewer_location",
-                "enhanced_review_2_reviewer_name", "enhanced_review_2_text",
-                "enhanced_review_2_title", "enhanced_review_2_word_count",
-                "enhanced_review_3_date", "enhanced_review_3_has_title",
-                "enhanced_review_3_helpful_votes", "enhanced_review_3_is_verified",
-                "enhanced_review_3_rating", "enhanced_review_3_reviewer_location",
-                "enhanced_review_3_reviewer_name", "enhanced_review_3_text",
-                "enhanced_review_3_title", "enhanced_review_3_word_count",
-                "enhanced_review_4_date", "enhanced_review_4_has_title",
-                "enhanced_review_4_helpful_votes", "enhanced_review_4_is_verified",
-                "enhanced_review_4_rating", "enhanced_review_4_reviewer_location",
-                "enhanced_review_4_reviewer_name", "enhanced_review_4_text",
-                "enhanced_review_4_title", "enhanced_review_4_word_count",
-                "enhanced_review_5_date", "enhanced_review_5_has_title",
-                "enhanced_review_5_helpful_votes", "enhanced_review_5_is_verified",
-                "enhanced_review_5_rating", "enhanced_review_5_reviewer_location",
-                "enhanced_review_5_reviewer_name", "enhanced_review_5_text",
-                "enhanced_review_5_title", "enhanced_review_5_word_count",
-                "enhanced_review_6_date", "enhanced_review_6_has_title",
-                "enhanced_review_6_helpful_votes", "enhanced_review_6_is_verified",
-                "enhanced_review_6_rating", "enhanced_review_6_reviewer_location",
-                "enhanced_review_6_reviewer_name", "enhanced_review_6_text",
-                "enhanced_review_6_title", "enhanced_review_6_word_count",
-                "enhanced_review_7_date", "enhanced_review_7_has_title",
-                "enhanced_review_7_helpful_votes", "enhanced_review_7_is_verified",
-                "enhanced_review_7_rating", "enhanced_review_7_reviewer_location",
-                "enhanced_review_7_reviewer_name", "enhanced_review_7_text",
-                "enhanced_review_7_title", "enhanced_review_7_word_count",
-                "enhanced_review_8_date", "enhanced_review_8_has_title",
-                "enhanced_review_8_helpful_votes", "enhanced_review_8_is_verified",
-                "enhanced_review_8_rating", "enhanced_review_8_reviewer_location",
-                "enhanced_review_8_reviewer_name", "enhanced_review_8_text",
-                "enhanced_review_8_title", "enhanced_review_8_word_count",
-                "enhanced_review_9_date", "enhanced_review_9_has_title",
-                "enhanced_review_9_helpful_votes", "enhanced_review_9_is_verified",
-                "enhanced_review_9_rating", "enhanced_review_9_reviewer_location",
-                "enhanced_review_9_reviewer_name", "enhanced_review_9_text",
-                "enhanced_review_9_title", "enhanced_review_9_word_count",
-                "facebook_url", "five_star_reviews_1_date", "five_star_reviews_1_has_title",
-                "five_star_reviews_1_helpful_votes", "five_star_reviews_1_is_verified",
-                "five_star_reviews_1_rating", "five_star_reviews_1_reviewer_location",
-                "five_star_reviews_1_reviewer_name", "five_star_reviews_1_text",
-                "five_star_reviews_1_title", "five_star_reviews_1_word_count",
-                "five_star_reviews_2_date", "five_star_reviews_2_has_title",
-                "five_star_reviews_2_helpful_votes", "five_star_reviews_2_is_verified",
-                "five_star_reviews_2_rating", "five_star_reviews_2_reviewer_location",
-                "five_star_reviews_2_reviewer_name", "five_star_reviews_2_text",
-                "five_star_reviews_2_title", "five_star_reviews_2_word_count",
-                "five_star_reviews_3_date", "five_star_reviews_3_has_title",
-                "five_star_reviews_3_helpful_votes", "five_star_reviews_3_is_verified",
-                "five_star_reviews_3_rating", "five_star_reviews_3_reviewer_location",
-                "five_star_reviews_3_reviewer_name", "five_star_reviews_3_text",
-                "five_star_reviews_3_title", "five_star_reviews_3_word_count",
-                "five_star_reviews_4_date", "five_star_reviews_4_has_title",
-                "five_star_reviews_4_helpful_votes", "five_star_reviews_4_is_verified",
-                "five_star_reviews_4_rating", "five_star_reviews_4_reviewer_location",
-                "five_star_reviews_4_reviewer_name", "five_star_reviews_4_text",
-                "five_star_reviews_4_title", "five_star_reviews_4_word_count",
-                "five_star_reviews_5_date", "five_star_reviews_5_has_title",
-                "five_star_reviews_5_helpful_votes", "five_star_reviews_5_is_verified",
-                "five_star_reviews_5_rating", "five_star_reviews_5_reviewer_location",
-                "five_star_reviews_5_reviewer_name", "five_star_reviews_5_text",
-                "five_star_reviews_5_title", "five_star_reviews_5_word_count",
-                "has_social_media", "instagram_url", "is_claimed", "linkedin_url",
-                "logo_url", "name", "num_reviews", "number_of_reviews",
-                "one_star_reviews_1_date", "one_star_reviews_1_has_title",
-                "one_star_reviews_1_helpful_votes", "one_star_reviews_1_is_verified",
-                "one_star_reviews_1_rating", "one_star_reviews_1_reviewer_location",
-                "one_star_reviews_1_reviewer_name", "one_star_reviews_1_text",
-                "one_star_reviews_1_title", "one_star_reviews_1_word_count",
-                "one_star_reviews_2_date", "one_star_reviews_2_has_title",
-                "one_star_reviews_2_helpful_votes", "one_star_reviews_2_is_verified",
-                "one_star_reviews_2_rating", "one_star_reviews_2_reviewer_location",
-                "one_star_reviews_2_reviewer_name", "one_star_reviews_2_text",
-                "one_star_reviews_2_title", "one_star_reviews_2_word_count",
-                "one_star_reviews_3_date", "one_star_reviews_3_has_title",
-                "one_star_reviews_3_helpful_votes", "one_star_reviews_3_is_verified",
-                "one_star_reviews_3_rating", "one_star_reviews_3_reviewer_location",
-                "one_star_reviews_3_reviewer_name", "one_star_reviews_3_text",
-                "one_star_reviews_3_title", "one_star_reviews_3_word_count",
-                "one_star_reviews_4_date", "one_star_reviews_4_has_title",
-                "one_star_reviews_4_helpful_votes", "one_star_reviews_4_is_verified",
-                "one_star_reviews_4_rating", "one_star_reviews_4_reviewer_location",
-                "one_star_reviews_4_reviewer_name", "one_star_reviews_4_text",
-                "one_star_reviews_4_title", "one_star_reviews_4_word_count",
-                "one_star_reviews_5_date", "one_star_reviews_5_has_title",
-                "one_star_reviews_5_helpful_votes", "one_star_reviews_5_is_verified",
-                "one_star_reviews_5_rating", "one_star_reviews_5_reviewer_location",
-                "one_star_reviews_5_reviewer_name", "one_star_reviews_5_text",
-                "one_star_reviews_5_title", "one_star_reviews_5_word_count",
-                "phone", "response_rate", "reviews", "reviews_last_30_days",
-                "scrape_timestamp", "sentiment_distribution_1_star_avg_words",
-                "sentiment_distribution_1_star_count", "sentiment_distribution_2_star_avg_words",
-                "sentiment_distribution_2_star_count", "sentiment_distribution_3_star_avg_words",
-                "sentiment_distribution_3_star_count", "sentiment_distribution_4_star_avg_words",
-                "sentiment_distribution_4_star_count", "sentiment_distribution_5_star_avg_words",
-                "sentiment_distribution_5_star_count", "similar_companies_1_name",
-                "similar_companies_1_url", "similar_companies_2_name",
-                "similar_companies_2_url", "similar_companies_3_name",
-                "similar_companies_3_url", "similar_companies_4_name",
-                "similar_companies_4_url", "similar_companies_5_name",
-                "similar_companies_5_url", "star_rating_percentages_five",
-                "star_rating_percentages_four", "star_rating_percentages_one",
-                "star_rating_percentages_three", "star_rating_percentages_two",
-                "star_ratings_five", "star_ratings_four", "star_ratings_one",
-                "star_ratings_three", "star_ratings_two", "total_categories",
-                "total_helpful_votes", "trustpilot_domain", "trustscore",
-                "twitter_url", "verified_reviews_count", "website", "youtube_url"
-        };
-
-        for (int i = 0; i < columns.length; i++) {
-            map.put(columns[i], i);
-        }
-
-        return map;
-    }
-
     /**
      * 🔧 CLASSE MODIFIÉE: ImportResult avec category et subcategory
      */
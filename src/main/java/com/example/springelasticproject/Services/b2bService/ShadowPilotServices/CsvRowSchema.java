@@ -0,0 +1,253 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Schéma de ligne CSV ShadowPilot résolu une seule fois à partir de l'en-tête réel du fichier.
+ *
+ * Chaque colonne utilisée par le mapping est convertie en index entier au moment de la lecture
+ * de l'en-tête : la lecture d'une cellule devient un simple accès tableau, sans recherche par nom.
+ * Les colonnes absentes valent -1 (valeur null), les colonnes inconnues sont ignorées,
+ * et l'ordre des colonnes dans le fichier n'a aucune importance.
+ *
+ * L'objet est immuable et peut être partagé entre plusieurs threads.
+ */
+public final class CsvRowSchema {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvRowSchema.class);
+
+    public static final int ENHANCED_REVIEW_COUNT = 10;
+    public static final int STAR_REVIEW_COUNT = 5;
+    public static final int SIMILAR_COMPANY_COUNT = 5;
+    public static final String[] RATING_TYPES = {"one", "two", "three", "four", "five"};
+
+    // Métriques business par type de conversion
+    static final String[] DOUBLE_METRICS = {
+            "trustscore", "number_of_reviews", "avg_reviews_per_month", "business_age_years",
+            "contact_completeness", "response_rate"
+    };
+    static final String[] INTEGER_METRICS = {
+            "business_age_days", "competitor_count", "reviews_last_30_days", "total_categories",
+            "total_helpful_votes", "verified_reviews_count"
+    };
+    static final String[] STRING_METRICS = {
+            "business_size_indicator", "categories", "trustpilot_domain", "logo_url", "num_reviews", "reviews"
+    };
+    static final String[] BOOLEAN_METRICS = {"is_claimed"};
+
+    static final String[] SOCIAL_MEDIA_URLS = {
+            "facebook_url", "instagram_url", "linkedin_url", "twitter_url", "youtube_url"
+    };
+
+    private final String[] columnNames;
+    private final Map<String, Integer> columnIndex;
+
+    // ===== CHAMPS DIRECTS =====
+    final int name;
+    final int address;
+    final int domain;
+    final int phone;
+    final int email;
+    final int website;
+
+    // ===== MÉTRIQUES ET RÉSEAUX SOCIAUX (même ordre que les tableaux de noms) =====
+    final int[] doubleMetrics;
+    final int[] integerMetrics;
+    final int[] stringMetrics;
+    final int[] booleanMetrics;
+    final int[] socialMediaUrls;
+    final int hasSocialMedia;
+
+    // ===== BLOCS RÉPÉTÉS =====
+    final ReviewColumns[] enhancedReviews;
+    final ReviewColumns[] fiveStarReviews;
+    final ReviewColumns[] oneStarReviews;
+    final int[] sentimentAvgWords;
+    final int[] sentimentCount;
+    final int[] starRatingPercentages;
+    final int[] starRatings;
+    final int[] similarCompanyNames;
+    final int[] similarCompanyUrls;
+
+    private CsvRowSchema(String[] header) {
+        this.columnNames = new String[header.length];
+        this.columnIndex = new HashMap<>(header.length * 2);
+
+        for (int i = 0; i < header.length; i++) {
+            String column = normalizeColumnName(header[i], i == 0);
+            columnNames[i] = column;
+            if (!column.isEmpty()) {
+                // En cas de doublon, la première occurrence l'emporte
+                columnIndex.putIfAbsent(column, i);
+            }
+        }
+
+        name = indexOf("name");
+        address = indexOf("address");
+        domain = indexOf("domain");
+        phone = indexOf("phone");
+        email = indexOf("email");
+        website = indexOf("website");
+
+        doubleMetrics = indexesOf(DOUBLE_METRICS);
+        integerMetrics = indexesOf(INTEGER_METRICS);
+        stringMetrics = indexesOf(STRING_METRICS);
+        booleanMetrics = indexesOf(BOOLEAN_METRICS);
+        socialMediaUrls = indexesOf(SOCIAL_MEDIA_URLS);
+        hasSocialMedia = indexOf("has_social_media");
+
+        enhancedReviews = reviewBlock("enhanced_review_", ENHANCED_REVIEW_COUNT);
+        fiveStarReviews = reviewBlock("five_star_reviews_", STAR_REVIEW_COUNT);
+        oneStarReviews = reviewBlock("one_star_reviews_", STAR_REVIEW_COUNT);
+
+        sentimentAvgWords = new int[5];
+        sentimentCount = new int[5];
+        for (int i = 0; i < 5; i++) {
+            sentimentAvgWords[i] = indexOf("sentiment_distribution_" + (i + 1) + "_star_avg_words");
+            sentimentCount[i] = indexOf("sentiment_distribution_" + (i + 1) + "_star_count");
+        }
+
+        starRatingPercentages = new int[RATING_TYPES.length];
+        starRatings = new int[RATING_TYPES.length];
+        for (int i = 0; i < RATING_TYPES.length; i++) {
+            starRatingPercentages[i] = indexOf("star_rating_percentages_" + RATING_TYPES[i]);
+            starRatings[i] = indexOf("star_ratings_" + RATING_TYPES[i]);
+        }
+
+        similarCompanyNames = new int[SIMILAR_COMPANY_COUNT];
+        similarCompanyUrls = new int[SIMILAR_COMPANY_COUNT];
+        for (int i = 0; i < SIMILAR_COMPANY_COUNT; i++) {
+            similarCompanyNames[i] = indexOf("similar_companies_" + (i + 1) + "_name");
+            similarCompanyUrls[i] = indexOf("similar_companies_" + (i + 1) + "_url");
+        }
+    }
+
+    /**
+     * Construit le schéma à partir de la ligne d'en-tête du fichier
+     */
+    public static CsvRowSchema fromHeader(String[] header) {
+        if (header == null || header.length == 0) {
+            throw new IllegalArgumentException("En-tête CSV absent ou vide");
+        }
+        CsvRowSchema schema = new CsvRowSchema(header);
+        if (schema.name < 0) {
+            logger.warn("Colonne 'name' absente de l'en-tête CSV: toutes les lignes seront rejetées");
+        }
+        logger.info("Schéma CSV résolu: {} colonnes dans l'en-tête", header.length);
+        return schema;
+    }
+
+    /**
+     * Index d'une colonne dans le fichier, -1 si elle est absente
+     */
+    public int indexOf(String column) {
+        Integer index = columnIndex.get(column);
+        return index != null ? index : -1;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    private int[] indexesOf(String[] columns) {
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = indexOf(columns[i]);
+        }
+        return indexes;
+    }
+
+    private ReviewColumns[] reviewBlock(String prefix, int count) {
+        ReviewColumns[] block = new ReviewColumns[count];
+        for (int i = 0; i < count; i++) {
+            block[i] = new ReviewColumns(this, prefix + (i + 1) + "_");
+        }
+        return block;
+    }
+
+    private static String normalizeColumnName(String raw, boolean firstColumn) {
+        if (raw == null) {
+            return "";
+        }
+        String column = raw;
+        // BOM UTF-8 éventuellement présent devant la première colonne
+        if (firstColumn && !column.isEmpty() && column.charAt(0) == '\uFEFF') {
+            column = column.substring(1);
+        }
+        return column.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ===== ACCESSEURS PAR INDEX =====
+
+    public String getString(String[] row, int index) {
+        if (index >= 0 && index < row.length) {
+            String value = row[index];
+            return (value != null && !value.trim().isEmpty() && !value.equals("null")) ? value.trim() : null;
+        }
+        return null;
+    }
+
+    public Double getDouble(String[] row, int index) {
+        String value = getString(row, index);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                logger.debug("Impossible de convertir '{}' en Double pour la colonne '{}'", value, columnNames[index]);
+            }
+        }
+        return null;
+    }
+
+    public Integer getInteger(String[] row, int index) {
+        String value = getString(row, index);
+        if (value != null) {
+            try {
+                return (int) Double.parseDouble(value); // Conversion via double pour gérer les décimaux
+            } catch (NumberFormatException e) {
+                logger.debug("Impossible de convertir '{}' en Integer pour la colonne '{}'", value, columnNames[index]);
+            }
+        }
+        return null;
+    }
+
+    public Boolean getBoolean(String[] row, int index) {
+        String value = getString(row, index);
+        if (value != null) {
+            return "true".equalsIgnoreCase(value) || "1".equals(value) || "yes".equalsIgnoreCase(value);
+        }
+        return null;
+    }
+
+    /**
+     * Index des colonnes d'un avis (enhanced_review_N_, five_star_reviews_N_, one_star_reviews_N_)
+     */
+    static final class ReviewColumns {
+        final int date;
+        final int hasTitle;
+        final int helpfulVotes;
+        final int isVerified;
+        final int rating;
+        final int reviewerLocation;
+        final int reviewerName;
+        final int text;
+        final int title;
+        final int wordCount;
+
+        private ReviewColumns(CsvRowSchema schema, String prefix) {
+            date = schema.indexOf(prefix + "date");
+            hasTitle = schema.indexOf(prefix + "has_title");
+            helpfulVotes = schema.indexOf(prefix + "helpful_votes");
+            isVerified = schema.indexOf(prefix + "is_verified");
+            rating = schema.indexOf(prefix + "rating");
+            reviewerLocation = schema.indexOf(prefix + "reviewer_location");
+            reviewerName = schema.indexOf(prefix + "reviewer_name");
+            text = schema.indexOf(prefix + "text");
+            title = schema.indexOf(prefix + "title");
+            wordCount = schema.indexOf(prefix + "word_count");
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import com.example.springelasticproject.util.TransientFailures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Indexation ShadowPilot via le BulkIngester du client Elasticsearch.
+ *
+ * Les requêtes bulk partent dès qu'un des seuils est atteint (nombre de documents, taille en octets,
+ * intervalle de temps) et plusieurs requêtes peuvent être en vol en même temps.
+ * Les éléments rejetés pour surcharge (429 / es_rejected_execution_exception, 503) ou perdus sur
+ * une erreur de connexion sont renvoyés individuellement avec un backoff exponentiel; les autres
+ * échecs (400, 413...) sont signalés ligne par ligne sans relance.
+ *
+ * En mode "skip unchanged", chaque document porte une empreinte de son contenu (contentHash) et
+ * l'écriture passe par un update scripté qui ne fait rien (noop) si l'empreinte stockée est identique.
+ * Hors de ce mode l'empreinte n'est pas calculée: un document écrit sans empreinte est réécrit une
+ * fois au premier import en mode "skip unchanged".
+ */
+@Service
+public class ShadowPilotBulkIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowPilotBulkIndexer.class);
+    private static final long CLOSE_POLL_MILLIS = 100;
+    private static final String CONTENT_HASH_FIELD = "contentHash";
+
+    // Remplace le document seulement si son contenu a changé; crée le document s'il n'existe pas
+    private static final String SKIP_UNCHANGED_SCRIPT =
+            "if (ctx._source." + CONTENT_HASH_FIELD + " == params.doc." + CONTENT_HASH_FIELD + ") { ctx.op = 'noop' } " +
+            "else { ctx._source.clear(); ctx._source.putAll(params.doc) }";
+
+    // Sérialisation canonique (clés triées) pour une empreinte indépendante de l'ordre des maps
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .build();
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${shadowpilot.bulk.max-operations:1000}")
+    private int maxOperations;
+
+    @Value("${shadowpilot.bulk.max-size-mb:5}")
+    private long maxSizeMb;
+
+    @Value("${shadowpilot.bulk.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${shadowpilot.bulk.max-concurrent-requests:2}")
+    private int maxConcurrentRequests;
+
+    @Value("${shadowpilot.bulk.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${shadowpilot.bulk.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    // Attente maximale des éléments en vol à la fermeture d'une session
+    @Value("${shadowpilot.bulk.close-timeout-seconds:300}")
+    private long closeTimeoutSeconds;
+
+    // Partagé par les sessions: flush périodique des ingesters et échéance des relances différées
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+        Thread thread = new Thread(runnable, "shadowpilot-bulk-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Renvoi des éléments: BulkIngester.add peut bloquer, il ne doit pas retenir le thread du flush périodique
+    private final ExecutorService retryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shadowpilot-bulk-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Ouvre une session d'indexation; les échecs définitifs sont reportés dans le résultat d'import
+     */
+    public BulkSession openSession(CsvImportService.ImportResult result) {
+        return new BulkSession(result);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        retryExecutor.shutdownNow();
+    }
+
+    /**
+     * Empreinte SHA-256 du document converti, hors id, _class et empreinte elle-même
+     */
+    static String contentHash(Map<String, Object> document) {
+        Map<String, Object> content = new HashMap<>(document);
+        content.remove("id");
+        content.remove("_class");
+        content.remove(CONTENT_HASH_FIELD);
+        try {
+            return ShadowPilotIdStrategy.sha256Hex(CANONICAL_MAPPER.writeValueAsBytes(content));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation impossible pour l'empreinte du document", e);
+        }
+    }
+
+    static boolean isRetryable(int status, String errorType) {
+        return TransientFailures.isRetryableStatus(status) || "es_rejected_execution_exception".equals(errorType);
+    }
+
+    private long backoffMillis(int attempt) {
+        long delay = initialBackoffMs << Math.min(attempt, 16);
+        // Légère gigue pour éviter que toutes les relances repartent en même temps
+        return delay + ThreadLocalRandom.current().nextLong(Math.max(1, delay / 4));
+    }
+
+    /**
+     * Élément en attente: le document converti est gardé pour pouvoir le renvoyer tel quel
+     */
+    private static final class Item {
+        final String id;
+        final Map<String, Object> document;
+        final int lineNumber;
+        final int attempt;
+
+        Item(String id, Map<String, Object> document, int lineNumber, int attempt) {
+            this.id = id;
+            this.document = document;
+            this.lineNumber = lineNumber;
+            this.attempt = attempt;
+        }
+
+        Item nextAttempt() {
+            return new Item(id, document, lineNumber, attempt + 1);
+        }
+    }
+
+    /**
+     * Session d'indexation liée à un import; thread-safe, à fermer une fois tous les documents ajoutés
+     */
+    public final class BulkSession implements AutoCloseable {
+
+        private final CsvImportService.ImportResult result;
+        private final String indexName;
+        private final BulkIngester<Item> ingester;
+        // Éléments ajoutés et pas encore résolus (indexés ou en échec définitif), relances comprises
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong indexedCount = new AtomicLong();
+        private final AtomicLong retriedCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+        private final AtomicLong unchangedCount = new AtomicLong();
+        private final boolean skipUnchanged;
+
+        private BulkSession(CsvImportService.ImportResult result) {
+            this.result = result;
+            this.skipUnchanged = result.isSkipUnchanged();
+            this.indexName = elasticsearchOperations.getIndexCoordinatesFor(ShadowPilot.class).getIndexName();
+            this.ingester = BulkIngester.of(b -> b
+                    .client(elasticsearchClient)
+                    .maxOperations(maxOperations)
+                    .maxSize(maxSizeMb * 1024 * 1024)
+                    .maxConcurrentRequests(maxConcurrentRequests)
+                    .flushInterval(flushIntervalMs, TimeUnit.MILLISECONDS, scheduler)
+                    .listener(new SessionListener()));
+            logger.info("Session bulk ouverte sur '{}': {} opérations / {} Mo / {} ms, {} requêtes simultanées (skip unchanged: {})",
+                    indexName, maxOperations, maxSizeMb, flushIntervalMs, maxConcurrentRequests, skipUnchanged);
+        }
+
+        /**
+         * Ajoute un document; bloque si le nombre maximal de requêtes en vol est atteint
+         */
+        public void add(ShadowPilot business, int lineNumber) {
+            Document document = elasticsearchOperations.getElasticsearchConverter().mapObject(business);
+            if (skipUnchanged) {
+                document.put(CONTENT_HASH_FIELD, contentHash(document));
+            }
+            outstanding.incrementAndGet();
+            submit(new Item(business.getId(), document, lineNumber, 0));
+        }
+
+        private void submit(Item item) {
+            if (skipUnchanged) {
+                ingester.add(op -> op.update(upd -> upd
+                        .index(indexName)
+                        .id(item.id)
+                        .action(a -> a
+                                .script(s -> s.inline(i -> i
+                                        .lang("painless")
+                                        .source(SKIP_UNCHANGED_SCRIPT)
+                                        .params("doc", JsonData.of(item.document))))
+                                .scriptedUpsert(true)
+                                .upsert(Collections.emptyMap()))), item);
+            } else {
+                ingester.add(op -> op.index(idx -> idx
+                        .index(indexName)
+                        .id(item.id)
+                        .document(item.document)), item);
+            }
+        }
+
+        /**
+         * Renvoie un élément hors du thread du scheduler; un renvoi impossible (ingester fermé,
+         * application arrêtée) est un échec définitif, jamais un élément perdu
+         */
+        private void resubmit(Item item) {
+            try {
+                retryExecutor.execute(() -> {
+                    try {
+                        submit(item);
+                    } catch (RuntimeException e) {
+                        retryOrFail(item, "relance impossible: " + e.getMessage(), false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                retryOrFail(item, "relance impossible (arrêt en cours)", false);
+            }
+        }
+
+        private void resolved() {
+            outstanding.decrementAndGet();
+        }
+
+        private void retryOrFail(Item item, String reason, boolean retryable) {
+            if (retryable && item.attempt < maxRetries) {
+                long delay = backoffMillis(item.attempt);
+                retriedCount.incrementAndGet();
+                logger.debug("Ligne {}: rejet temporaire ({}), nouvel essai {} dans {} ms",
+                        item.lineNumber, reason, item.attempt + 1, delay);
+                Item next = item.nextAttempt();
+                try {
+                    scheduler.schedule(() -> resubmit(next), delay, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    retryOrFail(next, "relance impossible (arrêt en cours)", false);
+                }
+                return;
+            }
+            failedCount.incrementAndGet();
+            result.recordIndexingFailures(1);
+            result.addError("Ligne " + item.lineNumber + ": Indexation échouée - " + reason);
+            resolved();
+        }
+
+        /**
+         * Attend que tous les éléments, relances comprises, soient résolus puis ferme l'ingester. Au-delà
+         * de closeTimeoutSeconds les éléments encore en attente sont comptés en échec.
+         */
+        @Override
+        public void close() {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(closeTimeoutSeconds);
+            try {
+                while (outstanding.get() > 0) {
+                    if (System.nanoTime() - deadline > 0) {
+                        int pending = outstanding.get();
+                        logger.warn("Fermeture de la session bulk: {} éléments non résolus après {} s", pending, closeTimeoutSeconds);
+                        failedCount.addAndGet(pending);
+                        result.recordIndexingFailures(pending);
+                        result.addError(pending + " documents non confirmés par Elasticsearch après " + closeTimeoutSeconds + " s");
+                        break;
+                    }
+                    ingester.flush();
+                    Thread.sleep(CLOSE_POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Fermeture de la session bulk interrompue, {} éléments non résolus", outstanding.get());
+            } finally {
+                ingester.close();
+            }
+            logger.info("Session bulk fermée: {} indexés, {} inchangés, {} relances, {} échecs ({} requêtes)",
+                    indexedCount.get(), unchangedCount.get(), retriedCount.get(), failedCount.get(), ingester.requestCount());
+        }
+
+        public long getIndexedCount() { return indexedCount.get(); }
+        public long getRetriedCount() { return retriedCount.get(); }
+        public long getFailedCount() { return failedCount.get(); }
+        public long getUnchangedCount() { return unchangedCount.get(); }
+
+        private final class SessionListener implements BulkListener<Item> {
+
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request, List<Item> contexts) {
+                logger.debug("Bulk {}: envoi de {} opérations", executionId, contexts.size());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, List<Item> contexts, BulkResponse response) {
+                List<BulkResponseItem> items = response.items();
+                for (int i = 0; i < contexts.size(); i++) {
+                    Item item = contexts.get(i);
+                    BulkResponseItem responseItem = i < items.size() ? items.get(i) : null;
+                    if (responseItem == null) {
+                        retryOrFail(item, "réponse bulk incomplète", true);
+                    } else if (responseItem.error() == null) {
+                        if ("noop".equals(responseItem.result())) {
+                            unchangedCount.incrementAndGet();
+                            result.incrementUnchangedCount();
+                        } else {
+                            indexedCount.incrementAndGet();
+                        }
+                        resolved();
+                    } else {
+                        String errorType = responseItem.error().type();
+                        retryOrFail(item, errorType + ": " + responseItem.error().reason(),
+                                isRetryable(responseItem.status(), errorType));
+                    }
+                }
+                logger.debug("Bulk {}: {} opérations traitées en {} ms (erreurs: {})",
+                        executionId, contexts.size(), response.took(), response.errors());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, List<Item> contexts, Throwable failure) {
+                // Échec de la requête entière: relancée élément par élément seulement si l'échec est temporaire
+                // Relance sur 429, 503 ou erreur de connexion, pas sur une requête refusée (400, 413...)
+                boolean retryable = TransientFailures.isTransient(failure);
+                logger.warn("Bulk {} en échec ({} opérations, relance: {}): {}",
+                        executionId, contexts.size(), retryable, failure.getMessage());
+                for (Item item : contexts) {
+                    retryOrFail(item, failure.getMessage(), retryable);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.mapping.RuntimeField;
+import co.elastic.clients.elasticsearch._types.mapping.RuntimeFieldType;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Détection et suppression des doublons ShadowPilot côté serveur.
+ *
+ * Les clés en double sont trouvées par une agrégation composite paginée sur le nom normalisé
+ * (champ nameKey, avec repli sur _source.name pour les documents indexés avant son ajout).
+ * Seuls les ids sont rapatriés (top_hits sans _source), le document gardé est celui dont l'id
+ * est le plus petit, et les autres sont supprimés par lots via l'API bulk.
+ */
+@Service
+public class ShadowPilotDeduplicationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowPilotDeduplicationEngine.class);
+
+    private static final String KEY_FIELD = "dedup_key";
+    private static final String IDS_AGGREGATION = "ids";
+    private static final int COMPOSITE_PAGE_SIZE = 1000;
+    // Limite par défaut de index.max_inner_result_window: au-delà, les ids sont relus par requête
+    private static final int TOP_HITS_SIZE = 100;
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int SAMPLE_SIZE = 20;
+
+    // Clé d'un document: nameKey s'il est renseigné, sinon le nom lu dans _source (anciens documents)
+    private static final String KEY_SCRIPT =
+            "if (doc.containsKey('nameKey') && doc['nameKey'].size() > 0) { emit(doc['nameKey'].value); } " +
+            "else if (params._source.name != null) { emit(params._source.name.toString().toLowerCase().trim()); }";
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    /**
+     * Clé de dédoublonnage d'un nom (même normalisation que l'ancien traitement en mémoire)
+     */
+    public static String nameKey(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT).trim() : null;
+    }
+
+    /**
+     * Rapport sans suppression: nombre de clés en double et de documents qui seraient supprimés
+     */
+    public DeduplicationReport dryRun() throws IOException {
+        return run(true);
+    }
+
+    public DeduplicationReport removeDuplicates() throws IOException {
+        return run(false);
+    }
+
+    private DeduplicationReport run(boolean dryRun) throws IOException {
+        long start = System.currentTimeMillis();
+        String indexName = elasticsearchOperations.getIndexCoordinatesFor(ShadowPilot.class).getIndexName();
+        // Ajoute nameKey au mapping d'un index existant pour que le script puisse le lire
+        elasticsearchOperations.indexOps(ShadowPilot.class).putMapping();
+
+        DeduplicationReport report = new DeduplicationReport(dryRun);
+        List<String> pendingDeletes = new ArrayList<>(DELETE_BATCH_SIZE);
+        Map<String, FieldValue> afterKey = null;
+
+        do {
+            final Map<String, FieldValue> after = afterKey;
+            SearchResponse<Void> response = elasticsearchClient.search(s -> s
+                    .index(indexName)
+                    .size(0)
+                    .runtimeMappings(KEY_FIELD, keyRuntimeField())
+                    .aggregations("duplicates", a -> a
+                            .composite(c -> {
+                                c.size(COMPOSITE_PAGE_SIZE)
+                                        .sources(Map.of(KEY_FIELD, CompositeAggregationSource.of(src -> src
+                                                .terms(t -> t.field(KEY_FIELD)))));
+                                if (after != null) {
+                                    c.after(after);
+                                }
+                                return c;
+                            })
+                            .aggregations(IDS_AGGREGATION, sub -> sub
+                                    .topHits(t -> t
+                                            .size(TOP_HITS_SIZE)
+                                            .source(src -> src.fetch(false))
+                                            .sort(so -> so.field(f -> f.field("id").order(SortOrder.Asc)))))),
+                    Void.class);
+
+            CompositeAggregate composite = response.aggregations().get("duplicates").composite();
+            for (CompositeBucket bucket : composite.buckets().array()) {
+                report.keysScanned++;
+                // L'agrégation composite n'a pas de min_doc_count: le filtre doc_count > 1 est fait ici
+                if (bucket.docCount() <= 1) {
+                    continue;
+                }
+
+                String key = bucket.key().get(KEY_FIELD).stringValue();
+                List<String> ids = new ArrayList<>();
+                for (Hit<JsonData> hit : bucket.aggregations().get(IDS_AGGREGATION).topHits().hits().hits()) {
+                    ids.add(hit.id());
+                }
+                if (bucket.docCount() > ids.size()) {
+                    ids = fetchAllIds(indexName, key);
+                }
+                if (ids.size() <= 1) {
+                    continue;
+                }
+
+                List<String> duplicates = ids.subList(1, ids.size());
+                report.duplicateKeys++;
+                report.documentsToDelete += duplicates.size();
+                report.addSample(key, ids.get(0), duplicates);
+
+                if (!dryRun) {
+                    for (String id : duplicates) {
+                        pendingDeletes.add(id);
+                        if (pendingDeletes.size() >= DELETE_BATCH_SIZE) {
+                            deleteBatch(indexName, pendingDeletes, report);
+                            pendingDeletes.clear();
+                        }
+                    }
+                }
+            }
+
+            afterKey = composite.buckets().array().isEmpty() ? null : composite.afterKey();
+        } while (afterKey != null && !afterKey.isEmpty());
+
+        if (!pendingDeletes.isEmpty()) {
+            deleteBatch(indexName, pendingDeletes, report);
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        logger.info("Dédoublonnage ShadowPilot{}: {} clés, {} en double, {} documents à supprimer, {} supprimés, {} échecs ({} ms)",
+                dryRun ? " (simulation)" : "", report.keysScanned, report.duplicateKeys, report.documentsToDelete,
+                report.documentsDeleted, report.deleteFailures, report.durationMs);
+        return report;
+    }
+
+    /**
+     * Supprime une liste d'ids par lots bulk (utilisé aussi par le moteur de quasi-doublons)
+     */
+    public DeduplicationReport deleteIds(List<String> ids) throws IOException {
+        long start = System.currentTimeMillis();
+        String indexName = elasticsearchOperations.getIndexCoordinatesFor(ShadowPilot.class).getIndexName();
+        DeduplicationReport report = new DeduplicationReport(false);
+        report.documentsToDelete = ids.size();
+        for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+            deleteBatch(indexName, ids.subList(from, Math.min(ids.size(), from + DELETE_BATCH_SIZE)), report);
+        }
+        report.durationMs = System.currentTimeMillis() - start;
+        return report;
+    }
+
+    private RuntimeField keyRuntimeField() {
+        return RuntimeField.of(r -> r
+                .type(RuntimeFieldType.Keyword)
+                .script(s -> s.inline(i -> i.source(KEY_SCRIPT))));
+    }
+
+    /**
+     * Tous les ids d'une clé trop fréquente pour top_hits, triés par id (search_after)
+     */
+    private List<String> fetchAllIds(String indexName, String key) throws IOException {
+        List<String> ids = new ArrayList<>();
+        String lastId = null;
+        while (true) {
+            final String searchAfter = lastId;
+            SearchResponse<Void> response = elasticsearchClient.search(s -> {
+                s.index(indexName)
+                        .size(DELETE_BATCH_SIZE)
+                        .runtimeMappings(KEY_FIELD, keyRuntimeField())
+                        .query(q -> q.term(t -> t.field(KEY_FIELD).value(key)))
+                        .source(src -> src.fetch(false))
+                        .sort(so -> so.field(f -> f.field("id").order(SortOrder.Asc)));
+                if (searchAfter != null) {
+                    s.searchAfter(FieldValue.of(searchAfter));
+                }
+                return s;
+            }, Void.class);
+
+            List<Hit<Void>> hits = response.hits().hits();
+            for (Hit<Void> hit : hits) {
+                ids.add(hit.id());
+            }
+            if (hits.size() < DELETE_BATCH_SIZE) {
+                return ids;
+            }
+            lastId = hits.get(hits.size() - 1).id();
+        }
+    }
+
+    private void deleteBatch(String indexName, List<String> ids, DeduplicationReport report) throws IOException {
+        List<BulkOperation> operations = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            operations.add(BulkOperation.of(op -> op.delete(d -> d.index(indexName).id(id))));
+        }
+
+        BulkResponse response = elasticsearchClient.bulk(b -> b.index(indexName).operations(operations));
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() != null) {
+                report.deleteFailures++;
+                logger.warn("Suppression du doublon {} échouée: {}", item.id(), item.error().reason());
+            } else {
+                report.documentsDeleted++;
+            }
+        }
+    }
+
+    /**
+     * Résultat d'un passage de dédoublonnage (ou d'une simulation)
+     */
+    public static class DeduplicationReport {
+        private final boolean dryRun;
+        private long keysScanned;
+        private long duplicateKeys;
+        private long documentsToDelete;
+        private long documentsDeleted;
+        private long deleteFailures;
+        private long durationMs;
+        private final List<Map<String, Object>> sample = new ArrayList<>();
+
+        DeduplicationReport(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void addSample(String key, String keptId, List<String> duplicateIds) {
+            if (sample.size() < SAMPLE_SIZE) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("key", key);
+                entry.put("keptId", keptId);
+                entry.put("duplicateIds", new ArrayList<>(duplicateIds));
+                sample.add(entry);
+            }
+        }
+
+        public boolean isDryRun() { return dryRun; }
+        public long getKeysScanned() { return keysScanned; }
+        public long getDuplicateKeys() { return duplicateKeys; }
+        public long getDocumentsToDelete() { return documentsToDelete; }
+        public long getDocumentsDeleted() { return documentsDeleted; }
+        public long getDeleteFailures() { return deleteFailures; }
+        public long getDurationMs() { return durationMs; }
+        public List<Map<String, Object>> getSample() { return sample; }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Identifiants déterministes des documents ShadowPilot.
+ *
+ * Une même entreprise reçoit toujours le même id, d'un import à l'autre:
+ * - à partir du domaine normalisé quand il existe (schéma, "www.", chemin et port retirés),
+ * - sinon à partir du nom et de l'adresse normalisés (casse, accents, ponctuation, espaces).
+ * Un ré-import écrase donc le document existant au lieu d'en créer un doublon.
+ */
+public final class ShadowPilotIdStrategy {
+
+    private static final int MAX_READABLE_LENGTH = 60;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern INVALID_ID_CHARS = Pattern.compile("[^a-z0-9._-]+");
+
+    private ShadowPilotIdStrategy() {
+    }
+
+    /**
+     * Id du document: "d_" + domaine normalisé, ou "n_" + nom lisible + empreinte de nom+adresse
+     */
+    public static String documentId(String name, String address, String domain) {
+        String normalizedDomain = normalizeDomain(domain);
+        if (normalizedDomain != null) {
+            String readable = INVALID_ID_CHARS.matcher(normalizedDomain).replaceAll("_");
+            if (readable.length() > MAX_READABLE_LENGTH) {
+                // Domaine trop long: préfixe lisible + empreinte pour rester unique
+                readable = readable.substring(0, MAX_READABLE_LENGTH) + "_" + sha256Hex(normalizedDomain).substring(0, 16);
+            }
+            return "d_" + readable;
+        }
+
+        String normalizedName = normalizeText(name);
+        String normalizedAddress = normalizeText(address);
+        String readable = normalizedName.replace(' ', '_');
+        if (readable.length() > MAX_READABLE_LENGTH) {
+            readable = readable.substring(0, MAX_READABLE_LENGTH);
+        }
+        String fingerprint = sha256Hex(normalizedName + "|" + normalizedAddress).substring(0, 16);
+        return "n_" + (readable.isEmpty() ? "business" : readable) + "_" + fingerprint;
+    }
+
+    /**
+     * Domaine normalisé (minuscules, sans schéma, "www.", chemin, port ni point final), null si absent
+     */
+    public static String normalizeDomain(String domain) {
+        if (domain == null) {
+            return null;
+        }
+        String value = domain.trim().toLowerCase(Locale.ROOT);
+        if (value.isEmpty() || value.equals("null")) {
+            return null;
+        }
+
+        int scheme = value.indexOf("://");
+        if (scheme >= 0) {
+            value = value.substring(scheme + 3);
+        }
+        int end = value.length();
+        for (char separator : new char[]{'/', '?', '#'}) {
+            int index = value.indexOf(separator);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        value = value.substring(0, end);
+        int at = value.lastIndexOf('@');
+        if (at >= 0) {
+            value = value.substring(at + 1);
+        }
+        int port = value.indexOf(':');
+        if (port >= 0) {
+            value = value.substring(0, port);
+        }
+        if (value.startsWith("www.")) {
+            value = value.substring(4);
+        }
+        while (value.endsWith(".")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Texte normalisé pour la comparaison: minuscules, sans accents, ponctuation réduite à un espace
+     */
+    public static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        String value = Normalizer.normalize(text, Normalizer.Form.NFD);
+        value = DIACRITICS.matcher(value).replaceAll("").toLowerCase(Locale.ROOT);
+        return NON_ALPHANUMERIC.matcher(value).replaceAll(" ").trim();
+    }
+
+    static String sha256Hex(String value) {
+        return sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String sha256Hex(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
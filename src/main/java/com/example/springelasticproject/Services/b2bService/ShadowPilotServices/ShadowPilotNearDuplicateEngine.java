@@ -0,0 +1,600 @@
+package com.example.springelasticproject.Services.b2bService.ShadowPilotServices;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.example.springelasticproject.model.b2bModel.ShadowPilot.ShadowPilot;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Regroupement des quasi-doublons ShadowPilot par MinHash / LSH.
+ *
+ * Chaque entreprise est réduite à un ensemble de shingles (trigrammes du nom sans forme juridique,
+ * domaine, mots de l'adresse) puis à une signature MinHash de taille fixe. Les signatures sont
+ * découpées en bandes: deux entreprises qui partagent une bande sont candidates, et seules les
+ * candidates sont comparées. Tout est stocké dans des tableaux primitifs (signatures, table de
+ * hachage long -> int, chaînage des bandes, union-find), d'où un passage quasi linéaire.
+ *
+ * Deux entreprises dont les domaines sont renseignés et différents ne sont jamais fusionnées.
+ */
+@Service
+public class ShadowPilotNearDuplicateEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowPilotNearDuplicateEngine.class);
+
+    private static final int PAGE_SIZE = 5000;
+    private static final String PIT_KEEP_ALIVE = "2m";
+    // Nombre maximal de membres d'un même seau comparés à un nouvel arrivant (seaux de noms génériques)
+    private static final int MAX_BUCKET_SCAN = 100;
+    private static final int MGET_BATCH_SIZE = 1000;
+    private static final long HASH_SEED = 0x5DEECE66DL;
+
+    // Formes juridiques retirées du nom avant le calcul des shingles
+    private static final Set<String> LEGAL_FORMS = Set.of(
+            "sas", "sasu", "sa", "sarl", "eurl", "sci", "snc", "scop", "selarl",
+            "ltd", "limited", "llc", "llp", "inc", "incorporated", "corp", "corporation", "co", "plc",
+            "gmbh", "ag", "kg", "ug", "bv", "nv", "srl", "spa", "sl", "ab", "oy", "as", "aps");
+
+    @Autowired
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private ShadowPilotDeduplicationEngine deduplicationEngine;
+
+    // Taille de la signature = bands * rows; le seuil LSH implicite vaut environ (1/bands)^(1/rows)
+    @Value("${shadowpilot.near-duplicates.bands:8}")
+    private int bands;
+
+    @Value("${shadowpilot.near-duplicates.rows:4}")
+    private int rows;
+
+    /**
+     * Calcule les clusters de quasi-doublons dont la similarité estimée atteint le seuil
+     */
+    public NearDuplicateReport findClusters(double threshold, int maxClusters) throws IOException {
+        long start = System.currentTimeMillis();
+        Index index = buildIndex(threshold);
+        List<int[]> clusters = index.clusters();
+
+        NearDuplicateReport report = new NearDuplicateReport(threshold, index.size, index.comparisons, clusters.size());
+        for (int[] members : clusters) {
+            report.documentsInClusters += members.length;
+            report.documentsToDelete += members.length - 1;
+        }
+
+        List<int[]> returned = clusters.subList(0, Math.min(maxClusters, clusters.size()));
+        Map<String, CompanyRef> details = fetchDetails(returned, index);
+        for (int[] members : returned) {
+            report.clusters.add(index.describe(members, details));
+        }
+
+        report.durationMs = System.currentTimeMillis() - start;
+        logger.info("Quasi-doublons: {} documents, {} comparaisons, {} clusters ({} documents) en {} ms",
+                index.size, index.comparisons, clusters.size(), report.documentsInClusters, report.durationMs);
+        return report;
+    }
+
+    /**
+     * Supprime tous les membres des clusters sauf leur représentant
+     */
+    public ShadowPilotDeduplicationEngine.DeduplicationReport deleteClusters(double threshold) throws IOException {
+        Index index = buildIndex(threshold);
+        List<String> toDelete = new ArrayList<>();
+        for (int[] members : index.clusters()) {
+            int representative = index.representative(members);
+            for (int member : members) {
+                if (member != representative) {
+                    toDelete.add(index.ids.get(member));
+                }
+            }
+        }
+        logger.info("Quasi-doublons: suppression de {} documents", toDelete.size());
+        return deduplicationEngine.deleteIds(toDelete);
+    }
+
+    /**
+     * Parcourt tout l'index (PIT + search_after, _source limité) et construit signatures et seaux LSH
+     */
+    private Index buildIndex(double threshold) throws IOException {
+        String indexName = elasticsearchOperations.getIndexCoordinatesFor(ShadowPilot.class).getIndexName();
+        Index index = new Index(bands, rows, threshold);
+
+        String pitId = elasticsearchClient.openPointInTime(p -> p
+                .index(indexName)
+                .keepAlive(t -> t.time(PIT_KEEP_ALIVE))).id();
+        try {
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                final List<FieldValue> after = searchAfter;
+                final String currentPit = pitId;
+                SearchResponse<CompanyRef> response = elasticsearchClient.search(s -> {
+                    s.size(PAGE_SIZE)
+                            .pit(p -> p.id(currentPit).keepAlive(t -> t.time(PIT_KEEP_ALIVE)))
+                            .sort(so -> so.field(f -> f.field("_shard_doc")))
+                            .source(src -> src.filter(f -> f.includes("name", "domain", "address")))
+                            .trackTotalHits(t -> t.enabled(false));
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, CompanyRef.class);
+
+                // L'id du PIT peut changer d'une réponse à l'autre
+                if (response.pitId() != null) {
+                    pitId = response.pitId();
+                }
+                List<Hit<CompanyRef>> hits = response.hits().hits();
+                for (Hit<CompanyRef> hit : hits) {
+                    CompanyRef company = hit.source() != null ? hit.source() : new CompanyRef();
+                    index.add(hit.id(), company);
+                }
+                if (hits.size() < PAGE_SIZE) {
+                    break;
+                }
+                searchAfter = hits.get(hits.size() - 1).sort();
+                if (index.size % 100_000 < PAGE_SIZE) {
+                    logger.info("Quasi-doublons: {} documents signés", index.size);
+                }
+            }
+        } finally {
+            final String lastPit = pitId;
+            try {
+                elasticsearchClient.closePointInTime(c -> c.id(lastPit));
+            } catch (Exception e) {
+                logger.warn("Fermeture du point in time impossible: {}", e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    private Map<String, CompanyRef> fetchDetails(List<int[]> clusters, Index index) throws IOException {
+        String indexName = elasticsearchOperations.getIndexCoordinatesFor(ShadowPilot.class).getIndexName();
+        List<String> ids = new ArrayList<>();
+        for (int[] members : clusters) {
+            for (int member : members) {
+                ids.add(index.ids.get(member));
+            }
+        }
+
+        Map<String, CompanyRef> details = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MGET_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(ids.size(), from + MGET_BATCH_SIZE));
+            MgetResponse<CompanyRef> response = elasticsearchClient.mget(m -> m
+                    .index(indexName)
+                    .ids(batch)
+                    .sourceIncludes("name", "domain", "address"), CompanyRef.class);
+            for (MultiGetResponseItem<CompanyRef> item : response.docs()) {
+                if (item.isResult() && item.result().source() != null) {
+                    details.put(item.result().id(), item.result().source());
+                }
+            }
+        }
+        return details;
+    }
+
+    // ===== SHINGLES =====
+
+    /**
+     * Shingles d'une entreprise, hachés sur 64 bits: trigrammes du nom, domaine, mots de l'adresse
+     */
+    static long[] shingles(CompanyRef company) {
+        List<Long> hashes = new ArrayList<>();
+
+        String name = stripLegalForms(company.name);
+        if (name.length() < 3) {
+            if (!name.isEmpty()) {
+                hashes.add(hash('n', name));
+            }
+        } else {
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                hashes.add(hash('n', name.substring(i, i + 3)));
+            }
+        }
+
+        String domain = ShadowPilotIdStrategy.normalizeDomain(company.domain);
+        if (domain != null) {
+            hashes.add(hash('d', domain));
+            int dot = domain.lastIndexOf('.');
+            if (dot > 0) {
+                // Nom de domaine sans extension: acme.fr et acme.com se rapprochent
+                hashes.add(hash('d', domain.substring(0, dot)));
+            }
+        }
+
+        String address = ShadowPilotIdStrategy.normalizeText(company.address);
+        if (!address.isEmpty()) {
+            for (String token : address.split(" ")) {
+                hashes.add(hash('a', token));
+            }
+        }
+
+        long[] result = new long[hashes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = hashes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Nom normalisé sans forme juridique; "S.A.S." devient "s a s" puis "sas" avant filtrage
+     */
+    static String stripLegalForms(String name) {
+        String normalized = ShadowPilotIdStrategy.normalizeText(name);
+        if (normalized.isEmpty()) {
+            return normalized;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder initials = new StringBuilder();
+        for (String token : normalized.split(" ")) {
+            if (token.length() == 1) {
+                initials.append(token);
+                continue;
+            }
+            if (initials.length() > 0) {
+                tokens.add(initials.toString());
+                initials.setLength(0);
+            }
+            tokens.add(token);
+        }
+        if (initials.length() > 0) {
+            tokens.add(initials.toString());
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (String token : tokens) {
+            if (!LEGAL_FORMS.contains(token)) {
+                if (result.length() > 0) {
+                    result.append(' ');
+                }
+                result.append(token);
+            }
+        }
+        // Un nom réduit à sa forme juridique est gardé tel quel
+        return result.length() > 0 ? result.toString() : String.join(" ", tokens);
+    }
+
+    private static long hash(char tag, String value) {
+        long h = 1125899906842597L + tag;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return mix64(h);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    // ===== INDEX EN MÉMOIRE PRIMITIVE =====
+
+    /**
+     * Signatures, seaux LSH et union-find, indexés par numéro de document (ordre de lecture)
+     */
+    private static final class Index {
+        final int bands;
+        final int rows;
+        final int signatureLength;
+        final double threshold;
+        final long[] hashA;
+        final long[] hashB;
+
+        final List<String> ids = new ArrayList<>();
+        int size;
+        long comparisons;
+
+        int[] signatures = new int[0];
+        long[] ownDomains = new long[0];     // domaine du document, 0 = pas de domaine
+        long[] clusterDomains = new long[0]; // domaine du cluster, porté par sa racine
+        int[] parent = new int[0];
+        int[] next = new int[0];             // chaînage des entrées (document, bande) d'un même seau
+        final LongIntHashMap bucketHeads = new LongIntHashMap(1 << 16);
+
+        Index(int bands, int rows, double threshold) {
+            this.bands = Math.max(1, bands);
+            this.rows = Math.max(1, rows);
+            this.signatureLength = this.bands * this.rows;
+            this.threshold = threshold;
+            Random random = new Random(HASH_SEED);
+            hashA = new long[signatureLength];
+            hashB = new long[signatureLength];
+            for (int i = 0; i < signatureLength; i++) {
+                hashA[i] = random.nextLong() | 1L;
+                hashB[i] = random.nextLong();
+            }
+        }
+
+        void add(String id, CompanyRef company) {
+            int doc = size++;
+            ensureCapacity(size);
+            ids.add(id);
+            parent[doc] = doc;
+
+            String domain = ShadowPilotIdStrategy.normalizeDomain(company.domain);
+            ownDomains[doc] = domain != null ? (hash('d', domain) | 1L) : 0L;
+            clusterDomains[doc] = ownDomains[doc];
+
+            long[] shingles = shingles(company);
+            int offset = doc * signatureLength;
+            for (int i = 0; i < signatureLength; i++) {
+                int min = Integer.MAX_VALUE;
+                for (long shingle : shingles) {
+                    int value = (int) ((hashA[i] * shingle + hashB[i]) >>> 32);
+                    if (value < min) {
+                        min = value;
+                    }
+                }
+                signatures[offset + i] = min;
+            }
+            if (shingles.length == 0) {
+                // Aucun contenu exploitable: pas de candidat
+                return;
+            }
+
+            for (int band = 0; band < bands; band++) {
+                long key = band;
+                for (int r = 0; r < rows; r++) {
+                    key = key * 0x9E3779B97F4A7C15L + signatures[offset + band * rows + r];
+                }
+                key = mix64(key);
+
+                int entry = doc * bands + band;
+                int head = bucketHeads.get(key);
+                int scanned = 0;
+                for (int e = head; e >= 0 && scanned < MAX_BUCKET_SCAN; e = next[e], scanned++) {
+                    int other = e / bands;
+                    if (find(other) != find(doc)) {
+                        comparisons++;
+                        if (compatibleDomains(doc, other) && similarity(doc, other) >= threshold) {
+                            union(doc, other);
+                        }
+                    }
+                }
+                next[entry] = head;
+                bucketHeads.put(key, entry);
+            }
+        }
+
+        /**
+         * Veto de domaine au niveau des clusters, pour qu'une chaîne de similarités ne relie pas deux domaines
+         */
+        boolean compatibleDomains(int a, int b) {
+            long domainA = clusterDomains[find(a)];
+            long domainB = clusterDomains[find(b)];
+            return domainA == 0 || domainB == 0 || domainA == domainB;
+        }
+
+        /**
+         * Similarité de Jaccard estimée: part des positions identiques des deux signatures
+         */
+        double similarity(int a, int b) {
+            int offsetA = a * signatureLength;
+            int offsetB = b * signatureLength;
+            int equal = 0;
+            for (int i = 0; i < signatureLength; i++) {
+                if (signatures[offsetA + i] == signatures[offsetB + i]) {
+                    equal++;
+                }
+            }
+            return (double) equal / signatureLength;
+        }
+
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        void union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA != rootB) {
+                parent[rootB] = rootA;
+                if (clusterDomains[rootA] == 0) {
+                    clusterDomains[rootA] = clusterDomains[rootB];
+                }
+            }
+        }
+
+        /**
+         * Clusters d'au moins deux documents, les plus gros d'abord
+         */
+        List<int[]> clusters() {
+            int[] clusterSize = new int[size];
+            for (int doc = 0; doc < size; doc++) {
+                clusterSize[find(doc)]++;
+            }
+            Map<Integer, int[]> byRoot = new HashMap<>();
+            int[] fill = new int[size];
+            for (int doc = 0; doc < size; doc++) {
+                int root = find(doc);
+                if (clusterSize[root] > 1) {
+                    int[] members = byRoot.computeIfAbsent(root, r -> new int[clusterSize[r]]);
+                    members[fill[root]++] = doc;
+                }
+            }
+            List<int[]> clusters = new ArrayList<>(byRoot.values());
+            clusters.sort((a, b) -> Integer.compare(b.length, a.length));
+            return clusters;
+        }
+
+        /**
+         * Représentant gardé: un membre avec domaine de préférence, puis le plus petit id
+         */
+        int representative(int[] members) {
+            int best = members[0];
+            for (int member : members) {
+                boolean hasDomain = ownDomains[member] != 0;
+                boolean bestHasDomain = ownDomains[best] != 0;
+                if ((hasDomain && !bestHasDomain)
+                        || (hasDomain == bestHasDomain && ids.get(member).compareTo(ids.get(best)) < 0)) {
+                    best = member;
+                }
+            }
+            return best;
+        }
+
+        Map<String, Object> describe(int[] members, Map<String, CompanyRef> details) {
+            int representative = representative(members);
+            List<Map<String, Object>> memberList = new ArrayList<>();
+            double minSimilarity = 1.0;
+            for (int member : members) {
+                double similarity = member == representative ? 1.0 : similarity(representative, member);
+                minSimilarity = Math.min(minSimilarity, similarity);
+                CompanyRef company = details.get(ids.get(member));
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", ids.get(member));
+                entry.put("representative", member == representative);
+                entry.put("similarity", Math.round(similarity * 1000.0) / 1000.0);
+                if (company != null) {
+                    entry.put("name", company.name);
+                    entry.put("domain", company.domain);
+                    entry.put("address", company.address);
+                }
+                memberList.add(entry);
+            }
+
+            Map<String, Object> cluster = new LinkedHashMap<>();
+            cluster.put("representativeId", ids.get(representative));
+            cluster.put("size", members.length);
+            cluster.put("minSimilarity", Math.round(minSimilarity * 1000.0) / 1000.0);
+            cluster.put("members", memberList);
+            return cluster;
+        }
+
+        private void ensureCapacity(int required) {
+            if (parent.length >= required) {
+                return;
+            }
+            int capacity = Math.max(1024, parent.length + (parent.length >> 1));
+            while (capacity < required) {
+                capacity += capacity >> 1;
+            }
+            signatures = Arrays.copyOf(signatures, capacity * signatureLength);
+            ownDomains = Arrays.copyOf(ownDomains, capacity);
+            clusterDomains = Arrays.copyOf(clusterDomains, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            next = Arrays.copyOf(next, capacity * bands);
+        }
+    }
+
+    /**
+     * Table de hachage long -> int à adressage ouvert (pas d'objets par entrée); -1 = absent
+     */
+    static final class LongIntHashMap {
+        private long[] keys;
+        private int[] values;
+        private boolean[] used;
+        private int count;
+
+        LongIntHashMap(int initialCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(16, initialCapacity) - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = (int) mix64(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((count + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = (int) mix64(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            count++;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Champs lus pour le calcul des signatures
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CompanyRef {
+        public String name;
+        public String domain;
+        public String address;
+    }
+
+    /**
+     * Résultat d'une recherche de quasi-doublons
+     */
+    public static class NearDuplicateReport {
+        private final double threshold;
+        private final long documentsScanned;
+        private final long comparisons;
+        private final int clusterCount;
+        private long documentsInClusters;
+        private long documentsToDelete;
+        private long durationMs;
+        private final List<Map<String, Object>> clusters = new ArrayList<>();
+
+        NearDuplicateReport(double threshold, long documentsScanned, long comparisons, int clusterCount) {
+            this.threshold = threshold;
+            this.documentsScanned = documentsScanned;
+            this.comparisons = comparisons;
+            this.clusterCount = clusterCount;
+        }
+
+        public double getThreshold() { return threshold; }
+        public long getDocumentsScanned() { return documentsScanned; }
+        public long getComparisons() { return comparisons; }
+        public int getClusterCount() { return clusterCount; }
+        public long getDocumentsInClusters() { return documentsInClusters; }
+        public long getDocumentsToDelete() { return documentsToDelete; }
+        public long getDurationMs() { return durationMs; }
+        public List<Map<String, Object>> getClusters() { return clusters; }
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.springelasticproject.Services.b2cService;
 
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
+import com.example.springelasticproject.Config.ExecutorConfig;
 import com.example.springelasticproject.model.b2cModel.B2C;
 import com.example.springelasticproject.repository.B2CRepository;
+import com.example.springelasticproject.util.BoundedTaskWindow;
+import com.example.springelasticproject.util.CompressedInput;
 import com.opencsv.CSVReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.*;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
@@ -14,7 +18,7 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.InputStreamReader;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -28,14 +32,23 @@ import org.slf4j.LoggerFactory;
 @Service
 public class B2CService {
 
+    // Lots de lignes lus mais pas encore persistés pendant un import CSV
+    private static final int IMPORT_BATCHES_IN_FLIGHT = 8;
+
     private final B2CRepository b2CRepository;
+    private final Executor cpuExecutor;
+    private final Executor ioExecutor;
 
     @Autowired
     private ElasticsearchOperations elasticsearchOperations;
 
     @Autowired
-    public B2CService(B2CRepository b2CRepository) {
+    public B2CService(B2CRepository b2CRepository,
+                      @Qualifier(ExecutorConfig.CPU_EXECUTOR) Executor cpuExecutor,
+                      @Qualifier(ExecutorConfig.IO_EXECUTOR) Executor ioExecutor) {
         this.b2CRepository = b2CRepository;
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
     }
 
     // CRUD operations
@@ -1633,11 +1646,11 @@ public class B2CService {
         ImportResult result = new ImportResult();
         result.setStartTime(System.currentTimeMillis());
 
-        // Création de pools d'exécution séparés pour les différentes tâches
-        ExecutorService conversionExecutor = Executors.newFixedThreadPool(4); // Pour la conversion des lignes
-        ExecutorService persistenceExecutor = Executors.newFixedThreadPool(3); // Pour la persistance des données
+        // Les lots sont convertis sur le pool CPU partagé puis persistés sur le pool I/O partagé
+        BoundedTaskWindow window = new BoundedTaskWindow(IMPORT_BATCHES_IN_FLIGHT);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(file), 16384); // Buffer plus large
+        // Fichier .csv.gz décompressé en flux, détecté sur son contenu
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(CompressedInput.open(file.toPath())), 16384); // Buffer plus large
              CSVReader reader = new CSVReader(br)) {
 
             String[] headers = reader.readNext(); // Lire l'en-tête
@@ -1647,169 +1660,32 @@ public class B2CService {
             // Configuration optimale des batches
             int batchSize = 10000; // Taille optimisée pour Elasticsearch
 
-            // Files d'attente pour le pipeline de traitement
-            BlockingQueue<String[]> lineQueue = new LinkedBlockingQueue<>(5000); // File pour les lignes brutes
-            BlockingQueue<List<B2C>> batchQueue = new LinkedBlockingQueue<>(20); // File pour les lots d'utilisateurs
-
-            // Flag pour indiquer la fin du fichier
-            AtomicBoolean endOfFile = new AtomicBoolean(false);
-
-            // Threads pour la conversion des lignes en objets B2C
-            List<CompletableFuture<Void>> conversionFutures = new ArrayList<>();
-            for (int i = 0; i < 4; i++) {
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                    List<B2C> currentBatch = new ArrayList<>(batchSize);
-                    try {
-                        while (!Thread.currentThread().isInterrupted()) {
-                            String[] line = lineQueue.poll(100, TimeUnit.MILLISECONDS);
-
-                            // Si aucune ligne n'est disponible et que la lecture du fichier est terminée
-                            if (line == null) {
-                                if (endOfFile.get() && lineQueue.isEmpty()) {
-                                    // Envoyer le dernier lot s'il n'est pas vide
-                                    if (!currentBatch.isEmpty()) {
-                                        batchQueue.put(new ArrayList<>(currentBatch));
-                                        currentBatch.clear();
-                                    }
-                                    break;
-                                }
-                                continue;
-                            }
-
-                            try {
-                                // Convertir la ligne en objet B2C
-                                B2C b2C = convertLineToUser(line);
-                                currentBatch.add(b2C);
-
-                                // Si la taille du lot atteint le seuil, on l'ajoute à la file d'attente
-                                if (currentBatch.size() >= batchSize) {
-                                    batchQueue.put(new ArrayList<>(currentBatch));
-                                    currentBatch.clear();
-                                }
-                            } catch (Exception e) {
-                                failedRecords.incrementAndGet();
-                                logger.warn("Erreur lors de la conversion de la ligne: {}", Arrays.toString(line), e);
-                            }
+            try {
+                // Thread de lecture du fichier CSV (producteur)
+                List<String[]> lines = new ArrayList<>(batchSize);
+                String[] line;
+                while ((line = reader.readNext()) != null) {
+                    // Vérifier si la ligne contient suffisamment de colonnes
+                    if (line.length >= 12) {
+                        lines.add(line);
+                        if (lines.size() >= batchSize) {
+                            submitImportBatch(window, lines, totalProcessed, failedRecords, logger);
+                            lines = new ArrayList<>(batchSize);
                         }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
+                    } else {
+                        failedRecords.incrementAndGet();
+                        logger.warn("Ligne ignorée, nombre de colonnes insuffisant: {}", Arrays.toString(line));
                     }
-                }, conversionExecutor);
-
-                conversionFutures.add(future);
-            }
-
-            // Threads pour la persistance des données
-            List<CompletableFuture<Integer>> persistenceFutures = new ArrayList<>();
-            for (int i = 0; i < 3; i++) {
-                CompletableFuture<Integer> future = CompletableFuture.supplyAsync(() -> {
-                    int processed = 0;
-                    try {
-                        while (!Thread.currentThread().isInterrupted()) {
-                            List<B2C> batch = batchQueue.poll(200, TimeUnit.MILLISECONDS);
-
-                            // Si aucun lot n'est disponible et que toutes les conversions sont terminées
-                            if (batch == null) {
-                                boolean allConversionsDone = conversionFutures.stream()
-                                        .allMatch(CompletableFuture::isDone);
-                                if (endOfFile.get() && allConversionsDone && batchQueue.isEmpty()) {
-                                    break;
-                                }
-                                continue;
-                            }
-
-                            try {
-                                // Utiliser ElasticsearchRepository ou BulkRequestBuilder selon votre implémentation
-                                long startSave = System.currentTimeMillis();
-                                b2CRepository.saveAll(batch);
-                                long saveTime = System.currentTimeMillis() - startSave;
-
-                                processed += batch.size();
-                                int currentTotal = totalProcessed.addAndGet(batch.size());
-
-                                // Log détaillé avec performances
-                                if (currentTotal % 1000 == 0) {
-                                    logger.info("Progrès: {} enregistrements traités - dernier lot: {} records en {} ms",
-                                            currentTotal, batch.size(), saveTime);
-                                }
-                            } catch (Exception e) {
-                                logger.error("Erreur lors de l'enregistrement du lot: {}", e.getMessage());
-                                failedRecords.addAndGet(batch.size());
-
-                                // Stratégie avancée de retry avec subdivision des lots
-                                if (batch.size() > 30) {
-                                    // Diviser en 3 parties pour une meilleure granularité
-                                    int partSize = batch.size() / 3;
-                                    batchQueue.put(new ArrayList<>(batch.subList(0, partSize)));
-                                    batchQueue.put(new ArrayList<>(batch.subList(partSize, partSize * 2)));
-                                    batchQueue.put(new ArrayList<>(batch.subList(partSize * 2, batch.size())));
-                                    logger.info("Lot divisé en 3 parties pour retry");
-                                } else if (batch.size() > 5) {
-                                    // Diviser en deux pour les petits lots
-                                    int midPoint = batch.size() / 2;
-                                    batchQueue.put(new ArrayList<>(batch.subList(0, midPoint)));
-                                    batchQueue.put(new ArrayList<>(batch.subList(midPoint, batch.size())));
-                                    logger.info("Lot divisé en 2 parties pour retry");
-                                } else {
-                                    // Traiter individuellement pour les très petits lots
-                                    for (B2C user : batch) {
-                                        try {
-                                            b2CRepository.save(user);
-                                            totalProcessed.incrementAndGet();
-                                            processed++;
-                                        } catch (Exception ex) {
-                                            failedRecords.incrementAndGet();
-                                            logger.error("Échec persistance individuelle: {}", user.getUserId(), ex);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    return processed;
-                }, persistenceExecutor);
-
-                persistenceFutures.add(future);
-            }
-
-            // Thread de lecture du fichier CSV (producteur)
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                // Vérifier si la ligne contient suffisamment de colonnes
-                if (line.length >= 12) {
-                    lineQueue.put(line);
-                } else {
-                    failedRecords.incrementAndGet();
-                    logger.warn("Ligne ignorée, nombre de colonnes insuffisant: {}", Arrays.toString(line));
                 }
+                if (!lines.isEmpty()) {
+                    submitImportBatch(window, lines, totalProcessed, failedRecords, logger);
+                }
+            } finally {
+                // Attendre que tous les lots en vol soient convertis et persistés
+                window.awaitAll();
             }
 
-            // Signaler la fin du fichier
-            endOfFile.set(true);
-
-            // Attendre que toutes les conversions soient terminées
-            CompletableFuture.allOf(conversionFutures.toArray(new CompletableFuture[0])).join();
-
-            // Attendre que toutes les persistances soient terminées
-            CompletableFuture<Void> allPersistencesDone = CompletableFuture.allOf(
-                    persistenceFutures.toArray(new CompletableFuture[0]));
-            allPersistencesDone.join();
-
-            // Récupérer le nombre total d'enregistrements traités avec succès
-            int totalSuccess = persistenceFutures.stream()
-                    .mapToInt(future -> {
-                        try {
-                            return future.get();
-                        } catch (Exception e) {
-                            logger.error("Erreur lors de la récupération des résultats", e);
-                            return 0;
-                        }
-                    })
-                    .sum();
-
-            result.setSuccessCount(totalSuccess);
+            result.setSuccessCount(totalProcessed.get());
             result.setFailedCount(failedRecords.get());
             result.setEndTime(System.currentTimeMillis());
 
@@ -1817,30 +1693,94 @@ public class B2CService {
                     result.getSuccessCount(),
                     result.getFailedCount(),
                     (result.getEndTime() - result.getStartTime()),
-                    (int)(result.getSuccessCount() * 1000.0 / (result.getEndTime() - result.getStartTime())));
+                    (int)(result.getSuccessCount() * 1000.0 / Math.max(1, result.getEndTime() - result.getStartTime())));
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Importation interrompue", e);
+            result.setError(e.getMessage());
         } catch (Exception e) {
             logger.error("Erreur critique pendant l'importation du fichier", e);
             result.setError(e.getMessage());
-        } finally {
-            // Arrêt propre des pools d'exécution
-            shutdownExecutor(conversionExecutor);
-            shutdownExecutor(persistenceExecutor);
         }
 
         return CompletableFuture.completedFuture(result);
     }
 
-    // Méthode pour arrêter les exécuteurs
-    private void shutdownExecutor(ExecutorService executor) {
+    /**
+     * Conversion (pool CPU) puis persistance (pool I/O) d'un lot de lignes
+     */
+    private void submitImportBatch(BoundedTaskWindow window, List<String[]> lines, AtomicInteger totalProcessed,
+                                   AtomicInteger failedRecords, Logger logger) throws InterruptedException {
+        window.submit(() -> CompletableFuture
+                .supplyAsync(() -> {
+                    List<B2C> batch = new ArrayList<>(lines.size());
+                    for (String[] line : lines) {
+                        try {
+                            // Convertir la ligne en objet B2C
+                            batch.add(convertLineToUser(line));
+                        } catch (Exception e) {
+                            failedRecords.incrementAndGet();
+                            logger.warn("Erreur lors de la conversion de la ligne: {}", Arrays.toString(line), e);
+                        }
+                    }
+                    return batch;
+                }, cpuExecutor)
+                .thenAcceptAsync(batch -> persistImportBatch(batch, totalProcessed, failedRecords, logger), ioExecutor)
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        failedRecords.addAndGet(lines.size());
+                        logger.error("Lot de {} lignes en échec: {}", lines.size(), error.getMessage(), error);
+                    }
+                }));
+    }
+
+    /**
+     * Persiste un lot; en cas d'échec le lot est subdivisé puis, pour les très petits lots,
+     * chaque utilisateur est enregistré individuellement. Seuls ces derniers échecs sont comptés.
+     */
+    private void persistImportBatch(List<B2C> batch, AtomicInteger totalProcessed, AtomicInteger failedRecords,
+                                    Logger logger) {
+        if (batch.isEmpty()) {
+            return;
+        }
         try {
-            executor.shutdown();
-            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+            long startSave = System.currentTimeMillis();
+            b2CRepository.saveAll(batch);
+            long saveTime = System.currentTimeMillis() - startSave;
+
+            int currentTotal = totalProcessed.addAndGet(batch.size());
+            logger.info("Progrès: {} enregistrements traités - dernier lot: {} records en {} ms",
+                    currentTotal, batch.size(), saveTime);
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'enregistrement du lot: {}", e.getMessage());
+
+            // Stratégie de retry avec subdivision des lots
+            if (batch.size() > 30) {
+                // Diviser en 3 parties pour une meilleure granularité
+                int partSize = batch.size() / 3;
+                logger.info("Lot divisé en 3 parties pour retry");
+                persistImportBatch(batch.subList(0, partSize), totalProcessed, failedRecords, logger);
+                persistImportBatch(batch.subList(partSize, partSize * 2), totalProcessed, failedRecords, logger);
+                persistImportBatch(batch.subList(partSize * 2, batch.size()), totalProcessed, failedRecords, logger);
+            } else if (batch.size() > 5) {
+                // Diviser en deux pour les petits lots
+                int midPoint = batch.size() / 2;
+                logger.info("Lot divisé en 2 parties pour retry");
+                persistImportBatch(batch.subList(0, midPoint), totalProcessed, failedRecords, logger);
+                persistImportBatch(batch.subList(midPoint, batch.size()), totalProcessed, failedRecords, logger);
+            } else {
+                // Traiter individuellement pour les très petits lots
+                for (B2C user : batch) {
+                    try {
+                        b2CRepository.save(user);
+                        totalProcessed.incrementAndGet();
+                    } catch (Exception ex) {
+                        failedRecords.incrementAndGet();
+                        logger.error("Échec persistance individuelle: {}", user.getUserId(), ex);
+                    }
+                }
             }
-        } catch (InterruptedException e) {
-            executor.shutdownNow();
-            Thread.currentThread().interrupt();
         }
     }
 
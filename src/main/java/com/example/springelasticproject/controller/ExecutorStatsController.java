@@ -0,0 +1,44 @@
+package com.example.springelasticproject.controller;
+
+import com.example.springelasticproject.Config.ExecutorConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * État des pools partagés de traitement de masse: profondeur de file, threads actifs,
+ * attente en file et durée des tâches
+ */
+@RestController
+@RequestMapping("/api/executors")
+@CrossOrigin(origins = "*")
+public class ExecutorStatsController {
+
+    private final ThreadPoolTaskExecutor cpuExecutor;
+    private final ThreadPoolTaskExecutor ioExecutor;
+
+    @Autowired
+    public ExecutorStatsController(@Qualifier(ExecutorConfig.CPU_EXECUTOR) ThreadPoolTaskExecutor cpuExecutor,
+                                   @Qualifier(ExecutorConfig.IO_EXECUTOR) ThreadPoolTaskExecutor ioExecutor) {
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getExecutorStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put(ExecutorConfig.CPU_EXECUTOR, snapshot(cpuExecutor));
+        response.put(ExecutorConfig.IO_EXECUTOR, snapshot(ioExecutor));
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> snapshot(ThreadPoolTaskExecutor executor) {
+        return ((ExecutorConfig.InstrumentedTaskExecutor) executor).getStats().snapshot(executor);
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.springelasticproject.controller.b2bController;
 
-import com.example.springelasticproject.Services.b2bService.B2BScoreServiceFast;
+import com.example.springelasticproject.Services.b2bService.B2BScoreDistribution;
+import com.example.springelasticproject.Services.b2bService.B2BScoreFormula;
+import com.example.springelasticproject.Services.b2bService.B2BScoreJobService;
+import com.example.springelasticproject.Services.b2bService.B2BScorePercentileService;
+import com.example.springelasticproject.Services.b2bService.B2BScoreStreamingService;
 import com.example.springelasticproject.Services.b2bService.B2BService;
 import com.example.springelasticproject.Services.b2bService.ExportB2BService;
 import com.example.springelasticproject.model.b2bModel.B2B;
@@ -15,6 +19,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -26,13 +32,16 @@ public class B2BController {
 
     private final B2BService B2bService;
     private final ExportB2BService exportB2BService;
-    private final B2BScoreServiceFast b2bScoreService;
+    private final B2BScoreJobService b2bScoreJobService;
+    private final B2BScorePercentileService b2bScorePercentileService;
 
     @Autowired
-    public B2BController(B2BService B2bService, ExportB2BService exportB2BService, B2BScoreServiceFast b2bScoreService ) {
+    public B2BController(B2BService B2bService, ExportB2BService exportB2BService, B2BScoreJobService b2bScoreJobService,
+                         B2BScorePercentileService b2bScorePercentileService) {
         this.B2bService = B2bService;
         this.exportB2BService = exportB2BService;
-        this.b2bScoreService = b2bScoreService;
+        this.b2bScoreJobService = b2bScoreJobService;
+        this.b2bScorePercentileService = b2bScorePercentileService;
 
     }
 
@@ -260,10 +269,112 @@ public class B2BController {
         exportB2BService.ExportSearchDataB2BFuzzy(attributes ,response); // méthode modifiée pour retourner une liste
     }
 
+    /**
+     * Lance le recalcul des scores en arrière-plan (202 + jobId), 409 si un passage est déjà en cours.
+     * percentiles=true ajoute à chaque document son rang centile et sa catégorie relative
+     */
     @PostMapping("/updateScores")
-    public ResponseEntity<String> updateScores() {
-        b2bScoreService.calculateAndStoreScores();
-        return ResponseEntity.ok("Scores updated successfully.");
+    public ResponseEntity<Map<String, Object>> updateScores(@RequestParam(defaultValue = "false") boolean delta,
+                                                            @RequestParam(defaultValue = "false") boolean percentiles) {
+        Map<String, Object> response = new HashMap<>();
+        if (delta && percentiles) {
+            response.put("success", false);
+            response.put("message", "Les centiles demandent un passage complet (delta=false)");
+            return ResponseEntity.badRequest().body(response);
+        }
+        B2BScoreStreamingService.ScoringMode mode = percentiles ? B2BScoreStreamingService.ScoringMode.PERCENTILES
+                : delta ? B2BScoreStreamingService.ScoringMode.DELTA : B2BScoreStreamingService.ScoringMode.FULL;
+        try {
+            B2BScoreJobService.ScoreJob job = b2bScoreJobService.submit(mode, "manual");
+            response.put("success", true);
+            response.put("message", "Recalcul des scores lancé");
+            response.putAll(job.toMap());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            b2bScoreJobService.getCurrentJob().ifPresent(job -> response.put("currentJob", job.toMap()));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
+
+    /**
+     * Passage en cours, ou dernier passage exécuté
+     */
+    @GetMapping("/updateScores/status")
+    public ResponseEntity<Map<String, Object>> getScoreUpdateStatus() {
+        Map<String, Object> response = new HashMap<>();
+        Optional<B2BScoreJobService.ScoreJob> job = b2bScoreJobService.getCurrentJob();
+        response.put("success", true);
+        response.put("running", job.map(j -> !j.isFinished()).orElse(false));
+        job.ifPresent(j -> response.put("job", j.toMap()));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/updateScores/jobs")
+    public ResponseEntity<Map<String, Object>> getScoreUpdateHistory() {
+        Map<String, Object> response = new HashMap<>();
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (B2BScoreJobService.ScoreJob job : b2bScoreJobService.getHistory()) {
+            jobs.add(job.toMap());
+        }
+        response.put("success", true);
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/updateScores/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getScoreUpdateJob(@PathVariable String jobId) {
+        return b2bScoreJobService.getJob(jobId)
+                .map(job -> scoreJobResponse(job, null))
+                .orElseGet(() -> scoreJobNotFound(jobId));
+    }
+
+    @DeleteMapping("/updateScores/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelScoreUpdateJob(@PathVariable String jobId) {
+        return b2bScoreJobService.cancel(jobId)
+                .map(job -> scoreJobResponse(job, job.isFinished() ? "Job déjà terminé" : "Annulation demandée"))
+                .orElseGet(() -> scoreJobNotFound(jobId));
+    }
+
+    /**
+     * Rang centile d'un score dans la répartition du dernier passage complet (calcul en O(1))
+     */
+    @GetMapping("/scorePercentile")
+    public ResponseEntity<Map<String, Object>> getScorePercentile(@RequestParam double score) {
+        Map<String, Object> response = new HashMap<>();
+        Optional<B2BScoreDistribution> distribution = b2bScorePercentileService.getCurrent();
+        if (distribution.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Aucune répartition des scores: lancer un recalcul complet");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        // Même valeur que le champ score des documents: un score non tronqué est situé comme son score stocké
+        int storedScore = B2BScoreFormula.storedScore(score);
+        double percentile = distribution.get().percentileOf(storedScore);
+        response.put("success", true);
+        response.put("score", storedScore);
+        response.put("percentile", percentile);
+        response.put("relativeCategory", B2BScoreDistribution.relativeCategory(percentile));
+        response.put("totalScores", distribution.get().getTotal());
+        response.put("computedAt", distribution.get().getComputedAt());
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> scoreJobResponse(B2BScoreJobService.ScoreJob job, String message) {
+        Map<String, Object> response = new HashMap<>(job.toMap());
+        response.put("success", true);
+        if (message != null) {
+            response.put("message", message);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> scoreJobNotFound(String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Job introuvable: " + jobId);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
 }
@@ -1,6 +1,9 @@
 package com.example.springelasticproject.controller.b2bController;
 
+import com.example.springelasticproject.Services.b2bService.B2BIndexBootstrapService;
+import com.example.springelasticproject.util.CompressedInput;
 import com.example.springelasticproject.util.DataImporter;
+import com.example.springelasticproject.util.NdjsonBulkLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,19 +22,36 @@ public class ImportController {
 
     private static final Logger logger = LoggerFactory.getLogger(ImportController.class);
     private final DataImporter dataImporter;
+    private final B2BIndexBootstrapService bootstrapService;
 
     @Autowired
-    public ImportController(DataImporter dataImporter) {
+    public ImportController(DataImporter dataImporter, B2BIndexBootstrapService bootstrapService) {
         this.dataImporter = dataImporter;
+        this.bootstrapService = bootstrapService;
+    }
+
+    /**
+     * État du chargement initial de l'index (attente d'Elasticsearch, import, prêt) et avancement
+     * @return 200 une fois l'index prêt, 503 pendant le chargement
+     */
+    @GetMapping("/bootstrap")
+    public ResponseEntity<Map<String, Object>> getBootstrapStatus() {
+        Map<String, Object> response = new HashMap<>();
+        boolean ready = bootstrapService.isReady();
+        response.put("status", ready ? "ready" : "warming");
+        response.put("bootstrap", bootstrapService.toMap());
+        return new ResponseEntity<>(response, ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
     }
 
     /**
      * Endpoint pour importer des données NDJSON depuis un dossier spécifié
      * @param path Chemin vers le dossier contenant les fichiers NDJSON
+     * @param resume Reprend l'import interrompu du dossier au lieu de repartir de zéro
      * @return Résultat de l'importation
      */
     @PostMapping("/directory")
-    public ResponseEntity<Map<String, Object>> importFromDirectory(@RequestParam String path) {
+    public ResponseEntity<Map<String, Object>> importFromDirectory(@RequestParam String path,
+                                                                   @RequestParam(defaultValue = "false") boolean resume) {
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -44,13 +64,16 @@ public class ImportController {
             }
 
             long startTime = System.currentTimeMillis();
-            dataImporter.importDataFromDirectory(path);
+            NdjsonBulkLoader.DirectoryStats stats = dataImporter.importDataFromDirectory(path, resume);
             long endTime = System.currentTimeMillis();
 
             response.put("status", "success");
             response.put("message", "Importation des données terminée");
             response.put("directory", path);
+            response.put("resumed", resume);
             response.put("executionTimeMs", endTime - startTime);
+            // Totaux et détail par fichier (documents, erreurs, durée, débit)
+            response.putAll(stats.toMap());
 
             return new ResponseEntity<>(response, HttpStatus.OK);
         } catch (Exception e) {
@@ -77,12 +100,12 @@ public class ImportController {
             return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
         }
 
-        return importFromDirectory(directoryPath);
+        return importFromDirectory(directoryPath, Boolean.parseBoolean(request.get("resume")));
     }
 
     /**
      * Endpoint pour importer un fichier NDJSON spécifique
-     * @param path Chemin vers le fichier NDJSON
+     * @param path Chemin vers le fichier NDJSON, éventuellement compressé (.ndjson.gz)
      * @return Résultat de l'importation
      */
     @PostMapping("/file")
@@ -92,20 +115,23 @@ public class ImportController {
         try {
             File file = new File(path);
 
-            if (!file.exists() || !file.isFile() || !file.getName().toLowerCase().endsWith(".ndjson")) {
+            if (!file.exists() || !file.isFile() || !CompressedInput.hasExtension(file.getName(), ".ndjson")) {
                 response.put("status", "error");
                 response.put("message", "Le chemin spécifié n'est pas un fichier NDJSON valide: " + path);
                 return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
             }
 
             long startTime = System.currentTimeMillis();
-            int importedCount = dataImporter.importDataFromNDJsonFile(path).size();
+            NdjsonBulkLoader.LoadStats stats = dataImporter.importDataFromNDJsonFile(path);
             long endTime = System.currentTimeMillis();
 
             response.put("status", "success");
             response.put("message", "Importation du fichier terminée");
             response.put("file", path);
-            response.put("importedCount", importedCount);
+            response.put("importedCount", stats.getIndexed());
+            response.put("parseErrors", stats.getParseErrors());
+            response.put("indexFailures", stats.getIndexFailures());
+            response.put("rejected", stats.getRejected());
             response.put("executionTimeMs", endTime - startTime);
 
             return new ResponseEntity<>(response, HttpStatus.OK);
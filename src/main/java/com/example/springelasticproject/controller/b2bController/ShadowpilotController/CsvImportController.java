@@ -1,7 +1,9 @@
 package com.example.springelasticproject.controller.b2bController.ShadowpilotController;
 
+import com.example.springelasticproject.Services.b2bService.ShadowPilotServices.CsvImportJobService;
 import com.example.springelasticproject.Services.b2bService.ShadowPilotServices.CsvImportService;
 import com.example.springelasticproject.Services.b2bService.ShadowPilotServices.ShadowPilotService;
+import com.example.springelasticproject.util.CompressedInput;
 import com.opencsv.exceptions.CsvException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +15,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Contrôleur REST pour l'importation de données CSV ShadowPilot
@@ -31,18 +35,25 @@ public class CsvImportController {
     @Autowired
     private ShadowPilotService businessReviewService;
 
+    @Autowired
+    private CsvImportJobService csvImportJobService;
+
     /**
-     * Endpoint pour importer un fichier CSV via upload
+     * Endpoint pour importer un fichier CSV via upload (.csv ou .csv.gz, décompressé en flux)
      * POST /api/shadowpilot/import/upload
+     * Avec async=true le fichier est mis en file et un identifiant de job est renvoyé (202)
      */
     @PostMapping("/upload")
     public ResponseEntity<Map<String, Object>> importCsvFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("category") String category,
-            @RequestParam("subcategory") String subcategory) {
+            @RequestParam("subcategory") String subcategory,
+            @RequestParam(value = "parallel", defaultValue = "false") boolean parallel,
+            @RequestParam(value = "async", defaultValue = "false") boolean async,
+            @RequestParam(value = "skipUnchanged", required = false) Boolean skipUnchanged) {
 
-        logger.info("Début de l'importation du fichier: {} avec category: {}, subcategory: {}",
-                file.getOriginalFilename(), category, subcategory);
+        logger.info("Début de l'importation du fichier: {} avec category: {}, subcategory: {} (parallèle: {})",
+                file.getOriginalFilename(), category, subcategory, parallel);
 
         Map<String, Object> response = new HashMap<>();
 
@@ -54,9 +65,9 @@ public class CsvImportController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            if (!file.getOriginalFilename().toLowerCase().endsWith(".csv")) {
+            if (!CompressedInput.hasExtension(file.getOriginalFilename(), ".csv")) {
                 response.put("success", false);
-                response.put("message", "Seuls les fichiers CSV sont acceptés");
+                response.put("message", "Seuls les fichiers CSV (.csv ou .csv.gz) sont acceptés");
                 return ResponseEntity.badRequest().body(response);
             }
 
@@ -73,12 +84,28 @@ public class CsvImportController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // 🔧 Importation avec les nouveaux paramètres
-            CsvImportService.ImportResult result = csvImportService.importCsvFile(
-                    file,
-                    category,
-                    subcategory
-            );
+            // 🆕 Import asynchrone: le fichier est recopié sur disque et traité en arrière-plan
+            if (async) {
+                CsvImportJobService.ImportJob job = csvImportJobService.submit(file, category, subcategory, parallel, skipUnchanged);
+                response.put("success", true);
+                response.put("message", "Import mis en file");
+                response.put("jobId", job.getId());
+                response.put("statusUrl", "/api/shadowpilot/import/jobs/" + job.getId());
+                response.put("job", createJobMap(job));
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
+
+            // 🔧 Importation avec les nouveaux paramètres (pipeline multi-cœurs si demandé)
+            // 🆕 skipUnchanged: les documents dont l'empreinte n'a pas changé ne sont pas réécrits
+            CsvImportService.ImportResult result = csvImportService.createResult(file.getOriginalFilename(), category, subcategory);
+            if (skipUnchanged != null) {
+                result.setSkipUnchanged(skipUnchanged);
+            }
+            if (parallel) {
+                csvImportService.importCsvFileParallel(file.getInputStream(), result);
+            } else {
+                csvImportService.importCsvFile(file.getInputStream(), result);
+            }
 
             // Préparation de la réponse enrichie
             response.put("success", true);
@@ -114,6 +141,65 @@ public class CsvImportController {
      */
 
 
+    /**
+     * Liste des jobs d'import asynchrones
+     * GET /api/shadowpilot/import/jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getImportJobs() {
+        List<Map<String, Object>> jobs = csvImportJobService.getJobs().stream()
+                .map(this::createJobMap)
+                .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", jobs);
+        response.put("count", jobs.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Avancement d'un job d'import: lignes/s, pourcentage, erreurs et temps restant estimé
+     * GET /api/shadowpilot/import/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        return csvImportJobService.getJob(jobId)
+                .map(job -> {
+                    response.put("success", true);
+                    response.put("job", createJobMap(job));
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> {
+                    response.put("success", false);
+                    response.put("message", "Job introuvable: " + jobId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                });
+    }
+
+    /**
+     * Annulation d'un job d'import
+     * DELETE /api/shadowpilot/import/jobs/{jobId}
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelImportJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        return csvImportJobService.cancel(jobId)
+                .map(job -> {
+                    response.put("success", true);
+                    response.put("message", job.isFinished() && job.getStatus() != CsvImportJobService.JobStatus.CANCELLED
+                            ? "Job déjà terminé" : "Annulation demandée");
+                    response.put("job", createJobMap(job));
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> {
+                    response.put("success", false);
+                    response.put("message", "Job introuvable: " + jobId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                });
+    }
+
     /**
      * Endpoint pour obtenir les statistiques d'importation
      * GET /api/shadowpilot/import/stats
@@ -226,6 +312,37 @@ public class CsvImportController {
         }
     }
 
+    /**
+     * Crée une map pour l'état d'un job d'import
+     */
+    private Map<String, Object> createJobMap(CsvImportJobService.ImportJob job) {
+        CsvImportService.ImportResult result = job.getResult();
+        Map<String, Object> jobMap = new HashMap<>();
+        jobMap.put("jobId", job.getId());
+        jobMap.put("status", job.getStatus());
+        jobMap.put("fileName", job.getFileName());
+        jobMap.put("category", result.getCategory());
+        jobMap.put("subcategory", result.getSubcategory());
+        jobMap.put("parallel", job.isParallel());
+        jobMap.put("submittedAt", job.getSubmittedAt());
+        jobMap.put("fileSize", job.getFileSize());
+        jobMap.put("bytesRead", job.getBytesRead());
+        jobMap.put("percentDone", Math.round(job.getPercentDone() * 100.0) / 100.0);
+        jobMap.put("rowsPerSecond", Math.round(job.getRowsPerSecond() * 100.0) / 100.0);
+        jobMap.put("elapsedSeconds", Math.round(job.getElapsedSeconds()));
+        jobMap.put("etaSeconds", job.getEtaSeconds());
+        jobMap.put("totalRows", result.getTotalRows());
+        jobMap.put("successCount", result.getSuccessCount());
+        jobMap.put("errorCount", result.getErrorCount());
+        jobMap.put("unchangedCount", result.getUnchangedCount());
+        List<String> errors = result.getErrors();
+        jobMap.put("errors", errors.size() > 10 ? errors.subList(0, 10) : errors);
+        if (job.getFailureMessage() != null) {
+            jobMap.put("failureMessage", job.getFailureMessage());
+        }
+        return jobMap;
+    }
+
     /**
      * Crée une map pour le résultat d'importation
      */
@@ -237,6 +354,7 @@ public class CsvImportController {
         resultMap.put("totalRows", result.getTotalRows());
         resultMap.put("successCount", result.getSuccessCount());
         resultMap.put("errorCount", result.getErrorCount());
+        resultMap.put("unchangedCount", result.getUnchangedCount());
         resultMap.put("durationSeconds", result.getDurationInSeconds());
         resultMap.put("errors", result.getErrors().size() > 10 ?
                 result.getErrors().subList(0, 10) : result.getErrors()); // Limite à 10 erreurs pour la réponse
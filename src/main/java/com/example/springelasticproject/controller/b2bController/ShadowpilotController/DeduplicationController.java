@@ -5,6 +5,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.springelasticproject.Services.b2bService.ShadowPilotServices.ShadowPilotDeduplicationEngine;
+import com.example.springelasticproject.Services.b2bService.ShadowPilotServices.ShadowPilotNearDuplicateEngine;
+
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -12,11 +16,14 @@ import java.util.Map;
 public class DeduplicationController {
 
     private final ShadowPilotServiceDupliquer shadowPilotService;
+    private final ShadowPilotNearDuplicateEngine nearDuplicateEngine;
 
 
     @Autowired
-    public DeduplicationController(ShadowPilotServiceDupliquer shadowPilotService) {
+    public DeduplicationController(ShadowPilotServiceDupliquer shadowPilotService,
+                                   ShadowPilotNearDuplicateEngine nearDuplicateEngine) {
         this.shadowPilotService = shadowPilotService;
+        this.nearDuplicateEngine = nearDuplicateEngine;
     }
 
     /**
@@ -25,13 +32,85 @@ public class DeduplicationController {
     @DeleteMapping("/remove-duplicates")
     public ResponseEntity<String> removeDuplicateCompanies() {
         try {
-            shadowPilotService.removeDuplicateCompanies();
-            return ResponseEntity.ok("✔ Opération de suppression des doublons terminée.");
+            ShadowPilotDeduplicationEngine.DeduplicationReport report = shadowPilotService.removeDuplicateCompanies();
+            return ResponseEntity.ok("✔ Opération de suppression des doublons terminée: "
+                    + report.getDocumentsDeleted() + " documents supprimés.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("❌ Erreur lors de la suppression des doublons : " + e.getMessage());
         }
     }
 
+    /**
+     * Simulation: nombre de doublons et de documents qui seraient supprimés, avec un échantillon.
+     */
+    @GetMapping("/report")
+    public ResponseEntity<Map<String, Object>> duplicatesReport() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ShadowPilotDeduplicationEngine.DeduplicationReport report = shadowPilotService.previewDuplicateCompanies();
+            response.put("success", true);
+            response.put("dryRun", report.isDryRun());
+            response.put("keysScanned", report.getKeysScanned());
+            response.put("duplicateKeys", report.getDuplicateKeys());
+            response.put("documentsToDelete", report.getDocumentsToDelete());
+            response.put("durationMs", report.getDurationMs());
+            response.put("sample", report.getSample());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "❌ Erreur lors de l'analyse des doublons : " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Quasi-doublons (MinHash / LSH sur nom, domaine et adresse) avec leur similarité estimée.
+     */
+    @GetMapping("/near-duplicates")
+    public ResponseEntity<Map<String, Object>> nearDuplicates(
+            @RequestParam(value = "threshold", defaultValue = "0.7") double threshold,
+            @RequestParam(value = "maxClusters", defaultValue = "100") int maxClusters) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ShadowPilotNearDuplicateEngine.NearDuplicateReport report =
+                    nearDuplicateEngine.findClusters(threshold, Math.max(0, maxClusters));
+            response.put("success", true);
+            response.put("threshold", report.getThreshold());
+            response.put("documentsScanned", report.getDocumentsScanned());
+            response.put("comparisons", report.getComparisons());
+            response.put("clusterCount", report.getClusterCount());
+            response.put("documentsInClusters", report.getDocumentsInClusters());
+            response.put("documentsToDelete", report.getDocumentsToDelete());
+            response.put("durationMs", report.getDurationMs());
+            response.put("clusters", report.getClusters());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "❌ Erreur lors de la recherche des quasi-doublons : " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
 
-}
\ No newline at end of file
+    /**
+     * Supprime les quasi-doublons: seul le représentant de chaque cluster est gardé.
+     */
+    @DeleteMapping("/near-duplicates")
+    public ResponseEntity<Map<String, Object>> removeNearDuplicates(
+            @RequestParam(value = "threshold", defaultValue = "0.7") double threshold) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ShadowPilotDeduplicationEngine.DeduplicationReport report = nearDuplicateEngine.deleteClusters(threshold);
+            response.put("success", true);
+            response.put("threshold", threshold);
+            response.put("documentsToDelete", report.getDocumentsToDelete());
+            response.put("documentsDeleted", report.getDocumentsDeleted());
+            response.put("deleteFailures", report.getDeleteFailures());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "❌ Erreur lors de la suppression des quasi-doublons : " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
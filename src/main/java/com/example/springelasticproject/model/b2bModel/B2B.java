@@ -9,7 +9,8 @@ import org.springframework.data.elasticsearch.annotations.GeoPointField;
 import java.util.List;
 import java.util.Map;
 //@Document(indexName = "repairshops")
-@Document(indexName = "b2b")
+// Index créé par le chargement initial (B2BIndexBootstrapService), pas au démarrage du dépôt
+@Document(indexName = "b2b", createIndex = false)
 public class B2B {
 
     @Id
@@ -172,6 +173,14 @@ public class B2B {
     private Integer score;
     @Field(type = FieldType.Text)
     private String scoreCategory;
+    // Empreinte des entrées du dernier score calculé (voir B2BScoreServiceFast.scoreFingerprint)
+    @Field(type = FieldType.Keyword)
+    private String scoreFingerprint;
+    // Position du score dans la répartition globale (voir B2BScoreDistribution)
+    @Field(type = FieldType.Double)
+    private Double scorePercentile;
+    @Field(type = FieldType.Keyword)
+    private String scoreRelativeCategory;
 
     // Getters et setters
     public String getPlaceId() {
@@ -579,4 +588,25 @@ public class B2B {
     public void setScoreCategory(String scoreCategory) {
         this.scoreCategory = scoreCategory;
     }
+    public String getScoreFingerprint() {
+        return scoreFingerprint;
+    }
+
+    public void setScoreFingerprint(String scoreFingerprint) {
+        this.scoreFingerprint = scoreFingerprint;
+    }
+    public Double getScorePercentile() {
+        return scorePercentile;
+    }
+
+    public void setScorePercentile(Double scorePercentile) {
+        this.scorePercentile = scorePercentile;
+    }
+    public String getScoreRelativeCategory() {
+        return scoreRelativeCategory;
+    }
+
+    public void setScoreRelativeCategory(String scoreRelativeCategory) {
+        this.scoreRelativeCategory = scoreRelativeCategory;
+    }
 }
\ No newline at end of file
@@ -24,7 +24,7 @@ import java.util.Map;
  * 3. Gestion correcte des collections nulles
  * 4. Validation des contraintes
  */
-@Document(indexName = "shadowpilot") // ✅ CORRIGÉ: minuscules obligatoires
+@Document(indexName = "shadowpilot", createIndex = false) // ✅ CORRIGÉ: minuscules obligatoires; index créé par B2BIndexBootstrapService
 public class ShadowPilot {
 
     @Id
@@ -37,6 +37,12 @@ public class ShadowPilot {
     @Field(type = FieldType.Text, analyzer = "standard")
     private String name;
 
+    /**
+     * Nom normalisé (minuscules, sans espaces de bord) utilisé comme clé de dédoublonnage
+     */
+    @Field(type = FieldType.Keyword)
+    private String nameKey;
+
     @Field(type = FieldType.Text, analyzer = "standard")
     private String category;
     @Field(type = FieldType.Text, analyzer = "standard")
@@ -107,6 +113,12 @@ public class ShadowPilot {
     @Field(type = FieldType.Nested)
     private List<Map<String, Object>> similarCompanies = new ArrayList<>(); // ✅ CORRIGÉ: initialisation directe
 
+    /**
+     * Empreinte SHA-256 du contenu (hors id), pour ne pas réécrire un document inchangé lors d'un ré-import
+     */
+    @Field(type = FieldType.Keyword, index = false)
+    private String contentHash;
+
     // ===== CONSTRUCTEURS =====
 
     public ShadowPilot() {
@@ -243,6 +255,22 @@ public class ShadowPilot {
         this.similarCompanies = similarCompanies != null ? similarCompanies : new ArrayList<>(); // ✅ CORRIGÉ: protection null
     }
 
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    public void setNameKey(String nameKey) {
+        this.nameKey = nameKey;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public String getCategory() {
         return category;
     }
@@ -7,7 +7,8 @@ import org.springframework.data.elasticsearch.annotations.FieldType;
 
 
 
-@Document(indexName = "users", createIndex = true)
+// Index créé par le chargement initial (B2BIndexBootstrapService), pas au démarrage du dépôt
+@Document(indexName = "users", createIndex = false)
 public class B2C {
 
     @Id
@@ -0,0 +1,47 @@
+package com.example.springelasticproject.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Limite le nombre de tâches en vol d'un traitement soumis à un pool partagé.
+ *
+ * Le producteur (lecture de fichier) bloque dans {@link #submit} tant que la fenêtre est pleine:
+ * la mémoire reste bornée sans workers dédiés qui attendent sur des files.
+ */
+public final class BoundedTaskWindow {
+
+    private final int size;
+    private final Semaphore permits;
+
+    public BoundedTaskWindow(int size) {
+        this.size = Math.max(1, size);
+        this.permits = new Semaphore(this.size);
+    }
+
+    /**
+     * Attend une place libre puis lance la chaîne de tâches construite par {@code task};
+     * la place est rendue quand la chaîne se termine, en succès comme en échec
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> task) throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.whenComplete((value, error) -> permits.release());
+        return future;
+    }
+
+    /**
+     * Attend la fin de toutes les tâches lancées
+     */
+    public void awaitAll() throws InterruptedException {
+        permits.acquire(size);
+        permits.release(size);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.springelasticproject.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fichiers d'import compressés (.ndjson.gz, .csv.gz): sélection par le nom, détection par la
+ * signature gzip et décompression en flux, sans fichier décompressé intermédiaire sur disque.
+ */
+public final class CompressedInput {
+
+    public static final String GZIP_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Vrai si le nom se termine par l'extension donnée, compressée ou non (".csv" accepte x.csv et x.csv.gz)
+     */
+    public static boolean hasExtension(String fileName, String extension) {
+        if (fileName == null) {
+            return false;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        String expected = extension.toLowerCase(Locale.ROOT);
+        return name.endsWith(expected) || name.endsWith(expected + GZIP_EXTENSION);
+    }
+
+    public static boolean hasExtension(Path file, String extension) {
+        return hasExtension(file.getFileName().toString(), extension);
+    }
+
+    /**
+     * Vrai si le fichier commence par la signature gzip, quel que soit son nom
+     */
+    public static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return isGzipMagic(in.read(), in.read());
+        }
+    }
+
+    /**
+     * Ouvre un fichier et le décompresse à la lecture s'il est compressé
+     */
+    public static InputStream open(Path file) throws IOException {
+        return decompress(Files.newInputStream(file));
+    }
+
+    /**
+     * Décompresse le flux s'il commence par la signature gzip, le rend tel quel (bufferisé) sinon.
+     * La détection se fait sur le contenu: un upload mal nommé est lu correctement.
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (isGzipMagic(first, second)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    private static boolean isGzipMagic(int first, int second) {
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    }
+}
@@ -7,6 +7,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
  * - Catégorisation automatique des colonnes
  * - Gestion robuste des types de données
  * - Validation complète des données
+ * - Plan de transformation compilé une fois par en-tête (aucune regex par ligne)
  */
 @Component
 public class CsvToBusinessReviewTransformer {
@@ -31,6 +33,16 @@ public class CsvToBusinessReviewTransformer {
     private static final Pattern STAR_RATING_PATTERN = Pattern.compile("^star_rating(?:s|_percentages)_(.+)$");
     private static final Pattern SIMILAR_COMPANY_PATTERN = Pattern.compile("^similar_companies_(\\d+)_(.+)$");
 
+    // Formats de date couramment utilisés (compilés une seule fois)
+    private static final DateTimeFormatter[] DATE_FORMATTERS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy")
+    };
+
     // Colonnes de base à traiter directement
     private static final Set<String> DIRECT_FIELDS = Set.of(
             "name", "address", "domain", "phone", "email", "website"
@@ -51,285 +63,257 @@ public class CsvToBusinessReviewTransformer {
             "trustpilot_domain", "logo_url", "num_reviews", "reviews", "scrape_timestamp"
     );
 
+    // Dernier plan compilé: les lignes d'un même fichier partagent le même en-tête
+    private volatile TransformationPlan cachedPlan;
+
     /**
      * Transforme une ligne CSV (Map) en FlexibleBusinessReview avec import de toutes les colonnes
+     * Le plan de transformation est compilé une fois par en-tête puis réutilisé
      */
     public ShadowPilot transformCsvRow(Map<String, String> csvRow) {
-        ShadowPilot business = new ShadowPilot();
+        TransformationPlan plan = planFor(csvRow.keySet());
+        String[] values = new String[plan.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = csvRow.get(plan.rules[i].column);
+        }
+        return transformCsvRow(plan, values);
+    }
 
-        // ===== TRAITEMENT DYNAMIQUE DE TOUTES LES COLONNES =====
-        Set<String> processedColumns = new HashSet<>();
+    /**
+     * Transforme une ligne dont les valeurs sont alignées sur les colonnes du plan (ordre de l'en-tête)
+     */
+    public ShadowPilot transformCsvRow(TransformationPlan plan, String[] values) {
+        ShadowPilot business = new ShadowPilot();
 
-        // 1. Traiter les champs directs
-        extractDirectFields(csvRow, business, processedColumns);
+        Map<String, Object> businessMetrics = new HashMap<>();
+        Map<String, Object> socialMedia = new HashMap<>();
+        Map<String, Object> sentimentDistribution = new HashMap<>();
+        Map<String, Object> starRatings = new HashMap<>();
+        Map<String, Object>[] enhancedReviews = newSlots(plan.enhancedReviewSlots);
+        Map<String, Object>[] fiveStarReviews = newSlots(plan.fiveStarReviewSlots);
+        Map<String, Object>[] oneStarReviews = newSlots(plan.oneStarReviewSlots);
+        Map<String, Object>[] similarCompanies = newSlots(plan.similarCompanySlots);
+
+        int count = Math.min(values.length, plan.rules.length);
+        for (int i = 0; i < count; i++) {
+            ColumnRule rule = plan.rules[i];
+            String value = values[i];
+
+            switch (rule.target) {
+                case DIRECT -> setDirectField(business, rule.key, value);
+                case BUSINESS_METRIC, REMAINING -> putIfNotEmpty(businessMetrics, rule.key, parse(rule.parser, value));
+                case SOCIAL_MEDIA -> putIfNotEmpty(socialMedia, rule.key, parse(rule.parser, value));
+                case ENHANCED_REVIEW -> putIfNotEmpty(enhancedReviews[rule.slot], rule.key, parse(rule.parser, value));
+                case FIVE_STAR_REVIEW -> putIfNotEmpty(fiveStarReviews[rule.slot], rule.key, parse(rule.parser, value));
+                case ONE_STAR_REVIEW -> putIfNotEmpty(oneStarReviews[rule.slot], rule.key, parse(rule.parser, value));
+                case SENTIMENT -> putIfNotEmpty(sentimentDistribution, rule.key, parse(rule.parser, value));
+                case STAR_RATING -> putIfNotEmpty(starRatings, rule.key, value);
+                case SIMILAR_COMPANY -> putIfNotEmpty(similarCompanies[rule.slot], rule.key, value);
+            }
+        }
 
-        // 2. Traiter les métriques business (avec toutes les colonnes restantes)
-        Map<String, Object> businessMetrics = extractAllBusinessMetrics(csvRow, processedColumns);
         business.setBusinessMetrics(businessMetrics);
-
-        // 3. Traiter les réseaux sociaux
-        Map<String, Object> socialMedia = extractSocialMedia(csvRow, processedColumns);
         business.setSocialMedia(socialMedia);
-
-        // 4. Traiter tous les types d'avis
-        business.setEnhancedReviews(extractReviewsByPattern(csvRow, ENHANCED_REVIEW_PATTERN, processedColumns));
-        business.setFiveStarReviews(extractReviewsByPattern(csvRow, FIVE_STAR_REVIEW_PATTERN, processedColumns));
-        business.setOneStarReviews(extractReviewsByPattern(csvRow, ONE_STAR_REVIEW_PATTERN, processedColumns));
-
-        // 5. Traiter la distribution des sentiments
-        Map<String, Object> sentimentDistribution = extractSentimentDistribution(csvRow, processedColumns);
+        business.setEnhancedReviews(nonEmpty(enhancedReviews));
+        business.setFiveStarReviews(nonEmpty(fiveStarReviews));
+        business.setOneStarReviews(nonEmpty(oneStarReviews));
         business.setSentimentDistribution(sentimentDistribution);
-
-        // 6. Traiter les évaluations par étoiles
-        Map<String, Object> starRatings = extractStarRatings(csvRow, processedColumns);
         business.setStarRatings(starRatings);
-
-        // 7. Traiter les entreprises similaires
-        List<Map<String, Object>> similarCompanies = extractSimilarCompanies(csvRow, processedColumns);
-        business.setSimilarCompanies(similarCompanies);
-
-        // 8. Traiter les colonnes non catégorisées (les ajouter aux business metrics)
-        extractRemainingColumns(csvRow, processedColumns, businessMetrics);
+        business.setSimilarCompanies(nonEmpty(similarCompanies));
 
         return business;
     }
 
     /**
-     * Extrait les champs directs
-     */
-    private void extractDirectFields(Map<String, String> csvRow, ShadowPilot business,
-                                     Set<String> processedColumns) {
-        business.setName(csvRow.get("name"));
-        business.setAddress(csvRow.get("address"));
-        business.setDomain(csvRow.get("domain"));
-        business.setPhone(csvRow.get("phone"));
-        business.setEmail(csvRow.get("email"));
-        business.setWebsite(csvRow.get("website"));
-
-        processedColumns.addAll(DIRECT_FIELDS);
-    }
-
-    /**
-     * Extrait toutes les métriques business de manière dynamique
+     * Plan de transformation pour un ensemble de colonnes (compilé ou repris du cache)
      */
-    private Map<String, Object> extractAllBusinessMetrics(Map<String, String> csvRow,
-                                                          Set<String> processedColumns) {
-        Map<String, Object> metrics = new HashMap<>();
-
-        // Traiter toutes les colonnes de métriques définies
-        for (String field : BUSINESS_METRIC_FIELDS) {
-            if (csvRow.containsKey(field)) {
-                Object value = parseValueByFieldName(field, csvRow.get(field));
-                putIfNotEmpty(metrics, field, value);
-                processedColumns.add(field);
-            }
+    public TransformationPlan planFor(Collection<String> columns) {
+        TransformationPlan plan = cachedPlan;
+        if (plan == null || !plan.matches(columns)) {
+            plan = compilePlan(columns);
+            cachedPlan = plan;
         }
-
-        return metrics;
+        return plan;
     }
 
     /**
-     * Extrait les données de réseaux sociaux
+     * Compile le plan: pour chaque colonne, structure cible, index de l'élément et parser.
+     * Toute la classification par patterns a lieu ici, une seule fois par en-tête.
      */
-    private Map<String, Object> extractSocialMedia(Map<String, String> csvRow,
-                                                   Set<String> processedColumns) {
-        Map<String, Object> socialMedia = new HashMap<>();
-
-        for (String field : SOCIAL_MEDIA_FIELDS) {
-            if (csvRow.containsKey(field)) {
-                Object value = parseValueByFieldName(field, csvRow.get(field));
-                putIfNotEmpty(socialMedia, field, value);
-                processedColumns.add(field);
-            }
+    public TransformationPlan compilePlan(Collection<String> columns) {
+        List<ColumnRule> rules = new ArrayList<>(columns.size());
+        SlotAllocator enhanced = new SlotAllocator();
+        SlotAllocator fiveStar = new SlotAllocator();
+        SlotAllocator oneStar = new SlotAllocator();
+        SlotAllocator similar = new SlotAllocator();
+
+        for (String column : columns) {
+            rules.add(classifyColumn(column, enhanced, fiveStar, oneStar, similar));
         }
 
-        return socialMedia;
-    }
-
-    /**
-     * Extrait les avis selon un pattern donné
-     */
-    private List<Map<String, Object>> extractReviewsByPattern(Map<String, String> csvRow,
-                                                              Pattern pattern,
-                                                              Set<String> processedColumns) {
-        Map<Integer, Map<String, Object>> reviewsMap = new HashMap<>();
-
-        for (Map.Entry<String, String> entry : csvRow.entrySet()) {
-            String columnName = entry.getKey();
-            var matcher = pattern.matcher(columnName);
-
-            if (matcher.matches()) {
-                int reviewIndex = Integer.parseInt(matcher.group(1));
-                String fieldName = matcher.group(2);
-                String value = entry.getValue();
-
-                reviewsMap.computeIfAbsent(reviewIndex, k -> new HashMap<>());
-
-                Object parsedValue = parseReviewField(fieldName, value);
-                putIfNotEmpty(reviewsMap.get(reviewIndex), fieldName, parsedValue);
-
-                processedColumns.add(columnName);
+        // Les slots suivent l'ordre croissant des numéros (review_1, review_2, ...)
+        for (ColumnRule rule : rules) {
+            switch (rule.target) {
+                case ENHANCED_REVIEW -> rule.slot = enhanced.slotOf(rule.number);
+                case FIVE_STAR_REVIEW -> rule.slot = fiveStar.slotOf(rule.number);
+                case ONE_STAR_REVIEW -> rule.slot = oneStar.slotOf(rule.number);
+                case SIMILAR_COMPANY -> rule.slot = similar.slotOf(rule.number);
+                default -> { }
             }
         }
 
-        // Convertir en liste ordonnée et filtrer les avis vides
-        return reviewsMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(Map.Entry::getValue)
-                .filter(review -> !review.isEmpty())
-                .collect(Collectors.toList());
+        return new TransformationPlan(rules.toArray(new ColumnRule[0]),
+                enhanced.size(), fiveStar.size(), oneStar.size(), similar.size());
     }
 
-    /**
-     * Extrait la distribution des sentiments de manière dynamique
-     */
-    private Map<String, Object> extractSentimentDistribution(Map<String, String> csvRow,
-                                                             Set<String> processedColumns) {
-        Map<String, Object> sentiment = new HashMap<>();
+    private ColumnRule classifyColumn(String column, SlotAllocator enhanced, SlotAllocator fiveStar,
+                                      SlotAllocator oneStar, SlotAllocator similar) {
+        if (DIRECT_FIELDS.contains(column)) {
+            return new ColumnRule(column, Target.DIRECT, column, ValueParser.TEXT, 0);
+        }
+        if (BUSINESS_METRIC_FIELDS.contains(column)) {
+            return new ColumnRule(column, Target.BUSINESS_METRIC, column, parserForField(column), 0);
+        }
+        if (SOCIAL_MEDIA_FIELDS.contains(column)) {
+            return new ColumnRule(column, Target.SOCIAL_MEDIA, column, parserForField(column), 0);
+        }
 
-        for (Map.Entry<String, String> entry : csvRow.entrySet()) {
-            String columnName = entry.getKey();
-            var matcher = SENTIMENT_PATTERN.matcher(columnName);
+        Matcher matcher = ENHANCED_REVIEW_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            return reviewRule(column, Target.ENHANCED_REVIEW, matcher, enhanced);
+        }
+        matcher = FIVE_STAR_REVIEW_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            return reviewRule(column, Target.FIVE_STAR_REVIEW, matcher, fiveStar);
+        }
+        matcher = ONE_STAR_REVIEW_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            return reviewRule(column, Target.ONE_STAR_REVIEW, matcher, oneStar);
+        }
 
-            if (matcher.matches()) {
-                String starLevel = matcher.group(1);
-                String metricType = matcher.group(2);
-                String value = entry.getValue();
+        matcher = SENTIMENT_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            String metricType = matcher.group(2);
+            return new ColumnRule(column, Target.SENTIMENT, matcher.group(1) + "_star_" + metricType,
+                    parserForField(metricType), 0);
+        }
 
-                String key = starLevel + "_star_" + metricType;
-                Object parsedValue = parseValueByFieldName(metricType, value);
-                putIfNotEmpty(sentiment, key, parsedValue);
+        matcher = STAR_RATING_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            String key = column.contains("percentages") ? "percentages_" + matcher.group(1) : "ratings_" + matcher.group(1);
+            return new ColumnRule(column, Target.STAR_RATING, key, ValueParser.TEXT, 0);
+        }
 
-                processedColumns.add(columnName);
-            }
+        matcher = SIMILAR_COMPANY_PATTERN.matcher(column);
+        if (matcher.matches()) {
+            int number = Integer.parseInt(matcher.group(1));
+            similar.register(number);
+            return new ColumnRule(column, Target.SIMILAR_COMPANY, matcher.group(2), ValueParser.TEXT, number);
         }
 
-        return sentiment;
+        // Colonne non catégorisée: ajoutée aux business metrics
+        return new ColumnRule(column, Target.REMAINING, column, parserForField(column), 0);
     }
 
-    /**
-     * Extrait les évaluations par étoiles de manière dynamique
-     */
-    private Map<String, Object> extractStarRatings(Map<String, String> csvRow,
-                                                   Set<String> processedColumns) {
-        Map<String, Object> starRatings = new HashMap<>();
-
-        for (Map.Entry<String, String> entry : csvRow.entrySet()) {
-            String columnName = entry.getKey();
-            var matcher = STAR_RATING_PATTERN.matcher(columnName);
-
-            if (matcher.matches()) {
-                String starType = matcher.group(1);
-                String value = entry.getValue();
-
-                String key = columnName.contains("percentages") ?
-                        "percentages_" + starType : "ratings_" + starType;
+    private ColumnRule reviewRule(String column, Target target, Matcher matcher, SlotAllocator slots) {
+        int number = Integer.parseInt(matcher.group(1));
+        String fieldName = matcher.group(2);
+        slots.register(number);
+        return new ColumnRule(column, target, fieldName, parserForReviewField(fieldName), number);
+    }
 
-                putIfNotEmpty(starRatings, key, value);
-                processedColumns.add(columnName);
-            }
+    private void setDirectField(ShadowPilot business, String field, String value) {
+        switch (field) {
+            case "name" -> business.setName(value);
+            case "address" -> business.setAddress(value);
+            case "domain" -> business.setDomain(value);
+            case "phone" -> business.setPhone(value);
+            case "email" -> business.setEmail(value);
+            case "website" -> business.setWebsite(value);
+            default -> { }
         }
-
-        return starRatings;
     }
 
-    /**
-     * Extrait les entreprises similaires de manière dynamique
-     */
-    private List<Map<String, Object>> extractSimilarCompanies(Map<String, String> csvRow,
-                                                              Set<String> processedColumns) {
-        Map<Integer, Map<String, Object>> companiesMap = new HashMap<>();
-
-        for (Map.Entry<String, String> entry : csvRow.entrySet()) {
-            String columnName = entry.getKey();
-            var matcher = SIMILAR_COMPANY_PATTERN.matcher(columnName);
-
-            if (matcher.matches()) {
-                int companyIndex = Integer.parseInt(matcher.group(1));
-                String fieldName = matcher.group(2);
-                String value = entry.getValue();
-
-                companiesMap.computeIfAbsent(companyIndex, k -> new HashMap<>());
-                putIfNotEmpty(companiesMap.get(companyIndex), fieldName, value);
-
-                processedColumns.add(columnName);
-            }
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object>[] newSlots(int size) {
+        Map<String, Object>[] slots = new Map[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new HashMap<>();
         }
-
-        return companiesMap.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(Map.Entry::getValue)
-                .filter(company -> !company.isEmpty())
-                .collect(Collectors.toList());
+        return slots;
     }
 
-    /**
-     * Traite les colonnes restantes non catégorisées
-     */
-    private void extractRemainingColumns(Map<String, String> csvRow,
-                                         Set<String> processedColumns,
-                                         Map<String, Object> businessMetrics) {
-        for (Map.Entry<String, String> entry : csvRow.entrySet()) {
-            String columnName = entry.getKey();
-            if (!processedColumns.contains(columnName)) {
-                String value = entry.getValue();
-                Object parsedValue = parseValueByFieldName(columnName, value);
-                putIfNotEmpty(businessMetrics, columnName, parsedValue);
+    private static List<Map<String, Object>> nonEmpty(Map<String, Object>[] slots) {
+        List<Map<String, Object>> list = new ArrayList<>(slots.length);
+        for (Map<String, Object> slot : slots) {
+            if (!slot.isEmpty()) {
+                list.add(slot);
             }
         }
+        return list;
     }
 
     /**
-     * Parse une valeur selon le nom du champ
+     * Choisit le parser d'une colonne selon son nom (appelé à la compilation du plan)
      */
-    private Object parseValueByFieldName(String fieldName, String value) {
-        if (!isNotEmpty(value)) {
-            return null;
-        }
-
+    private ValueParser parserForField(String fieldName) {
         // Champs booléens
         if (fieldName.matches(".*(is_|has_).*") ||
                 fieldName.equals("is_claimed") ||
                 fieldName.equals("has_social_media") ||
                 fieldName.equals("is_verified") ||
                 fieldName.equals("has_title")) {
-            return parseBoolean(value);
+            return ValueParser.BOOLEAN;
         }
 
-        // Champs numériques (float)
+        // Champs numériques: Integer d'abord, puis Double
         if (fieldName.matches(".*(score|rate|count|age|votes|rating|completeness).*") ||
                 fieldName.matches(".*_\\d+") ||
                 fieldName.matches(".*(avg_|number_of_|total_).*")) {
-            // Essayer d'abord Integer, puis Double
-            Integer intValue = parseInt(value);
-            if (intValue != null) {
-                return intValue;
-            }
-            return parseDouble(value);
+            return ValueParser.NUMBER;
         }
 
         // Champs de date
         if (fieldName.contains("date") || fieldName.contains("timestamp")) {
-            return parseDate(value);
+            return ValueParser.DATE;
         }
 
-        // Par défaut, retourner la chaîne
-        return value;
+        // Par défaut, la chaîne
+        return ValueParser.TEXT;
     }
 
     /**
-     * Parse un champ spécifique d'avis
+     * Choisit le parser d'un champ d'avis
      */
-    private Object parseReviewField(String fieldName, String value) {
+    private ValueParser parserForReviewField(String fieldName) {
         switch (fieldName) {
             case "has_title":
             case "is_verified":
-                return parseBoolean(value);
+                return ValueParser.BOOLEAN;
             case "helpful_votes":
             case "rating":
             case "word_count":
-                return parseDouble(value);
+                return ValueParser.DOUBLE;
             case "date":
+                return ValueParser.DATE;
+            default:
+                return ValueParser.TEXT;
+        }
+    }
+
+    /**
+     * Applique un parser pré-calculé à une valeur brute
+     */
+    private Object parse(ValueParser parser, String value) {
+        switch (parser) {
+            case BOOLEAN:
+                return parseBoolean(value);
+            case NUMBER:
+                Integer intValue = parseInt(value);
+                return intValue != null ? intValue : parseDouble(value);
+            case DOUBLE:
+                return parseDouble(value);
+            case DATE:
                 return parseDate(value);
             default:
                 return value;
@@ -344,19 +328,8 @@ public class CsvToBusinessReviewTransformer {
             return null;
         }
 
-        // Formats de date couramment utilisés
-        String[] dateFormats = {
-                "yyyy-MM-dd HH:mm:ss",
-                "yyyy-MM-dd'T'HH:mm:ss",
-                "yyyy-MM-dd'T'HH:mm:ss.SSS",
-                "yyyy-MM-dd",
-                "dd/MM/yyyy",
-                "MM/dd/yyyy"
-        };
-
-        for (String format : dateFormats) {
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
             try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
                 LocalDateTime.parse(value, formatter);
                 return value; // Retourner la valeur originale si elle est valide
             } catch (DateTimeParseException e) {
@@ -378,36 +351,39 @@ public class CsvToBusinessReviewTransformer {
     }
 
     /**
-     * Génère un rapport détaillé sur les colonnes traitées
+     * Génère un rapport détaillé sur les colonnes traitées, dérivé du plan de transformation
      */
     public Map<String, Object> generateColumnProcessingReport(Map<String, String> sampleRow) {
+        return generateColumnProcessingReport(compilePlan(sampleRow.keySet()));
+    }
+
+    public Map<String, Object> generateColumnProcessingReport(TransformationPlan plan) {
         Map<String, Object> report = new HashMap<>();
-        Set<String> processedColumns = new HashSet<>();
 
-        // Simuler le traitement pour identifier les colonnes
-        ShadowPilot business = new ShadowPilot();
-        extractDirectFields(sampleRow, business, processedColumns);
-        extractAllBusinessMetrics(sampleRow, processedColumns);
-        extractSocialMedia(sampleRow, processedColumns);
-        extractReviewsByPattern(sampleRow, ENHANCED_REVIEW_PATTERN, processedColumns);
-        extractReviewsByPattern(sampleRow, FIVE_STAR_REVIEW_PATTERN, processedColumns);
-        extractReviewsByPattern(sampleRow, ONE_STAR_REVIEW_PATTERN, processedColumns);
-        extractSentimentDistribution(sampleRow, processedColumns);
-        extractStarRatings(sampleRow, processedColumns);
-        extractSimilarCompanies(sampleRow, processedColumns);
-
-        Set<String> remainingColumns = new HashSet<>(sampleRow.keySet());
-        remainingColumns.removeAll(processedColumns);
-
-        report.put("totalColumns", sampleRow.size());
+        // Les champs directs sont toujours considérés comme traités
+        Set<String> processedColumns = new HashSet<>(DIRECT_FIELDS);
+        List<String> remainingColumns = new ArrayList<>();
+        Map<String, Integer> columnsByTarget = new TreeMap<>();
+
+        for (ColumnRule rule : plan.rules) {
+            columnsByTarget.merge(rule.target.name(), 1, Integer::sum);
+            if (rule.target == Target.REMAINING) {
+                remainingColumns.add(rule.column);
+            } else {
+                processedColumns.add(rule.column);
+            }
+        }
+
+        report.put("totalColumns", plan.size());
         report.put("processedColumns", processedColumns.size());
         report.put("remainingColumns", remainingColumns.size());
         report.put("directFields", DIRECT_FIELDS.size());
         report.put("businessMetricFields", BUSINESS_METRIC_FIELDS.size());
         report.put("socialMediaFields", SOCIAL_MEDIA_FIELDS.size());
-        report.put("remainingColumnsList", new ArrayList<>(remainingColumns));
+        report.put("remainingColumnsList", remainingColumns);
+        report.put("columnsByTarget", columnsByTarget);
         report.put("coveragePercentage",
-                sampleRow.size() > 0 ? (double) processedColumns.size() / sampleRow.size() * 100 : 0);
+                plan.size() > 0 ? (double) processedColumns.size() / plan.size() * 100 : 0);
 
         return report;
     }
@@ -524,4 +500,111 @@ public class CsvToBusinessReviewTransformer {
 
         return report;
     }
-}
\ No newline at end of file
+
+    // ===== PLAN DE TRANSFORMATION =====
+
+    /**
+     * Structure cible d'une colonne
+     */
+    public enum Target {
+        DIRECT, BUSINESS_METRIC, SOCIAL_MEDIA, ENHANCED_REVIEW, FIVE_STAR_REVIEW, ONE_STAR_REVIEW,
+        SENTIMENT, STAR_RATING, SIMILAR_COMPANY, REMAINING
+    }
+
+    /**
+     * Conversion appliquée à la valeur brute d'une colonne
+     */
+    public enum ValueParser {
+        BOOLEAN, NUMBER, DOUBLE, DATE, TEXT
+    }
+
+    /**
+     * Règle pré-calculée pour une colonne: cible, clé dans la structure, slot (avis / entreprise) et parser
+     */
+    public static final class ColumnRule {
+        private final String column;
+        private final Target target;
+        private final String key;
+        private final ValueParser parser;
+        private final int number;
+        private int slot;
+
+        private ColumnRule(String column, Target target, String key, ValueParser parser, int number) {
+            this.column = column;
+            this.target = target;
+            this.key = key;
+            this.parser = parser;
+            this.number = number;
+        }
+
+        public String getColumn() { return column; }
+        public Target getTarget() { return target; }
+        public String getKey() { return key; }
+        public ValueParser getParser() { return parser; }
+        public int getSlot() { return slot; }
+    }
+
+    /**
+     * Plan compilé pour un en-tête: une règle par colonne, dans l'ordre de l'en-tête
+     */
+    public static final class TransformationPlan {
+        private final ColumnRule[] rules;
+        private final Set<String> columns;
+        private final int enhancedReviewSlots;
+        private final int fiveStarReviewSlots;
+        private final int oneStarReviewSlots;
+        private final int similarCompanySlots;
+
+        private TransformationPlan(ColumnRule[] rules, int enhancedReviewSlots, int fiveStarReviewSlots,
+                                   int oneStarReviewSlots, int similarCompanySlots) {
+            this.rules = rules;
+            this.columns = new HashSet<>(rules.length * 2);
+            for (ColumnRule rule : rules) {
+                columns.add(rule.column);
+            }
+            this.enhancedReviewSlots = enhancedReviewSlots;
+            this.fiveStarReviewSlots = fiveStarReviewSlots;
+            this.oneStarReviewSlots = oneStarReviewSlots;
+            this.similarCompanySlots = similarCompanySlots;
+        }
+
+        public int size() {
+            return rules.length;
+        }
+
+        public List<ColumnRule> getRules() {
+            return List.of(rules);
+        }
+
+        boolean matches(Collection<String> otherColumns) {
+            return otherColumns.size() == rules.length && columns.containsAll(otherColumns);
+        }
+    }
+
+    /**
+     * Associe les numéros d'avis / d'entreprises (1..N, éventuellement non contigus) à des slots triés
+     */
+    private static final class SlotAllocator {
+        private final TreeSet<Integer> numbers = new TreeSet<>();
+        private Map<Integer, Integer> slots;
+
+        void register(int number) {
+            numbers.add(number);
+        }
+
+        int slotOf(int number) {
+            if (slots == null) {
+                slots = new HashMap<>();
+                int slot = 0;
+                for (Integer n : numbers) {
+                    slots.put(n, slot++);
+                }
+            }
+            return slots.get(number);
+        }
+
+        int size() {
+            return numbers.size();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.springelasticproject.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Manifeste de reprise d'un import de répertoire NDJSON.
+ *
+ * Pour chaque fichier: taille et date de modification au moment de l'import, dernier octet (et
+ * numéro de ligne) dont toutes les lignes précédentes sont indexées, fichier terminé ou non. Le
+ * manifeste est réécrit à chaque avancée (fichier temporaire puis renommage): après un arrêt brutal,
+ * la reprise saute les fichiers terminés et repart de la dernière position acquittée des autres.
+ * Les documents relus après cette position sont réindexés sous le même identifiant.
+ */
+public class ImportCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCheckpoint.class);
+
+    private final Path manifestFile;
+    private final Path importDirectory;
+    private final ObjectMapper objectMapper;
+    private final Manifest manifest;
+
+    private ImportCheckpoint(Path manifestFile, Path importDirectory, ObjectMapper objectMapper, Manifest manifest) {
+        this.manifestFile = manifestFile;
+        this.importDirectory = importDirectory;
+        this.objectMapper = objectMapper;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Ouvre le manifeste du répertoire importé
+     * @param resume vrai pour repartir du manifeste existant, faux pour commencer un nouvel import
+     */
+    public static ImportCheckpoint open(Path checkpointDirectory, Path importDirectory, boolean resume,
+                                        ObjectMapper objectMapper) throws IOException {
+        Path directory = importDirectory.toAbsolutePath().normalize();
+        Path manifestFile = checkpointDirectory.resolve("import-" + directoryKey(directory) + ".json");
+        Manifest manifest = null;
+        if (resume && Files.exists(manifestFile)) {
+            try {
+                manifest = objectMapper.readValue(manifestFile.toFile(), Manifest.class);
+                logger.info("Reprise de l'import de {} depuis {}", directory, manifestFile);
+            } catch (IOException e) {
+                logger.warn("Manifeste de reprise illisible ({}), import repris depuis le début: {}", manifestFile, e.getMessage());
+            }
+        }
+        if (manifest == null) {
+            manifest = new Manifest();
+            manifest.directory = directory.toString();
+            manifest.startedAt = LocalDateTime.now().toString();
+        }
+        Files.createDirectories(checkpointDirectory);
+        return new ImportCheckpoint(manifestFile, directory, objectMapper, manifest);
+    }
+
+    /**
+     * Vrai si un import du répertoire a commencé sans se terminer: manifeste présent avec au moins
+     * un fichier non terminé (arrêt brutal, documents non indexés)
+     */
+    public static boolean hasUnfinishedImport(Path checkpointDirectory, Path importDirectory, ObjectMapper objectMapper) {
+        Path directory = importDirectory.toAbsolutePath().normalize();
+        Path manifestFile = checkpointDirectory.resolve("import-" + directoryKey(directory) + ".json");
+        if (!Files.exists(manifestFile)) {
+            return false;
+        }
+        try {
+            Manifest manifest = objectMapper.readValue(manifestFile.toFile(), Manifest.class);
+            return manifest.files.values().stream().anyMatch(entry -> !entry.completed);
+        } catch (IOException e) {
+            logger.warn("Manifeste de reprise illisible ({}): {}", manifestFile, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String directoryKey(Path directory) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(directory.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Position de départ d'un fichier: celle du manifeste si le fichier n'a pas changé depuis,
+     * sinon le début du fichier
+     */
+    public synchronized FileEntry start(Path file) throws IOException {
+        String key = key(file);
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        FileEntry entry = manifest.files.get(key);
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry.copy();
+        }
+        if (entry != null) {
+            logger.info("{} a changé depuis le dernier import, relu depuis le début", key);
+        }
+        entry = new FileEntry();
+        entry.size = size;
+        entry.lastModified = lastModified;
+        manifest.files.put(key, entry);
+        save();
+        return entry.copy();
+    }
+
+    /**
+     * Enregistre la position jusqu'à laquelle toutes les lignes du fichier sont traitées
+     */
+    public synchronized void acknowledge(Path file, long offset, long lines, boolean completed) {
+        FileEntry entry = manifest.files.get(key(file));
+        if (entry == null || (offset <= entry.offset && !completed)) {
+            return;
+        }
+        entry.offset = Math.max(entry.offset, offset);
+        entry.lines = Math.max(entry.lines, lines);
+        entry.completed = entry.completed || completed;
+        save();
+    }
+
+    public Path getManifestFile() {
+        return manifestFile;
+    }
+
+    private String key(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        return absolute.startsWith(importDirectory) ? importDirectory.relativize(absolute).toString() : absolute.toString();
+    }
+
+    private void save() {
+        manifest.updatedAt = LocalDateTime.now().toString();
+        try {
+            Path temp = Files.createTempFile(manifestFile.getParent(), "import-", ".tmp");
+            objectMapper.writeValue(temp.toFile(), manifest);
+            Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // L'import continue: seule la reprise après un arrêt serait moins précise
+            logger.warn("Écriture du manifeste de reprise impossible ({}): {}", manifestFile, e.getMessage());
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Manifest {
+        public String directory;
+        public String startedAt;
+        public String updatedAt;
+        public Map<String, FileEntry> files = new TreeMap<>();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FileEntry {
+        public long size;
+        public long lastModified;
+        // Octet suivant la dernière ligne acquittée (décompressé pour un .gz), et nombre de lignes jusqu'à cet octet
+        public long offset;
+        public long lines;
+        public boolean completed;
+
+        FileEntry copy() {
+            FileEntry copy = new FileEntry();
+            copy.size = size;
+            copy.lastModified = lastModified;
+            copy.offset = offset;
+            copy.lines = lines;
+            copy.completed = completed;
+            return copy;
+        }
+    }
+}
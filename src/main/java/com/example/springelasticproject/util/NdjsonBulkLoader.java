@@ -0,0 +1,733 @@
+package com.example.springelasticproject.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chargement en flux de fichiers NDJSON vers Elasticsearch.
+ *
+ * Chaque fichier est découpé en morceaux d'environ {@code chunkSize} octets, coupés après un retour
+ * à la ligne. Un morceau est lu d'un bloc par une lecture positionnée, ses lignes sont converties
+ * directement depuis les octets sur le pool de calcul, puis
+ * indexées par lots sur le pool I/O. Au plus {@code parseWorkers} morceaux, tous fichiers confondus,
+ * sont en cours: la mémoire dépend de la taille des morceaux, jamais de celle des fichiers, et un
+ * gros fichier occupe plusieurs cœurs. Aucune tâche n'attend une autre tâche du même pool.
+ *
+ * Un fichier gzip (reconnu à sa signature, quel que soit son nom) ne se découpe pas par positions:
+ * il est décompressé en flux par le thread appelant, qui remplit des morceaux de même taille traités
+ * de la même façon. Les positions d'un tel fichier (manifeste de reprise compris) sont comptées en
+ * octets décompressés.
+ *
+ * Avec un {@link ImportCheckpoint}, la position acquittée de chaque fichier est enregistrée au fil
+ * des morceaux indexés et un import repris repart de cette position.
+ */
+public final class NdjsonBulkLoader<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(NdjsonBulkLoader.class);
+
+    // Taille des lectures qui cherchent la fin de ligne terminant un morceau, et taille minimale d'un morceau
+    private static final int BOUNDARY_SCAN_SIZE = 64 * 1024;
+
+    /**
+     * Conversion d'une ligne lue en UTF-8, sans son séparateur, sans passer par une String
+     */
+    @FunctionalInterface
+    public interface RecordParser<T> {
+        T parse(byte[] buffer, int offset, int length) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface BatchIndexer<T> {
+        void index(List<T> batch) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface DocumentIndexer<T> {
+        void index(T document) throws Exception;
+    }
+
+    private final Executor cpuExecutor;
+    private final Executor ioExecutor;
+    private final int batchSize;
+    private final int parseWorkers;
+    private final int chunkSize;
+    private final RecordParser<T> parser;
+    private final BatchIndexer<T> indexer;
+    // Repli document par document quand un lot entier est refusé (null: le lot est compté en échec).
+    // Un document refusé définitivement par le repli (mapping, document invalide) est compté à part:
+    // il n'empêche pas l'acquittement, puisqu'il serait refusé de nouveau à la reprise.
+    private final DocumentIndexer<T> fallbackIndexer;
+
+    public NdjsonBulkLoader(Executor cpuExecutor, Executor ioExecutor, int batchSize, int parseWorkers, int chunkSize,
+                            RecordParser<T> parser, BatchIndexer<T> indexer, DocumentIndexer<T> fallbackIndexer) {
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
+        this.batchSize = Math.max(1, batchSize);
+        this.parseWorkers = Math.max(1, parseWorkers);
+        this.chunkSize = Math.max(BOUNDARY_SCAN_SIZE, chunkSize);
+        this.parser = parser;
+        this.indexer = indexer;
+        this.fallbackIndexer = fallbackIndexer;
+    }
+
+    public LoadStats load(Path file) throws IOException {
+        return load(file, null);
+    }
+
+    /**
+     * Charge un fichier en reprenant, si un manifeste est fourni, à sa dernière position acquittée.
+     * Attend la fin de l'indexation du dernier lot.
+     */
+    public LoadStats load(Path file, ImportCheckpoint checkpoint) throws IOException {
+        DirectoryStats result = loadAll(List.of(file), checkpoint);
+        if (!result.getFailedFiles().isEmpty()) {
+            throw new IOException(result.getFailedFiles().values().iterator().next());
+        }
+        return result.getFiles().get(0);
+    }
+
+    public DirectoryStats loadAll(List<Path> files) throws IOException {
+        return loadAll(files, null);
+    }
+
+    /**
+     * Charge les fichiers; les morceaux de plusieurs fichiers sont traités en même temps et un fichier
+     * en échec n'interrompt pas les autres. Retourne quand tout est indexé.
+     */
+    public DirectoryStats loadAll(List<Path> files, ImportCheckpoint checkpoint) throws IOException {
+        return loadAll(files, checkpoint, new DirectoryStats());
+    }
+
+    /**
+     * @param result bilan rempli au fil de l'import, lisible pendant son déroulement (avancement)
+     */
+    public DirectoryStats loadAll(List<Path> files, ImportCheckpoint checkpoint, DirectoryStats result) throws IOException {
+        result.expectedFiles = files.size();
+        BoundedTaskWindow window = new BoundedTaskWindow(parseWorkers);
+        List<CompletableFuture<Void>> completions = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                completions.add(submitFile(file, checkpoint, window, result));
+            }
+            window.awaitAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import des fichiers interrompu", e);
+        }
+        // Bilan et acquittement final de chaque fichier écrits avant de rendre la main
+        CompletableFuture.allOf(completions.toArray(new CompletableFuture[0])).join();
+        result.endNanos = System.nanoTime();
+        logger.info("Import de {} fichiers terminé: {}", files.size(), result);
+        return result;
+    }
+
+    /**
+     * Découpe un fichier en morceaux et les soumet; le futur retourné se termine avec le dernier
+     * morceau, une fois le fichier fermé et son bilan enregistré
+     */
+    private CompletableFuture<Void> submitFile(Path file, ImportCheckpoint checkpoint, BoundedTaskWindow window,
+                                               DirectoryStats result) throws InterruptedException {
+        String source = file.getFileName().toString();
+        boolean compressed;
+        FileChannel channel;
+        long size;
+        LoadStats stats;
+        Acknowledgements acks;
+        try {
+            long startOffset = 0;
+            long startLine = 0;
+            if (checkpoint != null) {
+                ImportCheckpoint.FileEntry entry = checkpoint.start(file);
+                if (entry.completed) {
+                    logger.info("{} déjà importé, ignoré", source);
+                    result.add(LoadStats.skipped(source, entry.lines));
+                    return CompletableFuture.completedFuture(null);
+                }
+                startOffset = entry.offset;
+                startLine = entry.lines;
+                if (startOffset > 0) {
+                    logger.info("Reprise de {} à l'octet {} (ligne {})", source, startOffset, startLine);
+                }
+            }
+            // Détecté sur le contenu, comme pour les CSV: un fichier gzip mal nommé est décompressé
+            compressed = CompressedInput.isGzip(file);
+            channel = compressed ? null : FileChannel.open(file, StandardOpenOption.READ);
+            size = compressed ? -1 : channel.size();
+            stats = new LoadStats(source, startOffset, startLine);
+            acks = new Acknowledgements(file, checkpoint, startOffset, startLine);
+        } catch (IOException | RuntimeException e) {
+            fileFailed(result, source, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        result.started(stats);
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        long end = size;
+        Throwable splitFailure = null;
+        try {
+            end = compressed
+                    ? submitDecompressed(file, stats, acks, window, chunks)
+                    : submitPositioned(channel, size, stats, acks, window, chunks);
+        } catch (IOException | RuntimeException e) {
+            splitFailure = e;
+        }
+
+        long endOffset = end;
+        Throwable failure = splitFailure;
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).handle((ignored, error) -> {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.warn("Fermeture de {} impossible: {}", source, e.getMessage());
+                }
+            }
+            stats.endNanos = System.nanoTime();
+            Throwable cause = failure != null ? failure : error;
+            if (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause != null) {
+                // Le manifeste garde la position du dernier morceau acquitté: la reprise repartira de là
+                result.discard(stats);
+                fileFailed(result, source, cause);
+                return null;
+            }
+            // Lignes vides ou invalides du dernier morceau comprises: le fichier est terminé, sauf si des
+            // documents n'ont pas été indexés; le manifeste reste alors avant le premier morceau en échec
+            if (checkpoint != null && stats.getIndexFailures() == 0) {
+                checkpoint.acknowledge(file, endOffset, stats.getLines(), true);
+            }
+            result.add(stats);
+            if (stats.getIndexFailures() > 0) {
+                logger.warn("{}: {} (non acquitté, à reprendre)", source, stats);
+            } else {
+                logger.info("{}: {}", source, stats);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Découpe un fichier non compressé par positions; retourne la position de fin
+     */
+    private long submitPositioned(FileChannel channel, long size, LoadStats stats, Acknowledgements acks,
+                              BoundedTaskWindow window, List<CompletableFuture<Void>> chunks)
+            throws IOException, InterruptedException {
+        long start = stats.resumedFromOffset;
+        while (start < size) {
+            Chunk chunk = new Chunk(channel, start, chunkEnd(channel, start, size), acks);
+            chunks.add(submitChunk(chunk, stats, window));
+            start = chunk.end;
+        }
+        return size;
+    }
+
+    /**
+     * Décompresse un fichier .gz en flux et le découpe en morceaux terminés par un retour à la ligne;
+     * retourne la position de fin en octets décompressés. La reprise relit et ignore les octets
+     * décompressés déjà acquittés.
+     */
+    private long submitDecompressed(Path file, LoadStats stats, Acknowledgements acks,
+                                    BoundedTaskWindow window, List<CompletableFuture<Void>> chunks)
+            throws IOException, InterruptedException {
+        try (InputStream in = CompressedInput.open(file)) {
+            long position = stats.resumedFromOffset;
+            in.skipNBytes(position);
+            byte[] buffer = new byte[chunkSize];
+            int filled = 0;
+            while (true) {
+                filled += in.readNBytes(buffer, filled, buffer.length - filled);
+                boolean eof = filled < buffer.length;
+                if (eof && filled == 0) {
+                    return position;
+                }
+                int cut = eof ? filled : lastNewline(buffer, filled) + 1;
+                if (cut == 0) {
+                    // Ligne plus longue qu'un morceau: le morceau s'agrandit jusqu'à sa fin
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                Chunk chunk = new Chunk(Arrays.copyOf(buffer, cut), position, acks);
+                chunks.add(submitChunk(chunk, stats, window));
+                position = chunk.end;
+                if (eof) {
+                    return position;
+                }
+                byte[] next = new byte[Math.max(chunkSize, filled - cut)];
+                System.arraycopy(buffer, cut, next, 0, filled - cut);
+                filled -= cut;
+                buffer = next;
+            }
+        }
+    }
+
+    private static int lastNewline(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private CompletableFuture<Void> submitChunk(Chunk chunk, LoadStats stats, BoundedTaskWindow window)
+            throws InterruptedException {
+        return window.submit(() -> CompletableFuture
+                .supplyAsync(() -> parseChunk(chunk, stats), cpuExecutor)
+                .thenCompose(parsed -> indexChunk(parsed, stats)
+                        .thenAccept(failures -> chunk.ack.complete(parsed.lines, failures > 0))));
+    }
+
+    private static void fileFailed(DirectoryStats result, String source, Throwable e) {
+        logger.error("Erreur lors du traitement du fichier {}: {}", source, e.getMessage());
+        result.addFailure(source, e.getClass().getSimpleName() + ": " + e.getMessage());
+    }
+
+    /**
+     * Fin du morceau qui commence à {@code start}: octet suivant le premier retour à la ligne situé
+     * après start + chunkSize, ou fin du fichier
+     */
+    private long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long position = start + chunkSize;
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Découpe le morceau en lignes et convertit chacune depuis le tableau d'octets du morceau
+     */
+    private ParsedChunk<T> parseChunk(Chunk chunk, LoadStats stats) {
+        byte[] bytes;
+        try {
+            bytes = chunk.read();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        List<T> documents = new ArrayList<>();
+        long lines = 0;
+        int lineStart = 0;
+        while (lineStart < bytes.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            lines++;
+            int length = lineEnd - lineStart;
+            if (length > 0 && bytes[lineEnd - 1] == '\r') {
+                length--;
+            }
+            if (!isBlank(bytes, lineStart, length)) {
+                try {
+                    T document = parser.parse(bytes, lineStart, length);
+                    if (document != null) {
+                        documents.add(document);
+                    }
+                } catch (Exception e) {
+                    stats.parseErrors.incrementAndGet();
+                    logger.error("Erreur lors du parsing de la ligne {} du morceau à l'octet {} dans {}: {}",
+                            lines, chunk.start, stats.source, e.getMessage());
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        stats.lines.addAndGet(lines);
+        stats.parsed.addAndGet(documents.size());
+        return new ParsedChunk<>(documents, lines);
+    }
+
+    private static boolean isBlank(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indexe les documents du morceau par lots sur le pool I/O; le futur porte le nombre de documents
+     * du morceau qui n'ont pas pu être indexés
+     */
+    private CompletableFuture<Long> indexChunk(ParsedChunk<T> parsed, LoadStats stats) {
+        List<T> documents = parsed.documents;
+        List<CompletableFuture<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < documents.size(); from += batchSize) {
+            List<T> batch = documents.subList(from, Math.min(from + batchSize, documents.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> indexBatch(batch, stats), ioExecutor));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> batches.stream().mapToLong(CompletableFuture::join).sum());
+    }
+
+    /**
+     * Indexe un lot; retourne le nombre de documents non indexés à rejouer (hors refus définitifs)
+     */
+    private long indexBatch(List<T> batch, LoadStats stats) {
+        long failures = 0;
+        try {
+            indexer.index(batch);
+            stats.indexed.addAndGet(batch.size());
+        } catch (Exception e) {
+            logger.error("Erreur lors de l'indexation d'un lot de {} ({}): {}", batch.size(), stats.source, e.getMessage());
+            failures = indexOneByOne(batch, stats);
+        }
+        logger.info("{} documents indexés depuis {} (total: {})", batch.size() - failures, stats.source, stats.indexed.get());
+        return failures;
+    }
+
+    private long indexOneByOne(List<T> batch, LoadStats stats) {
+        if (fallbackIndexer == null) {
+            stats.indexFailures.addAndGet(batch.size());
+            return batch.size();
+        }
+        long failures = 0;
+        for (T document : batch) {
+            try {
+                fallbackIndexer.index(document);
+                stats.indexed.incrementAndGet();
+            } catch (Exception ex) {
+                if (TransientFailures.isTransient(ex)) {
+                    failures++;
+                    stats.indexFailures.incrementAndGet();
+                    logger.error("Erreur lors de l'indexation d'un document de {}: {}", stats.source, ex.getMessage());
+                } else {
+                    stats.rejected.incrementAndGet();
+                    logger.error("Document de {} refusé par Elasticsearch, ignoré: {}", stats.source, ex.getMessage());
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static double perSecond(long count, long durationMs) {
+        return durationMs > 0 ? Math.round(count * 100_000.0 / durationMs) / 100.0 : 0.0;
+    }
+
+    /**
+     * Plage [start, end) d'un fichier, terminée par un retour à la ligne ou par la fin du fichier;
+     * lue à la demande dans le fichier, ou déjà en mémoire pour un fichier décompressé en flux
+     */
+    private static final class Chunk {
+        private final FileChannel channel;
+        private final byte[] data;
+        private final long start;
+        private final long end;
+        private final Acknowledgements.Position ack;
+
+        Chunk(FileChannel channel, long start, long end, Acknowledgements acks) {
+            this.channel = channel;
+            this.data = null;
+            this.start = start;
+            this.end = end;
+            this.ack = acks.next(end);
+        }
+
+        Chunk(byte[] data, long start, Acknowledgements acks) {
+            this.channel = null;
+            this.data = data;
+            this.start = start;
+            this.end = start + data.length;
+            this.ack = acks.next(end);
+        }
+
+        /**
+         * Lit le morceau dans un tableau par lectures positionnées: Jackson 2.15 n'a pas d'analyseur sur
+         * ByteBuffer, mais lit les octets sans décodage préalable en String. Une projection en mémoire
+         * n'éviterait pas cette copie et ne serait libérée qu'au ramasse-miettes.
+         */
+        byte[] read() throws IOException {
+            if (data != null) {
+                return data;
+            }
+            byte[] bytes = new byte[Math.toIntExact(end - start)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Fin de fichier inattendue à l'octet " + (start + buffer.position()));
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static final class ParsedChunk<T> {
+        private final List<T> documents;
+        private final long lines;
+
+        ParsedChunk(List<T> documents, long lines) {
+            this.documents = documents;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Position acquittée d'un fichier: fin du plus long préfixe de morceaux entièrement traités. Les
+     * morceaux se terminent dans le désordre; un morceau terminé avant ses prédécesseurs attend qu'ils
+     * le soient. Un morceau dont des documents n'ont pas été indexés bloque la position: ni lui ni
+     * ses successeurs ne sont acquittés, et la reprise les relit.
+     */
+    static final class Acknowledgements {
+        private final Path file;
+        private final ImportCheckpoint checkpoint;
+        private final TreeMap<Long, Position> completed = new TreeMap<>();
+        private long nextSequence;
+        private long nextToAcknowledge;
+        // Premier morceau en échec atteint: la position n'avance plus
+        private boolean blocked;
+        private long offset;
+        private long lines;
+
+        Acknowledgements(Path file, ImportCheckpoint checkpoint, long startOffset, long startLine) {
+            this.file = file;
+            this.checkpoint = checkpoint;
+            this.offset = startOffset;
+            this.lines = startLine;
+        }
+
+        Position next(long endOffset) {
+            return new Position(nextSequence++, endOffset);
+        }
+
+        private synchronized void complete(Position position) {
+            if (blocked) {
+                return;
+            }
+            completed.put(position.sequence, position);
+            boolean advanced = false;
+            Position head;
+            while ((head = completed.remove(nextToAcknowledge)) != null) {
+                if (head.failed) {
+                    blocked = true;
+                    completed.clear();
+                    break;
+                }
+                offset = head.endOffset;
+                lines += head.lines;
+                nextToAcknowledge++;
+                advanced = true;
+            }
+            if (advanced && checkpoint != null) {
+                checkpoint.acknowledge(file, offset, lines, false);
+            }
+        }
+
+        final class Position {
+            private final long sequence;
+            private final long endOffset;
+            private long lines;
+            private boolean failed;
+
+            Position(long sequence, long endOffset) {
+                this.sequence = sequence;
+                this.endOffset = endOffset;
+            }
+
+            void complete(long lines, boolean failed) {
+                this.lines = lines;
+                this.failed = failed;
+                Acknowledgements.this.complete(this);
+            }
+        }
+    }
+
+    /**
+     * Bilan du chargement d'un fichier; les compteurs sont mis à jour par les pools de calcul et d'I/O
+     */
+    public static class LoadStats {
+        private final String source;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+        // Position de reprise (0 pour un fichier lu depuis le début) et fichier déjà terminé
+        private final long resumedFromOffset;
+        private final long resumedFromLine;
+        private boolean skipped;
+        private final AtomicLong lines = new AtomicLong();
+        private final AtomicLong parsed = new AtomicLong();
+        private final AtomicLong parseErrors = new AtomicLong();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong indexFailures = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        LoadStats(String source, long resumedFromOffset, long resumedFromLine) {
+            this.source = source;
+            this.resumedFromOffset = resumedFromOffset;
+            this.resumedFromLine = resumedFromLine;
+            this.lines.set(resumedFromLine);
+        }
+
+        static LoadStats skipped(String source, long lines) {
+            LoadStats stats = new LoadStats(source, 0, lines);
+            stats.skipped = true;
+            stats.endNanos = stats.startNanos;
+            return stats;
+        }
+
+        public String getSource() { return source; }
+        public long getLines() { return lines.get(); }
+        public long getParsed() { return parsed.get(); }
+        public long getParseErrors() { return parseErrors.get(); }
+        public long getIndexed() { return indexed.get(); }
+        public long getIndexFailures() { return indexFailures.get(); }
+        public long getRejected() { return rejected.get(); }
+        public boolean isSkipped() { return skipped; }
+        public long getResumedFromOffset() { return resumedFromOffset; }
+
+        public long getDurationMs() {
+            return ((endNanos != 0 ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("file", source);
+            if (skipped) {
+                map.put("skipped", true);
+            } else if (resumedFromOffset > 0) {
+                map.put("resumedFromOffset", resumedFromOffset);
+                map.put("resumedFromLine", resumedFromLine);
+            }
+            map.put("lines", getLines());
+            map.put("parsed", getParsed());
+            map.put("parseErrors", getParseErrors());
+            map.put("indexed", getIndexed());
+            map.put("indexFailures", getIndexFailures());
+            map.put("rejected", getRejected());
+            map.put("durationMs", getDurationMs());
+            map.put("recordsPerSecond", perSecond(getIndexed(), getDurationMs()));
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lignes, %d documents indexés, %d erreurs de parsing, %d échecs d'indexation, %d refusés en %d ms",
+                    getLines(), getIndexed(), getParseErrors(), getIndexFailures(), getRejected(), getDurationMs());
+        }
+    }
+
+    /**
+     * Bilan d'un import de plusieurs fichiers: totaux et détail par fichier
+     */
+    public static class DirectoryStats {
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+        private final List<LoadStats> files = new ArrayList<>();
+        private final Map<String, String> failedFiles = new LinkedHashMap<>();
+        // Fichiers en cours de chargement et nombre de fichiers à traiter, pour l'avancement
+        private final List<LoadStats> active = new ArrayList<>();
+        private volatile int expectedFiles;
+
+        synchronized void started(LoadStats stats) {
+            active.add(stats);
+        }
+
+        synchronized void discard(LoadStats stats) {
+            active.remove(stats);
+        }
+
+        synchronized void add(LoadStats stats) {
+            active.remove(stats);
+            files.add(stats);
+        }
+
+        synchronized void addFailure(String file, String message) {
+            failedFiles.put(file, message);
+        }
+
+        public synchronized List<LoadStats> getFiles() { return new ArrayList<>(files); }
+        public synchronized Map<String, String> getFailedFiles() { return new LinkedHashMap<>(failedFiles); }
+        public long getLines() { return getFiles().stream().mapToLong(LoadStats::getLines).sum(); }
+        public long getParsed() { return getFiles().stream().mapToLong(LoadStats::getParsed).sum(); }
+        public long getParseErrors() { return getFiles().stream().mapToLong(LoadStats::getParseErrors).sum(); }
+        public long getIndexed() { return getFiles().stream().mapToLong(LoadStats::getIndexed).sum(); }
+        public long getIndexFailures() { return getFiles().stream().mapToLong(LoadStats::getIndexFailures).sum(); }
+        public long getRejected() { return getFiles().stream().mapToLong(LoadStats::getRejected).sum(); }
+
+        public long getDurationMs() {
+            return ((endNanos != 0 ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+        }
+
+        /**
+         * Avancement d'un import en cours: fichiers terminés, documents indexés y compris dans les
+         * fichiers encore en cours de chargement
+         */
+        public synchronized Map<String, Object> progress() {
+            List<LoadStats> all = new ArrayList<>(files);
+            all.addAll(active);
+            long indexed = all.stream().mapToLong(LoadStats::getIndexed).sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("filesTotal", expectedFiles);
+            map.put("filesDone", files.size() + failedFiles.size());
+            map.put("filesInProgress", active.size());
+            map.put("lines", all.stream().mapToLong(LoadStats::getLines).sum());
+            map.put("indexed", indexed);
+            map.put("errors", all.stream().mapToLong(stats -> stats.getParseErrors() + stats.getIndexFailures() + stats.getRejected()).sum());
+            map.put("durationMs", getDurationMs());
+            map.put("recordsPerSecond", perSecond(indexed, getDurationMs()));
+            return map;
+        }
+
+        public Map<String, Object> toMap() {
+            List<LoadStats> loaded = getFiles();
+            loaded.sort(Comparator.comparing(LoadStats::getSource));
+            List<Map<String, Object>> perFile = new ArrayList<>(loaded.size());
+            for (LoadStats stats : loaded) {
+                perFile.add(stats.toMap());
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("filesProcessed", loaded.size());
+            map.put("filesSkipped", loaded.stream().filter(LoadStats::isSkipped).count());
+            map.put("filesFailed", getFailedFiles());
+            map.put("lines", getLines());
+            map.put("parsed", getParsed());
+            map.put("parseErrors", getParseErrors());
+            map.put("indexed", getIndexed());
+            map.put("indexFailures", getIndexFailures());
+            map.put("rejected", getRejected());
+            map.put("durationMs", getDurationMs());
+            map.put("recordsPerSecond", perSecond(getIndexed(), getDurationMs()));
+            map.put("files", perFile);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d fichiers (%d en échec), %d documents indexés, %d erreurs en %d ms (%.0f docs/s)",
+                    getFiles().size(), getFailedFiles().size(), getIndexed(), getParseErrors() + getIndexFailures() + getRejected(),
+                    getDurationMs(), perSecond(getIndexed(), getDurationMs()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.springelasticproject.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parser Jackson qui présente les clés snake_case du flux en camelCase, à tous les niveaux
+ * (propriétés du bean comme clés des Map imbriquées).
+ *
+ * Le renommage se fait au fil des tokens: un document NDJSON est lié en une seule lecture, sans
+ * arbre intermédiaire ni réécriture en chaîne. Une stratégie de nommage Jackson ne suffirait pas:
+ * elle ne s'applique pas aux clés des Map (competitors, popularTimes...).
+ */
+public class SnakeToCamelCaseParser extends JsonParserDelegate {
+
+    // Les noms de champs d'un schéma sont peu nombreux: la conversion est mémorisée
+    private static final int MAX_CACHED_NAMES = 4096;
+    private static final Map<String, String> CAMEL_CASE_NAMES = new ConcurrentHashMap<>();
+
+    public SnakeToCamelCaseParser(JsonParser delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public String currentName() throws IOException {
+        return toCamelCase(delegate.currentName());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String getCurrentName() throws IOException {
+        return toCamelCase(delegate.getCurrentName());
+    }
+
+    @Override
+    public String nextFieldName() throws IOException {
+        return toCamelCase(delegate.nextFieldName());
+    }
+
+    @Override
+    public boolean nextFieldName(SerializableString str) throws IOException {
+        return nextToken() == JsonToken.FIELD_NAME && str.getValue().equals(currentName());
+    }
+
+    @Override
+    public String getText() throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? currentName() : delegate.getText();
+    }
+
+    @Override
+    public String getValueAsString() throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? currentName() : delegate.getValueAsString();
+    }
+
+    @Override
+    public String getValueAsString(String defaultValue) throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? currentName() : delegate.getValueAsString(defaultValue);
+    }
+
+    // Les lecteurs qui passent par le tableau de caractères reçoivent aussi le nom converti
+    @Override
+    public boolean hasTextCharacters() {
+        return !hasToken(JsonToken.FIELD_NAME) && delegate.hasTextCharacters();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? currentName().toCharArray() : delegate.getTextCharacters();
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? currentName().length() : delegate.getTextLength();
+    }
+
+    @Override
+    public int getTextOffset() throws IOException {
+        return hasToken(JsonToken.FIELD_NAME) ? 0 : delegate.getTextOffset();
+    }
+
+    private static String toCamelCase(String name) {
+        if (name == null || name.indexOf('_') < 0) {
+            return name;
+        }
+        String cached = CAMEL_CASE_NAMES.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        String converted = snakeToCamelCase(name);
+        if (CAMEL_CASE_NAMES.size() < MAX_CACHED_NAMES) {
+            CAMEL_CASE_NAMES.put(name, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Convertit une chaîne de caractères de snake_case en camelCase
+     */
+    public static String snakeToCamelCase(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+
+        StringBuilder sb = new StringBuilder(input.length());
+        boolean capitalizeNext = false;
+
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+
+            if (c == '_') {
+                capitalizeNext = true;
+            } else if (capitalizeNext) {
+                sb.append(Character.toUpperCase(c));
+                capitalizeNext = false;
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+}
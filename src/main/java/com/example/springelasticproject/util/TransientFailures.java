@@ -0,0 +1,47 @@
+package com.example.springelasticproject.util;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.NoHttpResponseException;
+import org.elasticsearch.client.ResponseException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Distingue un échec d'indexation temporaire (surcharge, cluster injoignable), qui vaut la peine
+ * d'être rejoué, d'un refus définitif (mapping, document invalide, requête trop grosse) qui
+ * échouerait de nouveau.
+ */
+public final class TransientFailures {
+
+    private TransientFailures() {
+    }
+
+    public static boolean isRetryableStatus(int status) {
+        return status == 429 || status == 503;
+    }
+
+    /**
+     * Vrai pour 429, 503, une erreur de connexion ou une erreur d'accès que Spring classe comme
+     * temporaire, à n'importe quel niveau de la chaîne des causes
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ElasticsearchException e) {
+                return isRetryableStatus(e.status());
+            }
+            if (cause instanceof ResponseException e) {
+                return isRetryableStatus(e.getResponse().getStatusLine().getStatusCode());
+            }
+            if (cause instanceof SocketException || cause instanceof SocketTimeoutException
+                    || cause instanceof ConnectionClosedException || cause instanceof NoHttpResponseException
+                    || cause instanceof DataAccessResourceFailureException || cause instanceof TransientDataAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
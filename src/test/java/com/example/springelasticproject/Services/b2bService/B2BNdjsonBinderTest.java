@@ -0,0 +1,115 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import com.example.springelasticproject.model.b2bModel.B2B;
+import com.example.springelasticproject.util.SnakeToCamelCaseParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * La liaison en flux ({@link B2BNdjsonBinder}) doit produire le même document que l'ancien chemin
+ * de l'import: readTree, recopie de l'arbre en camelCase, puis readValue
+ */
+class B2BNdjsonBinderTest {
+
+    // Ligne au format de l'export Google Maps: clés snake_case à tous les niveaux, y compris sous les
+    // Map (popular_times, competitors, detailed_reviews), valeurs contenant des '_' et des accents
+    private static final String LINE = "{"
+            + "\"place_id\":\"ChIJ_x1\",\"name\":\"Garage du Centre\",\"is_spending_on_ads\":true,"
+            + "\"reviews\":37,\"rating\":4.3,\"main_category\":\"Garage automobile\","
+            + "\"categories\":[\"Garage automobile\",\"Centre auto\"],\"closed_on\":[\"Sunday\"],"
+            + "\"reviews_per_rating\":{\"1\":2,\"2\":0,\"3\":5,\"4\":10,\"5\":20},"
+            + "\"coordinates\":{\"latitude\":48.8566,\"longitude\":2.3522},"
+            + "\"detailed_address\":{\"street\":\"Rue de la République\",\"city\":\"Paris\",\"postal_code\":\"75011\",\"country_code\":\"FR\"},"
+            + "\"competitors\":[{\"name\":\"Concurrent\",\"reviews\":12,\"main_category\":\"Garage automobile\"}],"
+            + "\"review_keywords\":[{\"keyword\":\"prix\",\"count\":4}],"
+            + "\"hours\":[{\"day\":\"Monday\",\"times\":[\"8 am-12 pm\",\"2-7 pm\"]}],"
+            + "\"popular_times\":{\"Monday\":[{\"hour_of_day\":8,\"time_label\":\"8_h\",\"popularity_percentage\":35}],"
+            + "\"Saturday\":[{\"hour_of_day\":10,\"time_label\":\"10 h\",\"popularity_percentage\":80,\"popularity_description\":\"Très fréquenté\"}]},"
+            + "\"most_popular_times\":[{\"hour_of_day\":17,\"average_popularity\":72.5}],"
+            + "\"detailed_reviews\":[{\"review_id\":\"r1\",\"rating\":5,\"review_text\":\"Accueil soigné\","
+            + "\"review_photos\":[\"https://example.fr/p_1\"],\"response_from_owner_text\":null}],"
+            + "\"unknown_field\":{\"nested_key\":1}"
+            + "}";
+
+    private final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final B2BNdjsonBinder binder = new B2BNdjsonBinder(objectMapper);
+
+    @Test
+    void bindFromStringMatchesTreeTransform() throws IOException {
+        B2B expected = treeTransform(LINE);
+
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(binder.bind(LINE)));
+    }
+
+    @Test
+    void bindFromBytesMatchesTreeTransform() throws IOException {
+        B2B expected = treeTransform(LINE);
+        // Ligne au milieu d'un tampon plus grand, comme dans un bloc lu depuis le fichier
+        byte[] line = LINE.getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[line.length + 20];
+        System.arraycopy(line, 0, buffer, 7, line.length);
+        buffer[6] = '\n';
+        buffer[7 + line.length] = '\n';
+
+        assertEquals(objectMapper.writeValueAsString(expected),
+                objectMapper.writeValueAsString(binder.bind(buffer, 7, line.length)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void nestedMapKeysAreCamelCased() throws IOException {
+        B2B business = binder.bind(LINE);
+
+        assertEquals(Map.of("1", 2, "2", 0, "3", 5, "4", 10, "5", 20), business.getReviewsPerRating());
+        List<Map<String, Object>> monday = (List<Map<String, Object>>) business.getPopularTimes().get("Monday");
+        assertEquals(Map.of("hourOfDay", 8, "timeLabel", "8_h", "popularityPercentage", 35), monday.get(0));
+        assertEquals("Garage automobile", business.getCompetitors().get(0).get("mainCategory"));
+        assertEquals("r1", business.getDetailedReviews().get(0).get("reviewId"));
+    }
+
+    private B2B treeTransform(String line) throws IOException {
+        JsonNode jsonNode = objectMapper.readTree(line);
+        JsonNode transformedNode = transformJsonKeys(jsonNode);
+        String transformedJson = objectMapper.writeValueAsString(transformedNode);
+        return objectMapper.readValue(transformedJson, B2B.class);
+    }
+
+    // Ancienne conversion de ImportB2BService, conservée comme référence
+    private JsonNode transformJsonKeys(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = objectMapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String camelCaseKey = SnakeToCamelCaseParser.snakeToCamelCase(field.getKey());
+                JsonNode value = field.getValue();
+                if (value.isObject() || value.isArray()) {
+                    objectNode.set(camelCaseKey, transformJsonKeys(value));
+                } else {
+                    objectNode.set(camelCaseKey, value);
+                }
+            }
+            return objectNode;
+        } else if (node.isArray()) {
+            List<JsonNode> transformedElements = new ArrayList<>();
+            for (JsonNode element : node) {
+                transformedElements.add(transformJsonKeys(element));
+            }
+            return objectMapper.valueToTree(transformedElements);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.springelasticproject.Services.b2bService;
+
+import com.example.springelasticproject.model.b2bModel.ScoreResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * scoreBlock doit rester identique, au bit près, à B2BScoreServiceFast.calculateBusinessScore:
+ * même score arrondi, même catégorie (déterminée sur le score non arrondi), même traitement des
+ * documents sans avis.
+ */
+class B2BScoreFormulaTest {
+
+    private static final int BLOCK_SIZE = 1000;
+
+    // Paramètres par défaut, puis variantes qui déplacent les frontières de catégorie
+    private static final double[][] PARAMETERS = {
+            {B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2, B2BScoreServiceFast.DEFAULT_M,
+                    B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING},
+            {1.0, 1.0, 0, 3.0},
+            {6.0, 2.5, 50, 4.2},
+    };
+
+    private final B2BScoreServiceFast reference = new B2BScoreServiceFast(null, null, null);
+
+    @Test
+    void scoreBlockMatchesCalculateBusinessScoreOnSmallDistributions() {
+        // Toutes les répartitions de 0 à 6 avis par note, sans avis compris
+        B2BScoreFormula.Block block = new B2BScoreFormula.Block(BLOCK_SIZE);
+        int[][] distributions = new int[7 * 7 * 7 * 7 * 7][];
+        int count = 0;
+        for (int n1 = 0; n1 <= 6; n1++) {
+            for (int n2 = 0; n2 <= 6; n2++) {
+                for (int n3 = 0; n3 <= 6; n3++) {
+                    for (int n4 = 0; n4 <= 6; n4++) {
+                        for (int n5 = 0; n5 <= 6; n5++) {
+                            distributions[count++] = new int[]{n1, n2, n3, n4, n5};
+                        }
+                    }
+                }
+            }
+        }
+        for (double[] parameters : PARAMETERS) {
+            assertBlocksMatch(block, distributions, parameters);
+        }
+    }
+
+    @Test
+    void scoreBlockMatchesCalculateBusinessScoreOnRandomDistributions() {
+        Random random = new Random(42);
+        B2BScoreFormula.Block block = new B2BScoreFormula.Block(BLOCK_SIZE);
+        int[][] distributions = new int[200_000][];
+        for (int i = 0; i < distributions.length; i++) {
+            // Petits et grands volumes d'avis, avec des notes absentes
+            int scale = random.nextInt(4) == 0 ? 100_000 : 200;
+            int[] distribution = new int[5];
+            for (int rating = 0; rating < 5; rating++) {
+                distribution[rating] = random.nextInt(3) == 0 ? 0 : random.nextInt(scale);
+            }
+            distributions[i] = distribution;
+        }
+        for (double[] parameters : PARAMETERS) {
+            assertBlocksMatch(block, distributions, parameters);
+        }
+    }
+
+    @Test
+    void scoreMatchesScoreBlock() {
+        Random random = new Random(7);
+        B2BScoreFormula.Block block = new B2BScoreFormula.Block(BLOCK_SIZE);
+        B2BScoreFormula.Holder holder = new B2BScoreFormula.Holder();
+        int[][] distributions = new int[BLOCK_SIZE][];
+        block.clear();
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            distributions[i] = new int[]{random.nextInt(50), random.nextInt(50), random.nextInt(50),
+                    random.nextInt(50), random.nextInt(50)};
+            block.add(asMap(distributions[i]));
+        }
+        block.score(B2BScoreServiceFast.DEFAULT_K1, B2BScoreServiceFast.DEFAULT_K2,
+                B2BScoreServiceFast.DEFAULT_M, B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int[] n = distributions[i];
+            B2BScoreFormula.score(n[0], n[1], n[2], n[3], n[4], B2BScoreServiceFast.DEFAULT_K1,
+                    B2BScoreServiceFast.DEFAULT_K2, B2BScoreServiceFast.DEFAULT_M,
+                    B2BScoreServiceFast.DEFAULT_NEUTRAL_RATING, holder);
+            assertEquals(Double.doubleToLongBits(holder.score), Double.doubleToLongBits(block.score(i)));
+            assertEquals(holder.category, block.category(i));
+        }
+    }
+
+    /**
+     * Score les répartitions par blocs réutilisés, comme B2BScoreServiceFast.applyScores, et compare
+     * chaque document au calcul de référence
+     */
+    private void assertBlocksMatch(B2BScoreFormula.Block block, int[][] distributions, double[] parameters) {
+        double k1 = parameters[0];
+        double k2 = parameters[1];
+        int m = (int) parameters[2];
+        double neutralRating = parameters[3];
+        for (int from = 0; from < distributions.length; from += BLOCK_SIZE) {
+            int to = Math.min(from + BLOCK_SIZE, distributions.length);
+            block.clear();
+            for (int i = from; i < to; i++) {
+                block.add(asMap(distributions[i]));
+            }
+            block.score(k1, k2, m, neutralRating);
+            for (int i = from; i < to; i++) {
+                int[] n = distributions[i];
+                ScoreResult expected = reference.calculateBusinessScore(n[0], n[1], n[2], n[3], n[4], k1, k2, m, neutralRating);
+                int position = i - from;
+                String message = "avis " + Arrays.toString(n) + ", paramètres " + Arrays.toString(parameters);
+                assertEquals(Double.doubleToLongBits(expected.getScore()), Double.doubleToLongBits(block.score(position)), message);
+                assertEquals(expected.getCategory(), block.categoryName(position), message);
+            }
+        }
+    }
+
+    private static Map<String, Integer> asMap(int[] distribution) {
+        Map<String, Integer> reviewsPerRating = new HashMap<>();
+        for (int rating = 0; rating < 5; rating++) {
+            // Une note sans avis est tantôt absente, tantôt à 0, comme dans les données importées
+            if (distribution[rating] != 0 || rating % 2 == 0) {
+                reviewsPerRating.put(String.valueOf(rating + 1), distribution[rating]);
+            }
+        }
+        return reviewsPerRating;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.springelasticproject.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Acquittement des morceaux et reprise d'un import NDJSON, sans Elasticsearch: l'indexation est
+ * remplacée par un indexeur en mémoire
+ */
+class NdjsonBulkLoaderTest {
+
+    // Assez de lignes pour plusieurs morceaux de 64 Ko
+    private static final int LINES = 3000;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService cpuExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService ioExecutor = Executors.newFixedThreadPool(4);
+    private final Set<Integer> indexed = ConcurrentHashMap.newKeySet();
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void shutdown() {
+        cpuExecutor.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void outOfOrderCompletionAcknowledgesTheContiguousPrefix() throws IOException {
+        Path file = writeLines(tempDir.resolve("a.ndjson"), 10);
+        ImportCheckpoint checkpoint = openCheckpoint(false);
+        checkpoint.start(file);
+        NdjsonBulkLoader.Acknowledgements acks = new NdjsonBulkLoader.Acknowledgements(file, checkpoint, 0, 0);
+        NdjsonBulkLoader.Acknowledgements.Position first = acks.next(100);
+        NdjsonBulkLoader.Acknowledgements.Position second = acks.next(200);
+        NdjsonBulkLoader.Acknowledgements.Position third = acks.next(300);
+
+        third.complete(3, false);
+        second.complete(2, false);
+        assertEntry(file, 0, 0, false);
+
+        first.complete(1, false);
+        assertEntry(file, 300, 6, false);
+    }
+
+    @Test
+    void failedChunkBlocksTheAcknowledgedPosition() throws IOException {
+        Path file = writeLines(tempDir.resolve("a.ndjson"), 10);
+        ImportCheckpoint checkpoint = openCheckpoint(false);
+        checkpoint.start(file);
+        NdjsonBulkLoader.Acknowledgements acks = new NdjsonBulkLoader.Acknowledgements(file, checkpoint, 0, 0);
+        NdjsonBulkLoader.Acknowledgements.Position first = acks.next(100);
+        NdjsonBulkLoader.Acknowledgements.Position second = acks.next(200);
+        NdjsonBulkLoader.Acknowledgements.Position third = acks.next(300);
+        NdjsonBulkLoader.Acknowledgements.Position fourth = acks.next(400);
+
+        third.complete(3, false);
+        first.complete(1, false);
+        assertEntry(file, 100, 1, false);
+
+        second.complete(2, true);
+        fourth.complete(4, false);
+        assertEntry(file, 100, 1, false);
+    }
+
+    @Test
+    void failedChunkInTheMiddleLeavesTheFileToResume() throws IOException {
+        Path file = writeLines(tempDir.resolve("a.ndjson"), LINES);
+        int failingLine = LINES / 2;
+        ImportCheckpoint checkpoint = openCheckpoint(false);
+
+        NdjsonBulkLoader.LoadStats stats = loader(failingLine).load(file, checkpoint);
+
+        assertTrue(stats.getIndexFailures() > 0);
+        ImportCheckpoint.FileEntry entry = readEntry(file);
+        assertFalse(entry.completed);
+        // La position s'arrête avant le morceau en échec, sur une fin de ligne
+        assertTrue(entry.offset > 0 && entry.offset <= lineOffset(failingLine));
+        assertEquals(entry.offset, lineOffset((int) entry.lines));
+
+        // La reprise relit à partir de cette position et termine le fichier
+        indexed.clear();
+        NdjsonBulkLoader.LoadStats resumed = loader(-1).load(file, openCheckpoint(true));
+
+        assertEquals(entry.offset, resumed.getResumedFromOffset());
+        assertEquals(range((int) entry.lines, LINES), new TreeSet<>(indexed));
+        assertEntry(file, Files.size(file), LINES, true);
+    }
+
+    @Test
+    void resumesPlainFileFromSavedOffset() throws IOException {
+        Path file = writeLines(tempDir.resolve("a.ndjson"), LINES);
+        assertResumesFrom(file, 1234, lineOffset(1234), Files.size(file));
+    }
+
+    @Test
+    void resumesGzipFileFromSavedOffset() throws IOException {
+        Path file = tempDir.resolve("a.ndjson.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content(LINES));
+        }
+        // Position en octets décompressés
+        assertResumesFrom(file, 2345, lineOffset(2345), content(LINES).length);
+    }
+
+    private void assertResumesFrom(Path file, int line, long offset, long endOffset) throws IOException {
+        ImportCheckpoint checkpoint = openCheckpoint(false);
+        checkpoint.start(file);
+        checkpoint.acknowledge(file, offset, line, false);
+
+        NdjsonBulkLoader.LoadStats stats = loader(-1).load(file, openCheckpoint(true));
+
+        assertEquals(offset, stats.getResumedFromOffset());
+        // Lignes comptées depuis le début du fichier, seules les suivantes sont relues
+        assertEquals(LINES, stats.getLines());
+        assertEquals(LINES - line, stats.getParsed());
+        assertEquals(range(line, LINES), new TreeSet<>(indexed));
+        assertEntry(file, endOffset, LINES, true);
+    }
+
+    /**
+     * Chargeur dont l'indexeur refuse tout lot contenant la ligne {@code failingLine} (-1: aucune)
+     */
+    private NdjsonBulkLoader<Integer> loader(int failingLine) {
+        return new NdjsonBulkLoader<>(cpuExecutor, ioExecutor, 100, 2, CHUNK_SIZE,
+                (buffer, offset, length) -> objectMapper.readTree(buffer, offset, length).get("id").asInt(),
+                batch -> {
+                    if (batch.contains(failingLine)) {
+                        throw new IOException("Elasticsearch indisponible");
+                    }
+                    indexed.addAll(batch);
+                },
+                null);
+    }
+
+    private ImportCheckpoint openCheckpoint(boolean resume) throws IOException {
+        return ImportCheckpoint.open(tempDir.resolve("checkpoints"), tempDir, resume, objectMapper);
+    }
+
+    private void assertEntry(Path file, long offset, long lines, boolean completed) throws IOException {
+        ImportCheckpoint.FileEntry entry = readEntry(file);
+        assertEquals(offset, entry.offset);
+        assertEquals(lines, entry.lines);
+        assertEquals(completed, entry.completed);
+    }
+
+    private ImportCheckpoint.FileEntry readEntry(Path file) throws IOException {
+        Path manifestFile = openCheckpoint(true).getManifestFile();
+        ImportCheckpoint.Manifest manifest = objectMapper.readValue(manifestFile.toFile(), ImportCheckpoint.Manifest.class);
+        return manifest.files.get(file.getFileName().toString());
+    }
+
+    private static Path writeLines(Path file, int count) throws IOException {
+        return Files.write(file, content(count));
+    }
+
+    private static byte[] content(int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            content.append(line(i));
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String line(int id) {
+        return "{\"id\":" + id + ",\"name\":\"Garage du Centre " + id + "\",\"main_category\":\"Garage automobile\"}\n";
+    }
+
+    /**
+     * Octet de début de la ligne {@code id} (les lignes sont en ASCII)
+     */
+    private static long lineOffset(int id) {
+        long offset = 0;
+        for (int i = 0; i < id; i++) {
+            offset += line(i).length();
+        }
+        return offset;
+    }
+
+    private static Set<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toCollection(TreeSet::new));
+    }
+}